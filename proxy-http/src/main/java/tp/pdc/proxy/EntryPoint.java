@@ -15,7 +15,7 @@ public final class EntryPoint {
 	}
 	
 	public static void main(String[] args) throws IOException {
-		new PDCServer(PROPERTIES.getProxyPort(), PROPERTIES.getProtocolPort()).run();
+		new PDCServer(PROPERTIES.getProxyPort(), PROPERTIES.getProtocolPort(), PROPERTIES.getEventLoops()).run();
 	}
 
 }
@@ -3,11 +3,11 @@ package tp.pdc.proxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import tp.pdc.proxy.connection.ConnectionManager;
 import tp.pdc.proxy.handler.SelectorHandler;
 import tp.pdc.proxy.handler.interfaces.Handler;
 import tp.pdc.proxy.handler.supplier.HttpClientProxyHandlerSupplier;
 import tp.pdc.proxy.handler.supplier.ProtocolHandlerSupplier;
+import tp.pdc.proxy.loop.EventLoop;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -18,20 +18,33 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Supplier;
 
+/**
+ * Multi-reactor server. The thread calling {@link #run()} only accepts connections and hands them
+ * to the {@link EventLoop}s in a round robin fashion. A client and every server connection opened
+ * on its behalf live on the same event loop.
+ */
 public class PDCServer {
 	private static final Logger LOGGER = LoggerFactory.getLogger(PDCServer.class);
-	private static final ConnectionManager CONNECTION_MANAGER = ConnectionManager.getInstance();
 
 	private final Selector selector;
 	private final int proxyPort;
 	private final int protocolPort;
+	private final EventLoop[] eventLoops;
+	private int nextLoop;
 
-	public PDCServer (int proxyPort, int protocolPort) throws IOException {
+	public PDCServer (int proxyPort, int protocolPort, int eventLoopCount) throws IOException {
 		LOGGER.info("Setting up PDC server...");
 
+		if (eventLoopCount < 1)
+			throw new IllegalArgumentException("At least one event loop is required");
+
 		this.selector = Selector.open();
 		this.proxyPort = proxyPort;
 		this.protocolPort = protocolPort;
+		this.eventLoops = new EventLoop[eventLoopCount];
+
+		for (int i = 0; i < eventLoopCount; i++)
+			eventLoops[i] = new EventLoop(i);
 
 		registerChannel(proxyPort, HttpClientProxyHandlerSupplier.getInstance());
 		registerChannel(protocolPort, ProtocolHandlerSupplier.getInstance());
@@ -50,14 +63,15 @@ public class PDCServer {
 	public void run () throws IOException {
 		final SelectorHandler protocol = new SelectorHandler();
 
+		for (EventLoop eventLoop : eventLoops)
+			eventLoop.start();
+
 		LOGGER.info("Accepting HTTP proxy connections from port: {}", proxyPort);
 		LOGGER.info("Accepting protocol connections from port: {}", protocolPort);
+		LOGGER.info("Running {} event loops", eventLoops.length);
 
 		while (true) {
-			if (selector.select(CONNECTION_MANAGER.getCleanRate()) == 0) {
-				CONNECTION_MANAGER.clean();
-				continue;
-			}
+			selector.select();
 
 			Set<SelectionKey> keySet = selector.selectedKeys();
 			Iterator<SelectionKey> keyIter = keySet.iterator();
@@ -67,19 +81,14 @@ public class PDCServer {
 				keyIter.remove();
 
 				if (key.isValid() && key.isAcceptable())
-					protocol.handleAccept(key);
-
-				if (key.isValid() && key.isConnectable())
-					protocol.handleConnect(key);
-
-				if (key.isValid() && key.isReadable())
-					protocol.handleRead(key);
-
-				if (key.isValid() && key.isWritable())
-					protocol.handleWrite(key);
+					protocol.handleAccept(key, nextEventLoop());
 			}
-
-			CONNECTION_MANAGER.clean();
 		}
 	}
+
+	private EventLoop nextEventLoop () {
+		EventLoop eventLoop = eventLoops[nextLoop];
+		nextLoop = (nextLoop + 1) % eventLoops.length;
+		return eventLoop;
+	}
 }
@@ -0,0 +1,62 @@
+package tp.pdc.proxy.bytes;
+
+/**
+ * Predicts the buffer size a connection needs from an exponentially weighted moving average of its
+ * recent reads. A read which fills the whole buffer counts as twice the buffer's capacity, as the
+ * connection had more to give.
+ * <p>
+ * Sizes are powers of two. The size grows as soon as the average exceeds it, and only shrinks one step
+ * at a time once the average falls below a quarter of it, so it doesn't flap between two sizes.
+ */
+public class AdaptiveBufferSize {
+	private static final int WEIGHT_SHIFT = 2; // each read weighs 1/4 on the average
+
+	private final int minSize;
+	private final int maxSize;
+	private int size;
+	private int average;
+
+	/**
+	 * @param initialSize starting size
+	 * @param minSize lower bound
+	 * @param maxSize upper bound
+	 */
+	public AdaptiveBufferSize (int initialSize, int minSize, int maxSize) {
+		this.minSize = roundToPowerOfTwo(minSize);
+		this.maxSize = Math.max(roundToPowerOfTwo(maxSize), this.minSize);
+		this.size = clamp(roundToPowerOfTwo(initialSize));
+		this.average = size;
+	}
+
+	/**
+	 * Records a read
+	 * @param bytesRead bytes read
+	 * @param capacity capacity of the buffer read into
+	 * @param filled whether the read filled the buffer
+	 */
+	public void record (int bytesRead, int capacity, boolean filled) {
+		int sample = filled ? Math.max(bytesRead, capacity << 1) : bytesRead;
+		average += (sample - average) >> WEIGHT_SHIFT;
+
+		if (average > size)
+			size = clamp(roundToPowerOfTwo(average));
+		else if (average < size >> 2)
+			size = clamp(size >> 1);
+	}
+
+	public int getSize () {
+		return size;
+	}
+
+	private int clamp (int value) {
+		return Math.min(Math.max(value, minSize), maxSize);
+	}
+
+	private static int roundToPowerOfTwo (int value) {
+		if (value <= 1)
+			return 1;
+
+		int highest = Integer.highestOneBit(value);
+		return highest == value ? value : highest << 1;
+	}
+}
@@ -0,0 +1,295 @@
+package tp.pdc.proxy.bytes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of direct {@link ByteBuffer}s split in power of two size classes.
+ * <p>
+ * Buffers of a class are sliced out of direct slabs, so a single native allocation serves several buffers.
+ * Each thread keeps a bounded cache per class which is used without synchronization; buffers overflowing it
+ * go to the class' shared queue, from which any thread can take them.
+ * <p>
+ * Acquired buffers are tracked until released, so releasing a buffer twice fails. With leak detection enabled
+ * the stack trace of each acquisition is kept too, and releasing a buffer the pool didn't hand out fails.
+ */
+public class BufferPool {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BufferPool.class);
+	private static final int STRIPES = 64;
+	private static final Object UNTRACED = new Object();
+
+	private final int minSize;
+	private final int slabSize;
+	private final int threadCacheSize;
+	private final SizeClass[] sizeClasses;
+	private final ThreadLocal<ThreadCache> threadCaches;
+	private final boolean leakDetection;
+
+	// Outstanding buffers, striped by identity hash so threads releasing at once rarely contend. Each maps to
+	// its acquisition's stack trace with leak detection enabled.
+	private final Map<ByteBuffer, Object>[] outstanding;
+
+	/**
+	 * @param minSize capacity of the smallest size class, rounded up to a power of two
+	 * @param maxSize capacity of the biggest size class, rounded up to a power of two
+	 * @param slabSize bytes allocated at once when a size class runs out of buffers
+	 * @param threadCacheSize maximum amount of buffers per size class cached by each thread
+	 * @param leakDetection whether where outstanding buffers were acquired is tracked
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public BufferPool (int minSize, int maxSize, int slabSize, int threadCacheSize, boolean leakDetection) {
+		if (minSize <= 0 || maxSize < minSize || threadCacheSize < 0)
+			throw new IllegalArgumentException("Invalid buffer pool sizes");
+
+		this.minSize = roundToPowerOfTwo(minSize);
+		this.slabSize = slabSize;
+		this.threadCacheSize = threadCacheSize;
+		this.sizeClasses = new SizeClass[sizeClassIndex(roundToPowerOfTwo(maxSize)) + 1];
+
+		for (int i = 0; i < sizeClasses.length; i++)
+			sizeClasses[i] = new SizeClass(this.minSize << i);
+
+		this.threadCaches = ThreadLocal.withInitial(() -> new ThreadCache(sizeClasses.length));
+		this.leakDetection = leakDetection;
+		this.outstanding = new Map[STRIPES];
+
+		for (int i = 0; i < STRIPES; i++)
+			outstanding[i] = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Gets a cleared buffer with at least the requested capacity
+	 * @param size requested capacity, must not exceed the biggest size class
+	 * @return a direct buffer whose capacity is the requested size rounded up to its size class
+	 */
+	public ByteBuffer acquire (int size) {
+		int index = sizeClassIndex(roundToPowerOfTwo(Math.max(size, minSize)));
+
+		if (index >= sizeClasses.length)
+			throw new IllegalArgumentException("Requested buffer exceeds the biggest size class: " + size);
+
+		ArrayDeque<ByteBuffer> cache = threadCaches.get().buffers[index];
+		ByteBuffer buffer = cache.poll();
+
+		if (buffer == null)
+			buffer = sizeClasses[index].shared.poll();
+
+		if (buffer == null)
+			buffer = allocateSlab(sizeClasses[index], cache);
+
+		buffer.clear();
+		sizeClasses[index].live.increment();
+
+		Map<ByteBuffer, Object> stripe = stripe(buffer);
+		Object acquisition = leakDetection ? new Throwable("Buffer acquired here") : UNTRACED;
+
+		synchronized (stripe) {
+			stripe.put(buffer, acquisition);
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool. The buffer must not be used afterwards.
+	 * Buffers which do not belong to a size class are ignored, unless leak detection is enabled.
+	 * @param buffer buffer to release
+	 * @throws IllegalStateException if the buffer was already released, or wasn't handed out by the pool
+	 */
+	public void release (ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+
+		if (!buffer.isDirect() || capacity < minSize || Integer.bitCount(capacity) != 1
+			|| sizeClassIndex(capacity) >= sizeClasses.length) {
+			if (leakDetection)
+				throw new IllegalStateException("Released buffer is not pooled");
+			return;
+		}
+
+		Map<ByteBuffer, Object> stripe = stripe(buffer);
+		Object acquisition;
+
+		synchronized (stripe) {
+			acquisition = stripe.remove(buffer);
+		}
+
+		if (acquisition == null)
+			throw new IllegalStateException("Released buffer is not outstanding: released twice or not pooled");
+
+		int index = sizeClassIndex(capacity);
+		sizeClasses[index].live.decrement();
+
+		ArrayDeque<ByteBuffer> cache = threadCaches.get().buffers[index];
+
+		if (cache.size() >= threadCacheSize) {
+			// Hands half of the cache over, so other threads can reuse what this one accumulates
+			Queue<ByteBuffer> shared = sizeClasses[index].shared;
+
+			for (int i = threadCacheSize / 2; i > 0; i--)
+				shared.add(cache.poll());
+
+			if (cache.size() >= threadCacheSize) {
+				shared.add(buffer);
+				return;
+			}
+		}
+
+		cache.push(buffer);
+	}
+
+	/**
+	 * Allocates a direct slab for a size class and slices it into buffers. One is returned, the rest are
+	 * cached by the current thread or handed over to the class' shared queue.
+	 */
+	private ByteBuffer allocateSlab (SizeClass sizeClass, ArrayDeque<ByteBuffer> cache) {
+		int size = sizeClass.size;
+		int count = Math.max(slabSize / size, 1);
+		ByteBuffer slab = ByteBuffer.allocateDirect(size * count);
+		ByteBuffer first = null;
+
+		sizeClass.slabs.incrementAndGet();
+
+		for (int i = 0; i < count; i++) {
+			slab.limit(size * (i + 1));
+			slab.position(size * i);
+			ByteBuffer buffer = slab.slice();
+
+			if (first == null)
+				first = buffer;
+			else if (cache.size() < threadCacheSize)
+				cache.push(buffer);
+			else
+				sizeClass.shared.add(buffer);
+		}
+
+		return first;
+	}
+
+	/**
+	 * Capacity of the buffers handed out for a requested size
+	 * @param size requested size
+	 * @return the size class' capacity
+	 */
+	public int capacityFor (int size) {
+		return roundToPowerOfTwo(Math.max(size, minSize));
+	}
+
+	/**
+	 * Amount of slabs allocated for the size class serving a requested size
+	 * @param size requested size
+	 * @return allocated slabs
+	 */
+	public int allocatedSlabs (int size) {
+		return sizeClasses[sizeClassIndex(capacityFor(size))].slabs.get();
+	}
+
+	/**
+	 * Amount of buffers in use of each size class, only including classes with buffers in use
+	 * @return map from capacity to amount of buffers in use, sorted by capacity
+	 */
+	public Map<Integer, Long> liveBuffersBySize () {
+		Map<Integer, Long> liveBuffers = new LinkedHashMap<>();
+
+		for (SizeClass sizeClass : sizeClasses) {
+			long live = sizeClass.live.sum();
+
+			if (live > 0)
+				liveBuffers.put(sizeClass.size, live);
+		}
+
+		return liveBuffers;
+	}
+
+	public boolean isLeakDetectionEnabled () {
+		return leakDetection;
+	}
+
+	/**
+	 * Amount of acquired buffers not released yet
+	 * @return outstanding buffers
+	 */
+	public int outstandingBuffers () {
+		int size = 0;
+
+		for (Map<ByteBuffer, Object> stripe : outstanding) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * Logs every outstanding buffer along with where it was acquired
+	 * @return amount of outstanding buffers, 0 if leak detection is disabled
+	 */
+	public int reportLeaks () {
+		if (!leakDetection)
+			return 0;
+
+		List<Object> acquisitions = new ArrayList<>();
+
+		for (Map<ByteBuffer, Object> stripe : outstanding) {
+			synchronized (stripe) {
+				acquisitions.addAll(stripe.values());
+			}
+		}
+
+		for (Object acquisition : acquisitions)
+			LOGGER.error("Buffer leaked", (Throwable) acquisition);
+
+		return acquisitions.size();
+	}
+
+	private Map<ByteBuffer, Object> stripe (ByteBuffer buffer) {
+		return outstanding[System.identityHashCode(buffer) & (STRIPES - 1)];
+	}
+
+	private int sizeClassIndex (int capacity) {
+		return Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(minSize);
+	}
+
+	private static int roundToPowerOfTwo (int size) {
+		int highest = Integer.highestOneBit(size);
+		return highest == size ? size : highest << 1;
+	}
+
+	private static class SizeClass {
+		private final int size;
+		private final Queue<ByteBuffer> shared;
+		private final AtomicInteger slabs;
+		private final LongAdder live;
+
+		private SizeClass (int size) {
+			this.size = size;
+			this.shared = new ConcurrentLinkedQueue<>();
+			this.slabs = new AtomicInteger();
+			this.live = new LongAdder();
+		}
+	}
+
+	private static class ThreadCache {
+		private final ArrayDeque<ByteBuffer>[] buffers;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private ThreadCache (int sizeClasses) {
+			buffers = new ArrayDeque[sizeClasses];
+
+			for (int i = 0; i < sizeClasses; i++)
+				buffers[i] = new ArrayDeque<>();
+		}
+	}
+}
@@ -1,35 +1,94 @@
 package tp.pdc.proxy.bytes;
 
 import java.nio.ByteBuffer;
+import java.util.Map;
 
 import tp.pdc.proxy.properties.ProxyProperties;
 
 /**
- * Creates a {@link ByteBuffer} for the proxy.
+ * Hands out the proxy's {@link ByteBuffer}s from a {@link BufferPool} of direct buffers.
+ * Every buffer obtained from the factory must be given back with {@link #release(ByteBuffer)}.
+ * <p>
+ * The proxy buffer size is the size every connection starts with. Connections then adapt their buffers
+ * between the minimum and maximum adaptive sizes, which always include the proxy buffer size.
  */
 public class ByteBufferFactory {
 
 	public static final int MIN_PROXY_SIZE = 512;
 	public static final int MAX_PROXY_SIZE = 1024 * 1024; // 1Mb
 	private static final ByteBufferFactory INSTANCE = new ByteBufferFactory();
-	private int proxyBufferSize;
+	private final BufferPool pool;
+	private final int minAdaptiveSize;
+	private final int maxAdaptiveSize;
+	private volatile int proxyBufferSize;
 
 	private ByteBufferFactory () {
-		this.proxyBufferSize = ProxyProperties.getInstance().getProxyBufferSize();
+		ProxyProperties properties = ProxyProperties.getInstance();
+
+		this.proxyBufferSize = normalizeSize(properties.getProxyBufferSize());
+		this.minAdaptiveSize = normalizeSize(properties.getProxyBufferMinSize());
+		this.maxAdaptiveSize = normalizeSize(properties.getProxyBufferMaxSize());
+		this.pool = new BufferPool(MIN_PROXY_SIZE, MAX_PROXY_SIZE, properties.getBufferPoolSlabSize(),
+			properties.getBufferPoolThreadCacheSize(), properties.isBufferLeakDetectionEnabled());
+
+		if (pool.isLeakDetectionEnabled())
+			Runtime.getRuntime().addShutdownHook(new Thread(pool::reportLeaks, "buffer-leak-report"));
 	}
 
 	public static ByteBufferFactory getInstance () {
 		return INSTANCE;
 	}
 
+	/**
+	 * Gets a cleared direct buffer from the pool. Its capacity is the proxy buffer size rounded up
+	 * to the next power of two.
+	 * @return proxy buffer
+	 */
 	public ByteBuffer getProxyBuffer () {
-		return ByteBuffer.allocate(proxyBufferSize);
+		return pool.acquire(proxyBufferSize);
+	}
+
+	/**
+	 * Gets a cleared direct buffer from the pool with a given size, rounded up to the next power of two
+	 * @param size requested size, normalized to the proxy's bounds
+	 * @return proxy buffer
+	 */
+	public ByteBuffer getProxyBuffer (int size) {
+		return pool.acquire(normalizeSize(size));
+	}
+
+	/**
+	 * Gives a buffer obtained with {@link #getProxyBuffer()} back to the pool
+	 * @param buffer buffer which must not be used anymore
+	 */
+	public void release (ByteBuffer buffer) {
+		pool.release(buffer);
+	}
+
+	public BufferPool getPool () {
+		return pool;
 	}
 
 	public int getProxyBufferSize () {
 		return proxyBufferSize;
 	}
 
+	public int getMinAdaptiveSize () {
+		return Math.min(minAdaptiveSize, proxyBufferSize);
+	}
+
+	public int getMaxAdaptiveSize () {
+		return Math.max(maxAdaptiveSize, proxyBufferSize);
+	}
+
+	/**
+	 * Amount of proxy buffers in use of each size
+	 * @return map from capacity to amount of buffers in use, sorted by capacity
+	 */
+	public Map<Integer, Long> getBufferSizeDistribution () {
+		return pool.liveBuffersBySize();
+	}
+
 	public void setProxyBufferSize (int size) {
 		this.proxyBufferSize = normalizeSize(size);
 	}
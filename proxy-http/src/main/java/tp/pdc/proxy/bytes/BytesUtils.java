@@ -12,16 +12,18 @@ public final class BytesUtils {
 
 	/**
 	 * Copies length bytes from input buffer to output buffer using the bulk put operation
-	 * and updates input's position pointer accordingly.
+	 * and updates input's position pointer accordingly. Works on direct buffers as well, as the input's
+	 * limit is narrowed instead of accessing its backing array.
 	 *
 	 * @param input  Buffer from which bytes must be read. Must be in read mode.
 	 * @param output Buffer from which bytes will be written to.
 	 * @param length Amount of bytes to copy.
 	 */
 	public static void lengthPut (ByteBuffer input, ByteBuffer output, int length) {
-		int inputPos = input.position();
-		output.put(input.array(), inputPos, length);
-		input.position(inputPos + length);
+		int inputLimit = input.limit();
+		input.limit(input.position() + length);
+		output.put(input);
+		input.limit(inputLimit);
 	}
 
 	public static void lengthPut (byte[] input, ByteBuffer output, int length) {
@@ -0,0 +1,107 @@
+package tp.pdc.proxy.connection;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import tp.pdc.proxy.properties.ProxyProperties;
+
+/**
+ * Remembers which address family, IPv4 or IPv6, connections recently failed on, so the addresses of a host
+ * are tried starting with the family that works. Shared by all event loops.
+ */
+public class AddressFamilyHistory {
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+	private static final AddressFamilyHistory INSTANCE =
+		new AddressFamilyHistory(TimeUnit.SECONDS.toMillis(PROPERTIES.getAddressFamilyPenalty()));
+
+	private final long penalty;
+	private volatile long ipv4FailedUntil;
+	private volatile long ipv6FailedUntil;
+
+	/**
+	 * @param penalty milliseconds a family is tried last after a failure
+     */
+	AddressFamilyHistory (long penalty) {
+		this.penalty = penalty;
+	}
+
+	public static AddressFamilyHistory getInstance () {
+		return INSTANCE;
+	}
+
+	/**
+	 * Marks the address' family as failing
+	 * @param address address a connection failed to
+     */
+	public void recordFailure (InetAddress address) {
+		long until = System.currentTimeMillis() + penalty;
+
+		if (address instanceof Inet6Address)
+			ipv6FailedUntil = until;
+		else
+			ipv4FailedUntil = until;
+	}
+
+	/**
+	 * Marks the address' family as working
+	 * @param address address a connection was established to
+     */
+	public void recordSuccess (InetAddress address) {
+		if (address instanceof Inet6Address)
+			ipv6FailedUntil = 0;
+		else
+			ipv4FailedUntil = 0;
+	}
+
+	/**
+	 * Checks if connections to the address' family recently failed
+	 * @param address address to check
+	 * @return true if its family is failing
+     */
+	public boolean isFailing (InetAddress address) {
+		long failedUntil = address instanceof Inet6Address ? ipv6FailedUntil : ipv4FailedUntil;
+		return failedUntil != 0 && System.currentTimeMillis() < failedUntil;
+	}
+
+	/**
+	 * Orders a host's addresses to be tried, alternating families. The first family is the first address'
+	 * unless it is failing and the other is not. The order within a family is kept.
+	 * @param addresses resolved addresses, in the resolver's order
+	 * @return addresses in the order they should be tried
+     */
+	public List<InetSocketAddress> order (List<InetSocketAddress> addresses) {
+		if (addresses.size() < 2)
+			return addresses;
+
+		List<InetSocketAddress> first = new ArrayList<>();
+		List<InetSocketAddress> second = new ArrayList<>();
+		boolean firstIsIpv6 = addresses.get(0).getAddress() instanceof Inet6Address;
+
+		for (InetSocketAddress address : addresses)
+			if (address.getAddress() instanceof Inet6Address == firstIsIpv6)
+				first.add(address);
+			else
+				second.add(address);
+
+		if (!second.isEmpty() && isFailing(first.get(0).getAddress()) && !isFailing(second.get(0).getAddress())) {
+			List<InetSocketAddress> swap = first;
+			first = second;
+			second = swap;
+		}
+
+		List<InetSocketAddress> ordered = new ArrayList<>(addresses.size());
+
+		for (int i = 0; i < first.size() || i < second.size(); i++) {
+			if (i < first.size())
+				ordered.add(first.get(i));
+			if (i < second.size())
+				ordered.add(second.get(i));
+		}
+
+		return ordered;
+	}
+}
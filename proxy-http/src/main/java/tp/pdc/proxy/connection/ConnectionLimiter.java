@@ -0,0 +1,135 @@
+package tp.pdc.proxy.connection;
+
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the server connections in use to each address and queues, in arrival order, what waits for one
+ * once an address reaches its cap. Idle connections don't count: they are reused before a new one is opened.
+ * <p>
+ * Not thread safe: each {@link tp.pdc.proxy.loop.EventLoop} owns its limiter through its {@link ConnectionManager}.
+ * @param <T> what waits for a connection
+ */
+public class ConnectionLimiter<T> {
+
+	private final int maxActive;
+	private final int maxQueued;
+	private final Map<SocketAddress, Upstream<T>> upstreams;
+
+	/**
+	 * @param maxActive maximum amount of connections in use to a same address, unlimited if not positive
+	 * @param maxQueued maximum amount of waiters for a same address
+     */
+	public ConnectionLimiter (int maxActive, int maxQueued) {
+		this.maxActive = maxActive;
+		this.maxQueued = maxQueued;
+		this.upstreams = new HashMap<>();
+	}
+
+	/**
+	 * Checks if no more connections to an address may be opened
+	 * @param address connections' address
+	 * @return true if the address reached its cap
+     */
+	public boolean isFull (SocketAddress address) {
+		return maxActive > 0 && active(address) >= maxActive;
+	}
+
+	/**
+	 * Counts a connection to an address as in use, regardless of the cap
+	 * @param address connection's address
+     */
+	public void acquire (SocketAddress address) {
+		upstream(address).active++;
+	}
+
+	/**
+	 * Counts a connection to an address as no longer in use
+	 * @param address connection's address
+     */
+	public void release (SocketAddress address) {
+		Upstream<T> upstream = upstreams.get(address);
+
+		if (upstream == null || upstream.active == 0)
+			throw new IllegalStateException("No connection in use to " + address);
+
+		upstream.active--;
+		removeIfUnused(address, upstream);
+	}
+
+	/**
+	 * Queues a waiter for a connection to an address
+	 * @param address address to connect
+	 * @param waiter waiter to queue
+	 * @return false if the address' queue is full
+     */
+	public boolean enqueue (SocketAddress address, T waiter) {
+		Upstream<T> upstream = upstream(address);
+
+		if (upstream.waiters.size() >= maxQueued) {
+			removeIfUnused(address, upstream);
+			return false;
+		}
+
+		upstream.waiters.add(waiter);
+		return true;
+	}
+
+	/**
+	 * Takes the waiter queued first for an address
+	 * @param address address to connect
+	 * @return the waiter, null if there are none
+     */
+	public T poll (SocketAddress address) {
+		Upstream<T> upstream = upstreams.get(address);
+
+		if (upstream == null)
+			return null;
+
+		T waiter = upstream.waiters.poll();
+		removeIfUnused(address, upstream);
+		return waiter;
+	}
+
+	/**
+	 * Removes a waiter which gave up
+	 * @param address address it waited for
+	 * @param waiter waiter to remove
+	 * @return true if it was queued
+     */
+	public boolean remove (SocketAddress address, T waiter) {
+		Upstream<T> upstream = upstreams.get(address);
+
+		if (upstream == null || !upstream.waiters.remove(waiter))
+			return false;
+
+		removeIfUnused(address, upstream);
+		return true;
+	}
+
+	public int active (SocketAddress address) {
+		Upstream<T> upstream = upstreams.get(address);
+		return upstream == null ? 0 : upstream.active;
+	}
+
+	public int queued (SocketAddress address) {
+		Upstream<T> upstream = upstreams.get(address);
+		return upstream == null ? 0 : upstream.waiters.size();
+	}
+
+	private Upstream<T> upstream (SocketAddress address) {
+		return upstreams.computeIfAbsent(address, a -> new Upstream<>());
+	}
+
+	private void removeIfUnused (SocketAddress address, Upstream<T> upstream) {
+		if (upstream.active == 0 && upstream.waiters.isEmpty())
+			upstreams.remove(address);
+	}
+
+	private static class Upstream<T> {
+		private final ArrayDeque<T> waiters = new ArrayDeque<>();
+		private int active;
+	}
+}
@@ -1,73 +1,200 @@
 package tp.pdc.proxy.connection;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Queue;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import tp.pdc.proxy.connection.ConnectionPool.PooledConnection;
 import tp.pdc.proxy.handler.HttpClientProxyHandler;
 import tp.pdc.proxy.handler.HttpServerProxyHandler;
+import tp.pdc.proxy.header.HttpErrorCode;
 import tp.pdc.proxy.header.Method;
+import tp.pdc.proxy.loop.EventLoop;
 import tp.pdc.proxy.metric.ServerMetricImpl;
 import tp.pdc.proxy.metric.interfaces.ServerMetric;
+import tp.pdc.proxy.parser.interfaces.HttpResponseParser;
 import tp.pdc.proxy.properties.ProxyProperties;
-import tp.pdc.proxy.structures.ArrayQueue;
-import tp.pdc.proxy.structures.FixedLengthQueue;
-import tp.pdc.proxy.time.ExpirableContainer;
+import tp.pdc.proxy.time.HashedWheelTimer;
+import tp.pdc.proxy.time.HashedWheelTimer.Timeout;
+import tp.pdc.proxy.time.TimeoutType;
+import tp.pdc.proxy.time.Timeouts;
 
 /**
- * Manages connections between the proxy and servers to implement persistent connections
+ * Manages connections between the proxy and servers to implement persistent connections.
+ * Each {@link tp.pdc.proxy.loop.EventLoop} owns its connection manager, so stored connections
+ * are only reused by clients on the same loop. Stored connections are kept in a {@link ConnectionPool}.
+ * <p>
+ * Connections in use to each address are capped by a {@link ConnectionLimiter}. A request finding no idle
+ * connection to an address at its cap waits in a queue until one is returned or closed, and gets
+ * a 503 response if the queue is full or the wait times out.
+ * <p>
+ * New connections race the addresses of their host through a {@link ConnectionRace}. Connections are stored,
+ * capped and queued under the host's first resolved address, whichever address they were established to.
  */
 public class ConnectionManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionManager.class);
 	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
-	private static final ConnectionManager INSTANCE = new ConnectionManager();
 	private static final ServerMetric SERVER_METRICS = ServerMetricImpl.getInstance();
 	private static final int QUEUE_LENGTH = PROPERTIES.getConnectionQueueLength();
+	private static final int POOL_SIZE = PROPERTIES.getConnectionPoolSize();
 	private static final int CONNECTION_TTL = PROPERTIES.getConnectionTimeToLive();
+	private static final long KEEP_ALIVE_MARGIN = 1000; // ms before the server's Keep-Alive timeout
+	private static final int SCRATCH_SIZE = 1; // any byte read from an idle connection discards it
+	private static final int MAX_ACTIVE = PROPERTIES.getMaxActiveConnections();
+	private static final int PENDING_QUEUE_LENGTH = PROPERTIES.getPendingQueueLength();
+	private static final int PENDING_QUEUE_TIMEOUT = PROPERTIES.getPendingQueueTimeout();
+	private static final int ATTEMPT_DELAY = PROPERTIES.getConnectionAttemptDelay();
+	private static final AddressFamilyHistory FAMILY_HISTORY = AddressFamilyHistory.getInstance();
+
+	private final ConnectionPool pool;
+	private final ConnectionLimiter<PendingRequest> limiter;
+	private final int maxActive;
+	private final HashedWheelTimer timer;
+	private final Timeouts timeouts;
+	private final ByteBuffer scratch;
 
-	private final Map<SocketAddress, FixedLengthQueue<ExpirableContainer<SelectionKey>>> connections;
-	private final long cleanRate;
-	private long cleanTime;
-
-	private ConnectionManager () {
-		connections = new HashMap<>();
-		cleanRate = TimeUnit.SECONDS.toMillis(PROPERTIES.getConnectionCleanRate());
-		cleanTime = System.currentTimeMillis() + cleanRate;
+	/**
+	 * @param timer event loop's timer on which stored connections expire
+	 * @param timeouts event loop's timeouts
+     */
+	public ConnectionManager (HashedWheelTimer timer, Timeouts timeouts) {
+		this(timer, timeouts, MAX_ACTIVE);
 	}
 
-	public static final ConnectionManager getInstance () {
-		return INSTANCE;
-	}
-	
-	public long getCleanRate() {
-		return cleanRate;
+	/**
+	 * @param timer event loop's timer on which stored connections expire
+	 * @param timeouts event loop's timeouts
+	 * @param maxActive maximum amount of connections in use to a same address, unlimited if not positive
+     */
+	ConnectionManager (HashedWheelTimer timer, Timeouts timeouts, int maxActive) {
+		this.pool = new ConnectionPool(POOL_SIZE, QUEUE_LENGTH);
+		this.limiter = new ConnectionLimiter<>(maxActive, PENDING_QUEUE_LENGTH);
+		this.maxActive = maxActive;
+		this.timer = timer;
+		this.timeouts = timeouts;
+		this.scratch = ByteBuffer.allocate(SCRATCH_SIZE);
 	}
 
 	/**
-	 * Connects to a server, it can reuse an existing connection or establish a new one.
+	 * Connects to a server, it can reuse an existing connection or establish a new one. If the address is at
+	 * its cap the request is queued instead.
 	 * @param method method requested
-	 * @param address address to connect
+	 * @param addresses resolved addresses of the server
 	 * @param clientKey client's key
 	 * @return true if the connection was successful, false if not
-	 * @throws IOException
      */
-	public boolean connect (Method method, SocketAddress address, SelectionKey clientKey) throws IOException {
-		if (connections.containsKey(address)) {
+	public boolean connect (Method method, List<InetSocketAddress> addresses, SelectionKey clientKey) {
+		SocketAddress address = addresses.get(0);
+
+		if (pool.size(address) != 0) {
 			LOGGER.debug("Attempting to reuse connection");
-			return reuseConnection(method, address, clientKey);
+			return reuseConnection(method, address, addresses, clientKey);
 		} else
-			return establishConnection(method, address, clientKey);
+			return establishOrQueue(method, address, addresses, clientKey);
+	}
+
+	/**
+	 * Establishes a new connection unless the address is at its cap, in which case the request is queued
+	 * @param method method requested
+	 * @param address address connections are counted under
+	 * @param addresses addresses to connect
+	 * @param clientKey client's key
+	 * @return true if the connection was successful, false if not
+     */
+	private boolean establishOrQueue (Method method, SocketAddress address, List<InetSocketAddress> addresses,
+		SelectionKey clientKey) {
+		if (limiter.isFull(address)) {
+			enqueue(new PendingRequest(method, addresses, clientKey));
+			return false;
+		}
+
+		SERVER_METRICS.addPoolEvent(PoolEvent.MISS);
+		return establishConnection(method, address, addresses, clientKey);
+	}
+
+	/**
+	 * Queues a request until a connection to its address is available. A full queue rejects it.
+	 * @param request request to queue
+     */
+	private void enqueue (PendingRequest request) {
+		if (!limiter.enqueue(request.address, request)) {
+			LOGGER.warn("Rejecting request: too many requests waiting for {}", request.address);
+			SERVER_METRICS.addQueueRejection();
+			request.getClientHandler().setErrorState(request.clientKey, HttpErrorCode.SERVICE_UNAVAILABLE_503);
+			return;
+		}
+
+		LOGGER.debug("Queueing request: connections to {} at their cap", request.address);
+		SERVER_METRICS.addQueueDepth(1);
+		request.timeout = timer.schedule(() -> expire(request), PENDING_QUEUE_TIMEOUT, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Answers a request which waited too long with a 503
+	 * @param request queued request
+     */
+	private void expire (PendingRequest request) {
+		if (!limiter.remove(request.address, request))
+			return;
+
+		LOGGER.warn("Timed out waiting for a connection to {}", request.address);
+		dequeued(request);
+		SERVER_METRICS.addQueueRejection();
+
+		if (request.isWaiting())
+			request.getClientHandler().setErrorState(request.clientKey, HttpErrorCode.QUEUE_TIMEOUT_503);
+	}
+
+	private void dequeued (PendingRequest request) {
+		SERVER_METRICS.addQueueDepth(-1);
+		SERVER_METRICS.addQueueWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - request.queuedAt));
+	}
+
+	/**
+	 * Counts a server connection as no longer in use. Requests waiting for its address are served
+	 * once the current event loop iteration is over.
+	 * @param serverHandler handler of the connection, stored or closed
+     */
+	public void release (HttpServerProxyHandler serverHandler) {
+		SocketAddress address = serverHandler.getActiveAddress();
+
+		if (address == null)
+			return;
+
+		serverHandler.setActiveAddress(null);
+		limiter.release(address);
+
+		if (limiter.queued(address) != 0)
+			EventLoop.current().execute(() -> serveQueued(address));
+	}
+
+	/**
+	 * Connects the requests queued first for an address while there are connections available to it
+	 * @param address connections' address
+     */
+	private void serveQueued (SocketAddress address) {
+		PendingRequest request;
+
+		while ((pool.size(address) != 0 || !limiter.isFull(address)) && (request = limiter.poll(address)) != null) {
+			request.timeout.cancel();
+			dequeued(request);
+
+			if (!request.isWaiting()) {
+				LOGGER.debug("Dropping queued request: client gone");
+				continue;
+			}
+
+			connect(request.method, request.addresses, request.clientKey);
+		}
 	}
 
 	/**
@@ -75,28 +202,33 @@ public class ConnectionManager {
 	 * to it.
 	 * If it cannot reuse the server's connection it establish a new one
 	 * @param method method requestes
-	 * @param address address to connect
+	 * @param address address connections are stored under
+	 * @param addresses addresses to connect if none can be reused
 	 * @param clientKey client's key
 	 * @return true if connection was successful, false if not
-	 * @throws IOException
      */
-	private boolean reuseConnection (Method method, SocketAddress address, SelectionKey clientKey) throws IOException {
-		Queue<ExpirableContainer<SelectionKey>> connectionQueue = connections.get(address);
-		SelectionKey serverKey = retrieveValidKey(connectionQueue);
+	private boolean reuseConnection (Method method, SocketAddress address, List<InetSocketAddress> addresses,
+		SelectionKey clientKey) {
+		SelectionKey serverKey = retrieveValidKey(address);
 
 		if (serverKey == null) {
 			LOGGER.debug("Cannot reuse: server closed connection");
-			return establishConnection(method, address, clientKey);
+			return establishOrQueue(method, address, addresses, clientKey);
 		} else {
 			LOGGER.debug("Reusing connection with server");
+			SERVER_METRICS.addPoolEvent(PoolEvent.HIT);
 
 			HttpClientProxyHandler clientHandler = (HttpClientProxyHandler) clientKey.attachment();
 			HttpServerProxyHandler serverHandler = (HttpServerProxyHandler) serverKey.attachment();
 
 			serverHandler.setClientMethod(method);
+			serverHandler.setRetryable(method.isIdempotent());
+			serverHandler.setClientAcceptsChunked(clientHandler.acceptsChunkedResponse());
 			serverHandler.setConnectedPeerKey(clientKey);
 			serverHandler.setWriteBuffer(clientHandler.getProcessedBuffer());
 			serverHandler.setProcessedBuffer(clientHandler.getWriteBuffer());
+			serverHandler.setActiveAddress(address);
+			limiter.acquire(address);
 			serverKey.interestOps(SelectionKey.OP_WRITE);
 
 			clientHandler.setConnectedPeerKey(serverKey);
@@ -106,58 +238,78 @@ public class ConnectionManager {
 	}
 
 	/**
-	 * Gets a valid key from the queue
-	 * @param connectionQueue queue with expirable keys
-	 * @return {@link SelectionKey}
-	 * @throws IOException
+	 * Checks out a valid key to an address from the pool, cancelling its expiration. The chosen key gets its
+	 * handler and buffers back. Connections closed by the server were already evicted by their
+	 * {@link IdleConnectionHandler}.
+	 * @param address address to connect
+	 * @return {@link SelectionKey}, null if there is no valid one
      */
-	private SelectionKey retrieveValidKey (Queue<ExpirableContainer<SelectionKey>> connectionQueue) throws IOException {
-		while (!connectionQueue.isEmpty()) {
-			SelectionKey key = connectionQueue.remove().getElement();
+	private SelectionKey retrieveValidKey (SocketAddress address) {
+		PooledConnection connection;
+
+		while ((connection = pool.poll(address)) != null) {
+			SelectionKey key = connection.getKey();
+
+			connection.getExpiration().cancel();
 
 			if (key.isValid()) {
-				SocketChannel serverSocket = (SocketChannel) key.channel();
-				ByteBuffer serverReadBuffer = ((HttpServerProxyHandler) key.attachment()).getReadBuffer();
-				if (serverSocket.read(serverReadBuffer) == 0) // Cached server connection shouldn't write anything and must not be EOF (-1)
-					return key;
-				else
-					serverSocket.close();
+				HttpServerProxyHandler serverHandler = ((IdleConnectionHandler) key.attachment()).getServerHandler();
+				key.attach(serverHandler);
+				serverHandler.acquireBuffers();
+				return key;
 			}
+
+			SERVER_METRICS.addPoolEvent(PoolEvent.STALE_DISCARD);
 		}
 
 		return null;
 	}
 
 	/**
-	 * Establishes a connection to an specified {@link SocketAddress}
+	 * Sends a request again on a new connection after the pooled connection it was sent on failed.
+	 * Other pooled connections to the address are skipped, as they are as likely to have been closed.
+	 * The client must have put back in its processed buffer what was already sent.
 	 * @param method request method
-	 * @param address address to connect
+	 * @param address address the failed connection was counted under
+	 * @param remoteAddress address the failed connection was established to
+	 * @param clientKey client's key
+	 * @return true if the connection was successful, false if not
+     */
+	public boolean retry (Method method, SocketAddress address, InetSocketAddress remoteAddress, SelectionKey clientKey) {
+		SERVER_METRICS.addRequestRetry();
+		return establishConnection(method, address, Collections.singletonList(remoteAddress), clientKey);
+	}
+
+	/**
+	 * Establishes a connection to one of the specified addresses. The client is connected once the first
+	 * one succeeds, or gets an error response if none does in time.
+	 * @param method request method
+	 * @param address address the connection is counted under
+	 * @param addresses addresses to connect
 	 * @param clientKey client's key
 	 * @return true if connection was successfull, false if not
-	 * @throws IOException
      */
-	private boolean establishConnection (Method method, SocketAddress address, SelectionKey clientKey) throws IOException {
-		boolean connected;
+	private boolean establishConnection (Method method, SocketAddress address, List<InetSocketAddress> addresses,
+		SelectionKey clientKey) {
 		HttpClientProxyHandler clientHandler = (HttpClientProxyHandler) clientKey.attachment();
-		SocketChannel serverSocket = SocketChannel.open();
-		Selector selector = clientKey.selector();
-		SelectionKey serverKey;
-		
+		HttpServerProxyHandler serverHandler = buildHttpServerProxyHandler(clientHandler, method, clientKey);
+		ServerConnection connection = new ServerConnection(serverHandler, clientKey);
 
-		serverSocket.configureBlocking(false);
-		connected = serverSocket.connect(address);
+		serverHandler.setActiveAddress(address);
+		limiter.acquire(address);
 
-		if (connected) {
-			serverKey = serverSocket.register(selector, SelectionKey.OP_WRITE);
-			SERVER_METRICS.addConnection();
-			clientHandler.handleConnect(clientKey);
-		} else {
-			serverKey = serverSocket.register(selector, SelectionKey.OP_CONNECT);
-		}
+		connection.race = new ConnectionRace(addresses, clientKey.selector(), timer, ATTEMPT_DELAY, FAMILY_HISTORY,
+			connection);
+
+		if (connection.race.start())
+			return connection.connected;
+
+		connection.started = true;
 
-		serverKey.attach(buildHttpServerProxyHandler(clientHandler, method, clientKey));
-		clientHandler.setConnectedPeerKey(serverKey);
-		return connected;
+		if (timeouts.isEnabled(TimeoutType.UPSTREAM_CONNECT))
+			connection.timeout = timer.schedule(connection::expire,
+				timeouts.getMillis(TimeoutType.UPSTREAM_CONNECT), TimeUnit.MILLISECONDS);
+		return false;
 	}
 
 	/**
@@ -171,11 +323,13 @@ public class ConnectionManager {
 		HttpClientProxyHandler clientHandler, Method method, SelectionKey clientKey) {
 		HttpServerProxyHandler handler = new HttpServerProxyHandler(clientHandler.getProcessedBuffer(), clientHandler.getWriteBuffer(), method);
 		handler.setConnectedPeerKey(clientKey);
+		handler.setClientAcceptsChunked(clientHandler.acceptsChunkedResponse());
 		return handler;
 	}
 
 	/**
-	 * Saves the server's {@link SelectionKey} for future reuse.
+	 * Saves the server's {@link SelectionKey} for future reuse. The connection is closed instead if the
+	 * server's Keep-Alive header tells it takes no more requests or is about to close it.
 	 * @param serverKey
 	 * @throws IOException
      */
@@ -184,81 +338,264 @@ public class ConnectionManager {
 			return;
 
 		serverKey.interestOps(0);
-		LOGGER.info("Storing connection for future reusing");
 		SocketChannel serverChannel = (SocketChannel) serverKey.channel();
 		HttpServerProxyHandler serverHandler = (HttpServerProxyHandler) serverKey.attachment();
+		long timeToLive = timeToLive(serverHandler.getResponseParser());
 
+		if (timeToLive <= 0) {
+			LOGGER.debug("Not storing connection: server is about to close it");
+			serverHandler.closeChannel(serverChannel);
+			return;
+		}
+
+		LOGGER.info("Storing connection for future reusing");
+		SocketAddress address = serverHandler.getActiveAddress();
+		unlinkClient(serverHandler, serverKey);
 		serverHandler.reset(serverKey);
+		release(serverHandler);
 
-		storeKey(serverChannel.getRemoteAddress(), serverKey);
+		storeKey(address, serverKey, serverHandler, timeToLive);
 	}
 
 	/**
-	 * Stores the server's {@link SelectionKey} for an specified {@link SocketAddress}.
+	 * Unlinks the server's client from it, since the pooled key gets an {@link IdleConnectionHandler} attached
+	 * @param serverHandler server's handler
+	 * @param serverKey server's key
+     */
+	private void unlinkClient (HttpServerProxyHandler serverHandler, SelectionKey serverKey) {
+		SelectionKey clientKey = serverHandler.getConnectedPeerKey();
+
+		if (clientKey != null && clientKey.attachment() instanceof HttpClientProxyHandler)
+			((HttpClientProxyHandler) clientKey.attachment()).unlinkServer(serverKey);
+	}
+
+	/**
+	 * Stores a connection opened ahead of requests by a {@link ConnectionWarmer}
+	 * @param serverKey connected server's key
+	 * @param address address the connection is stored under
+     */
+	public void storeWarmConnection (SelectionKey serverKey, SocketAddress address) {
+		HttpServerProxyHandler serverHandler = new HttpServerProxyHandler(null, null, Method.GET);
+
+		LOGGER.debug("Storing warm connection to {}", address);
+		storeKey(address, serverKey, serverHandler, TimeUnit.SECONDS.toMillis(CONNECTION_TTL));
+	}
+
+	/**
+	 * Amount of idle connections stored to an address
+	 * @param address connections' address
+	 * @return idle connections
+     */
+	public int idleConnections (SocketAddress address) {
+		return pool.size(address);
+	}
+
+	/**
+	 * Checks if one more idle connection to an address may be opened ahead of requests. Idle connections are
+	 * reused without asking the limiter, so in use, idle and connecting ones together must stay within the cap.
+	 * @param address connections' address
+	 * @param connecting connections to the address being established ahead of requests
+	 * @return true if another connection fits within the address' cap
+     */
+	public boolean canWarm (SocketAddress address, int connecting) {
+		return maxActive <= 0 || limiter.active(address) + pool.size(address) + connecting < maxActive;
+	}
+
+	/**
+	 * A stored connection is retired before the server would close it, as told by its Keep-Alive header
+	 * @param response response last read from the connection
+	 * @return milliseconds the connection may stay stored
+     */
+	private long timeToLive (HttpResponseParser response) {
+		if (response.getKeepAliveMax() == 0)
+			return 0;
+
+		long timeToLive = TimeUnit.SECONDS.toMillis(CONNECTION_TTL);
+		int serverTimeout = response.getKeepAliveTimeout();
+
+		if (serverTimeout >= 0)
+			timeToLive = Math.min(timeToLive, TimeUnit.SECONDS.toMillis(serverTimeout) - KEEP_ALIVE_MARGIN);
+
+		return timeToLive;
+	}
+
+	/**
+	 * Stores the server's {@link SelectionKey} for an specified {@link SocketAddress}
+	 * and schedules its expiration. While stored, the key is read by an {@link IdleConnectionHandler}.
+	 * A connection evicted to make room for it is closed.
 	 * @param remoteAddress address of the connection
 	 * @param serverKey server's key
+	 * @param serverHandler server's handler, restored on checkout
+	 * @param timeToLive milliseconds until the connection expires
      */
-	@SuppressWarnings({"unchecked", "rawtypes"})
-	private void storeKey (SocketAddress remoteAddress, SelectionKey serverKey) {
-		FixedLengthQueue<ExpirableContainer<SelectionKey>> connectionQueue;
-
-		if (connections.containsKey(remoteAddress))
-			connectionQueue = connections.get(remoteAddress);
-		else {
-			connectionQueue = new ArrayQueue(ExpirableContainer.class, QUEUE_LENGTH);
-			connections.put(remoteAddress, connectionQueue);
+	private void storeKey (SocketAddress remoteAddress, SelectionKey serverKey,
+		HttpServerProxyHandler serverHandler, long timeToLive) {
+		PooledConnection connection = new PooledConnection(serverKey, remoteAddress);
+		PooledConnection evicted = pool.add(connection);
+
+		if (evicted != null) {
+			LOGGER.debug("Evicted stored connection: pool full");
+			unregisterConnection(evicted);
 		}
 
-		if (connectionQueue.isFull())
-			unregisterKey(connectionQueue.remove().getElement());
+		connection.setExpiration(timer.schedule(() -> expire(connection), timeToLive, TimeUnit.MILLISECONDS));
+		serverKey.attach(new IdleConnectionHandler(this, connection, serverHandler, scratch));
+		serverKey.interestOps(SelectionKey.OP_READ);
+	}
 
-		connectionQueue.add(new ExpirableContainer<SelectionKey>(serverKey, CONNECTION_TTL, TimeUnit.SECONDS));
+	/**
+	 * Closes a stored connection the server closed or wrote to while idle
+	 * @param connection stale connection
+     */
+	void discard (PooledConnection connection) {
+		if (!pool.remove(connection))
+			return;
+
+		connection.getExpiration().cancel();
+		SERVER_METRICS.addPoolEvent(PoolEvent.STALE_DISCARD);
+		unregisterKey(connection.getKey());
 	}
 
 	/**
-	 * It removes expired elements from the map if it is clean time
+	 * Closes an expired connection
+	 * @param connection expired connection
+     */
+	private void expire (PooledConnection connection) {
+		LOGGER.debug("Stored connection expired");
+
+		pool.remove(connection);
+		SERVER_METRICS.addPoolEvent(PoolEvent.EVICTION);
+		unregisterKey(connection.getKey());
+	}
+
+	private void unregisterConnection (PooledConnection connection) {
+		connection.getExpiration().cancel();
+		SERVER_METRICS.addPoolEvent(PoolEvent.EVICTION);
+		unregisterKey(connection.getKey());
+	}
+
+	private void unregisterKey(SelectionKey key) {
+		((IdleConnectionHandler) key.attachment()).getServerHandler().closeChannel(key.channel());
+	}
+
+	/**
+	 * A connection being established for a client. Once connected the client's request is written to it.
 	 */
-	public void clean () {
-		long currentTime = System.currentTimeMillis();
+	private class ServerConnection implements ConnectionRace.Listener {
+		private final HttpServerProxyHandler serverHandler;
+		private final SelectionKey clientKey;
+		private ConnectionRace race;
+		private Timeout timeout;
+		private boolean started;
+		private boolean connected;
+
+		private ServerConnection (HttpServerProxyHandler serverHandler, SelectionKey clientKey) {
+			this.serverHandler = serverHandler;
+			this.clientKey = clientKey;
+		}
+
+		@Override
+		public void connected (SelectionKey key, InetSocketAddress address) {
+			HttpClientProxyHandler clientHandler = getClientHandler();
+
+			cancelTimeout();
+
+			if (!isWaiting()) {
+				LOGGER.debug("Client closed or timed out while connecting to {}", address);
+				serverHandler.closeChannel(key.channel());
+				return;
+			}
+
+			LOGGER.info("Server connection established");
+			SERVER_METRICS.addConnection();
+			connected = true;
+
+			key.attach(serverHandler);
+			key.interestOps(SelectionKey.OP_WRITE);
+			clientHandler.setConnectedPeerKey(key);
+			clientHandler.handleConnect(clientKey); // the server handler must be attached first
+
+			if (started)
+				serverHandler.writeThrough(key);
+		}
+
+		@Override
+		public void failed (IOException cause) {
+			LOGGER.warn("Failed to connect to server: {}", cause.getMessage());
+			cancelTimeout();
+			release(serverHandler);
 
-		if (currentTime > cleanTime) {
-			LOGGER.debug("Clean time!");
+			if (isWaiting())
+				getClientHandler().setErrorState(clientKey, HttpErrorCode.BAD_GATEWAY_502, cause.getMessage());
+		}
 
-			cleanTime = currentTime + cleanRate;
+		/**
+		 * Gives up on a server which doesn't connect in time, answering the client with a 504
+		 */
+		private void expire () {
+			timeout = null;
 
-			Iterator<FixedLengthQueue<ExpirableContainer<SelectionKey>>> iter = connections.values().iterator();
+			if (race.isFinished())
+				return;
 
-			while (iter.hasNext()) {
-				Queue<ExpirableContainer<SelectionKey>> queue = iter.next();
-				removeExpiredKeys(queue);
-				if (queue.isEmpty()) {
-					LOGGER.debug("Removed empty queue");
-					iter.remove();
-				}
+			LOGGER.info("{} timeout expired", TimeoutType.UPSTREAM_CONNECT);
+			race.cancel();
+			SERVER_METRICS.addTimeout(TimeoutType.UPSTREAM_CONNECT);
+			release(serverHandler);
+
+			if (isWaiting())
+				getClientHandler().setErrorState(clientKey, HttpErrorCode.GATEWAY_TIMEOUT_504,
+					TimeoutType.UPSTREAM_CONNECT.toString());
+		}
+
+		private void cancelTimeout () {
+			if (timeout != null) {
+				timeout.cancel();
+				timeout = null;
 			}
 		}
-	}
-	
-	/**
-	 * Removes expired elements for the queue of an specific address
-	 * @param queue
-     */
-	private void removeExpiredKeys (Queue<ExpirableContainer<SelectionKey>> queue) {
-		while (!queue.isEmpty() && queue.peek().hasExpired()) { // oldest keys are first on queue
-			LOGGER.debug("Cleaned expired key");
 
-			SelectionKey key = queue.remove().getElement();
+		private HttpClientProxyHandler getClientHandler () {
+			return (HttpClientProxyHandler) clientKey.attachment();
+		}
 
-			unregisterKey(key);
+		/**
+		 * The client may have closed, or timed out, while connecting
+		 */
+		private boolean isWaiting () {
+			return clientKey.isValid() && getClientHandler().isConnecting();
 		}
 	}
-	
-	private void unregisterKey(SelectionKey key) {
-		try {
-			key.channel().close();
-		} catch (IOException e) {
-			LOGGER.error("Failed to close channel on connection manager");
-			e.printStackTrace();
+
+	/**
+	 * A request waiting for a connection to its address
+	 */
+	private static class PendingRequest {
+		private final Method method;
+		private final SocketAddress address;
+		private final List<InetSocketAddress> addresses;
+		private final SelectionKey clientKey;
+		private final long queuedAt;
+		private Timeout timeout;
+
+		private PendingRequest (Method method, List<InetSocketAddress> addresses, SelectionKey clientKey) {
+			this.method = method;
+			this.address = addresses.get(0);
+			this.addresses = addresses;
+			this.clientKey = clientKey;
+
+			this.queuedAt = System.nanoTime();
+		}
+
+		private HttpClientProxyHandler getClientHandler () {
+			return (HttpClientProxyHandler) clientKey.attachment();
+		}
+
+		/**
+		 * The client may have closed, or timed out, while queued
+		 */
+		private boolean isWaiting () {
+			return clientKey.isValid() && getClientHandler().isConnecting();
 		}
 	}
 }
@@ -0,0 +1,239 @@
+package tp.pdc.proxy.connection;
+
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.util.HashMap;
+import java.util.Map;
+
+import tp.pdc.proxy.time.HashedWheelTimer.Timeout;
+
+/**
+ * Idle server connections, bounded in total and per address.
+ * <p>
+ * Every pooled connection is linked in two lists: a global LRU list across all addresses and the list of
+ * its address. The connection itself holds the links, so returning, checking out, removing and evicting
+ * a connection take constant time. When a cap is reached the least recently returned connection of the
+ * address, or of the whole pool, is evicted.
+ * <p>
+ * Connections are checked out most recently returned first: the longer a connection stays idle, the likelier
+ * the server closed it, so those are left to expire.
+ * <p>
+ * Not thread safe: each {@link tp.pdc.proxy.loop.EventLoop} owns its pool through its {@link ConnectionManager}.
+ */
+public class ConnectionPool {
+
+	private final int maxSize;
+	private final int maxSizePerAddress;
+	private final Map<SocketAddress, AddressList> addresses;
+
+	// LRU list: head is the most recently returned connection, tail the eviction candidate
+	private PooledConnection head;
+	private PooledConnection tail;
+	private int size;
+
+	/**
+	 * @param maxSize maximum amount of idle connections
+	 * @param maxSizePerAddress maximum amount of idle connections to a same address
+     */
+	public ConnectionPool (int maxSize, int maxSizePerAddress) {
+		if (maxSize < 1 || maxSizePerAddress < 1)
+			throw new IllegalArgumentException("Connection pool sizes must be positive");
+
+		this.maxSize = maxSize;
+		this.maxSizePerAddress = maxSizePerAddress;
+		this.addresses = new HashMap<>();
+	}
+
+	/**
+	 * Returns a connection to the pool, evicting another one if a cap is reached
+	 * @param connection connection to pool, not pooled yet
+	 * @return evicted connection, which the caller must close. Null if none was evicted.
+     */
+	public PooledConnection add (PooledConnection connection) {
+		if (connection.list != null)
+			throw new IllegalStateException("Connection already pooled");
+
+		AddressList list = addresses.get(connection.address);
+		PooledConnection evicted = null;
+
+		if (list != null && list.size == maxSizePerAddress)
+			evicted = list.tail;
+		else if (size == maxSize)
+			evicted = tail;
+
+		if (evicted != null)
+			remove(evicted); // may leave the address without connections
+
+		list = addresses.get(connection.address);
+
+		if (list == null) {
+			list = new AddressList();
+			addresses.put(connection.address, list);
+		}
+
+		connection.list = list;
+		list.linkHead(connection);
+		linkHead(connection);
+		size++;
+
+		return evicted;
+	}
+
+	/**
+	 * Checks out the connection to an address which was returned last
+	 * @param address connection's address
+	 * @return a connection, removed from the pool. Null if there are none to the address.
+     */
+	public PooledConnection poll (SocketAddress address) {
+		AddressList list = addresses.get(address);
+
+		if (list == null)
+			return null;
+
+		PooledConnection connection = list.head;
+		remove(connection);
+		return connection;
+	}
+
+	/**
+	 * Removes a connection from the pool
+	 * @param connection connection to remove
+	 * @return true if it was pooled
+     */
+	public boolean remove (PooledConnection connection) {
+		AddressList list = connection.list;
+
+		if (list == null)
+			return false;
+
+		list.unlink(connection);
+		unlink(connection);
+		connection.list = null;
+		size--;
+
+		if (list.size == 0)
+			addresses.remove(connection.address);
+
+		return true;
+	}
+
+	public int size () {
+		return size;
+	}
+
+	/**
+	 * Amount of idle connections to an address
+	 * @param address connections' address
+	 * @return idle connections
+     */
+	public int size (SocketAddress address) {
+		AddressList list = addresses.get(address);
+		return list == null ? 0 : list.size;
+	}
+
+	private void linkHead (PooledConnection connection) {
+		connection.before = null;
+		connection.after = head;
+
+		if (head != null)
+			head.before = connection;
+		else
+			tail = connection;
+
+		head = connection;
+	}
+
+	private void unlink (PooledConnection connection) {
+		if (connection.before != null)
+			connection.before.after = connection.after;
+		else
+			head = connection.after;
+
+		if (connection.after != null)
+			connection.after.before = connection.before;
+		else
+			tail = connection.before;
+
+		connection.before = connection.after = null;
+	}
+
+	/**
+	 * Idle connections to a same address, head is the most recently returned one
+	 */
+	private static class AddressList {
+		private PooledConnection head;
+		private PooledConnection tail;
+		private int size;
+
+		private void linkHead (PooledConnection connection) {
+			connection.addressBefore = null;
+			connection.addressAfter = head;
+
+			if (head != null)
+				head.addressBefore = connection;
+			else
+				tail = connection;
+
+			head = connection;
+			size++;
+		}
+
+		private void unlink (PooledConnection connection) {
+			if (connection.addressBefore != null)
+				connection.addressBefore.addressAfter = connection.addressAfter;
+			else
+				head = connection.addressAfter;
+
+			if (connection.addressAfter != null)
+				connection.addressAfter.addressBefore = connection.addressBefore;
+			else
+				tail = connection.addressBefore;
+
+			connection.addressBefore = connection.addressAfter = null;
+			size--;
+		}
+	}
+
+	/**
+	 * An idle server connection along with its expiration, linked in the pool's lists while pooled
+	 */
+	public static class PooledConnection {
+		private final SelectionKey key;
+		private final SocketAddress address;
+		private Timeout expiration;
+		private AddressList list;
+		private PooledConnection before;
+		private PooledConnection after;
+		private PooledConnection addressBefore;
+		private PooledConnection addressAfter;
+
+		/**
+		 * @param key server's key
+		 * @param address server's address
+         */
+		public PooledConnection (SelectionKey key, SocketAddress address) {
+			this.key = key;
+			this.address = address;
+		}
+
+		public SelectionKey getKey () {
+			return key;
+		}
+
+		public SocketAddress getAddress () {
+			return address;
+		}
+
+		public Timeout getExpiration () {
+			return expiration;
+		}
+
+		public void setExpiration (Timeout expiration) {
+			this.expiration = expiration;
+		}
+
+		public boolean isPooled () {
+			return list != null;
+		}
+	}
+}
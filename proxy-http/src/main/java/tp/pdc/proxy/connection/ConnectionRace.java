@@ -0,0 +1,241 @@
+package tp.pdc.proxy.connection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tp.pdc.proxy.handler.interfaces.ConnectHandler;
+import tp.pdc.proxy.time.HashedWheelTimer;
+import tp.pdc.proxy.time.HashedWheelTimer.Timeout;
+
+/**
+ * Connects to one of a host's addresses. Addresses are tried in the order given by the
+ * {@link AddressFamilyHistory}, starting the next attempt once the current one fails or takes longer than
+ * the attempt delay, so one unreachable address doesn't stall the connection. The first attempt to succeed
+ * wins and the others are closed. Families still connecting when another family wins are recorded as failing.
+ * <p>
+ * Not thread safe: it must be used on the thread owning the selector and the timer.
+ */
+public class ConnectionRace {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionRace.class);
+
+	private final List<InetSocketAddress> addresses;
+	private final Selector selector;
+	private final HashedWheelTimer timer;
+	private final long attemptDelay;
+	private final AddressFamilyHistory history;
+	private final Listener listener;
+	private final List<SelectionKey> attempts;
+	private int next;
+	private Timeout nextAttempt;
+	private IOException lastError;
+	private boolean finished;
+
+	/**
+	 * @param addresses resolved addresses of the host, at least one
+	 * @param selector selector attempts are registered on
+	 * @param timer timer on which the next attempts are scheduled
+	 * @param attemptDelay milliseconds an attempt gets before the next one starts
+	 * @param history address families history, updated with the outcome
+	 * @param listener notified once a connection is established or all attempts failed
+     */
+	public ConnectionRace (List<InetSocketAddress> addresses, Selector selector, HashedWheelTimer timer,
+		long attemptDelay, AddressFamilyHistory history, Listener listener) {
+		if (addresses.isEmpty())
+			throw new IllegalArgumentException("No addresses to connect to");
+
+		this.addresses = history.order(addresses);
+		this.selector = selector;
+		this.timer = timer;
+		this.attemptDelay = attemptDelay;
+		this.history = history;
+		this.listener = listener;
+		this.attempts = new ArrayList<>();
+	}
+
+	/**
+	 * Starts the first attempt. The listener may be notified before returning.
+	 * @return true if the race finished while starting
+     */
+	public boolean start () {
+		attemptNext();
+		return finished;
+	}
+
+	/**
+	 * Gives up, closing the attempts in progress. Their families are recorded as failing.
+	 * The listener is not notified.
+     */
+	public void cancel () {
+		if (finished)
+			return;
+
+		finished = true;
+		cancelNextAttempt();
+
+		for (SelectionKey key : attempts) {
+			history.recordFailure(((Attempt) key.attachment()).address.getAddress());
+			close(key.channel());
+		}
+
+		attempts.clear();
+	}
+
+	public boolean isFinished () {
+		return finished;
+	}
+
+	/**
+	 * Starts connecting to the next address. Addresses failing right away are skipped.
+	 */
+	private void attemptNext () {
+		cancelNextAttempt();
+
+		while (!finished && next < addresses.size()) {
+			InetSocketAddress address = addresses.get(next++);
+			SocketChannel channel = null;
+
+			try {
+				channel = SocketChannel.open();
+				channel.configureBlocking(false);
+
+				if (channel.connect(address)) {
+					won(channel.register(selector, 0), address);
+					return;
+				}
+
+				LOGGER.debug("Connecting to {}", address);
+				attempts.add(channel.register(selector, SelectionKey.OP_CONNECT, new Attempt(address)));
+
+				if (next < addresses.size())
+					nextAttempt = timer.schedule(this::attemptNext, attemptDelay, TimeUnit.MILLISECONDS);
+				return;
+			} catch (IOException e) {
+				close(channel);
+				failed(address, e);
+			}
+		}
+
+		lostIfNoAttempts();
+	}
+
+	/**
+	 * Finishes an attempt once its channel is connectable
+	 * @param attempt attempt to finish
+	 * @param key attempt's key
+     */
+	private void handleConnect (Attempt attempt, SelectionKey key) {
+		try {
+			if (((SocketChannel) key.channel()).finishConnect()) {
+				attempts.remove(key);
+				won(key, attempt.address);
+			}
+		} catch (IOException e) {
+			attempts.remove(key);
+			close(key.channel());
+			failed(attempt.address, e);
+
+			if (next < addresses.size())
+				attemptNext();
+			else
+				lostIfNoAttempts();
+		}
+	}
+
+	private void won (SelectionKey key, InetSocketAddress address) {
+		LOGGER.debug("Connected to {}", address);
+		finished = true;
+		cancelNextAttempt();
+		history.recordSuccess(address.getAddress());
+
+		for (SelectionKey attempt : attempts) {
+			InetSocketAddress slower = ((Attempt) attempt.attachment()).address;
+
+			if (slower.getAddress().getClass() != address.getAddress().getClass())
+				history.recordFailure(slower.getAddress());
+
+			close(attempt.channel());
+		}
+
+		attempts.clear();
+		key.attach(null);
+		key.interestOps(0);
+		listener.connected(key, address);
+	}
+
+	private void failed (InetSocketAddress address, IOException e) {
+		LOGGER.debug("Failed to connect to {}: {}", address, e.getMessage());
+		lastError = e;
+		history.recordFailure(address.getAddress());
+	}
+
+	private void lostIfNoAttempts () {
+		if (finished || !attempts.isEmpty())
+			return;
+
+		finished = true;
+		listener.failed(lastError);
+	}
+
+	private void cancelNextAttempt () {
+		if (nextAttempt != null) {
+			nextAttempt.cancel();
+			nextAttempt = null;
+		}
+	}
+
+	private void close (Channel channel) {
+		if (channel == null)
+			return;
+
+		try {
+			channel.close();
+		} catch (IOException e) {
+			LOGGER.error("Failed to close connection attempt: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Notified of the outcome of a race
+	 */
+	public interface Listener {
+
+		/**
+		 * A connection was established. Its key has no attachment nor interest set.
+		 * @param key connection's key
+		 * @param address address connected to
+	     */
+		void connected (SelectionKey key, InetSocketAddress address);
+
+		/**
+		 * Connecting to every address failed
+		 * @param cause error of the last attempt
+	     */
+		void failed (IOException cause);
+	}
+
+	/**
+	 * Attached to the connection of each attempt in progress
+	 */
+	private class Attempt implements ConnectHandler {
+		private final InetSocketAddress address;
+
+		private Attempt (InetSocketAddress address) {
+			this.address = address;
+		}
+
+		@Override
+		public void handleConnect (SelectionKey key) {
+			ConnectionRace.this.handleConnect(this, key);
+		}
+	}
+}
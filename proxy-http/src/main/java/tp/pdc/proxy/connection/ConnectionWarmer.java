@@ -0,0 +1,199 @@
+package tp.pdc.proxy.connection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.metric.ServerMetricImpl;
+import tp.pdc.proxy.metric.interfaces.ServerMetric;
+import tp.pdc.proxy.parser.HostParser;
+import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.resolver.AsyncResolver;
+import tp.pdc.proxy.resolver.DnsCache;
+import tp.pdc.proxy.time.HashedWheelTimer;
+import tp.pdc.proxy.time.TimeoutType;
+import tp.pdc.proxy.time.Timeouts;
+
+/**
+ * Keeps a minimum amount of idle connections open to the configured warm destinations, so requests to them
+ * find a connection in the {@link ConnectionManager}'s pool instead of resolving and connecting.
+ * <p>
+ * Refills run periodically on the event loop's timer and open at most one connection per destination each,
+ * so connections checked out or expired are replaced gradually. Refills are skipped while the destination's
+ * connections are at the {@link ConnectionManager}'s cap. Each loop starts at a random point of the
+ * interval so loops don't refill at once. Resolved addresses are shared with requests through the loop's
+ * {@link DnsCache}.
+ */
+public class ConnectionWarmer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionWarmer.class);
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+	private static final ServerMetric SERVER_METRICS = ServerMetricImpl.getInstance();
+	private static final AsyncResolver RESOLVER = AsyncResolver.getInstance();
+	private static final HostParser HOST_PARSER = new HostParser();
+	private static final int MIN_IDLE = PROPERTIES.getWarmMinIdle();
+	private static final int INTERVAL = PROPERTIES.getWarmInterval();
+	private static final int ATTEMPT_DELAY = PROPERTIES.getConnectionAttemptDelay();
+	private static final AddressFamilyHistory FAMILY_HISTORY = AddressFamilyHistory.getInstance();
+
+	private final ConnectionManager connectionManager;
+	private final DnsCache dnsCache;
+	private final HashedWheelTimer timer;
+	private final Timeouts timeouts;
+	private final List<Destination> destinations;
+
+	/**
+	 * @param connectionManager loop's connection manager, where warm connections are stored
+	 * @param dnsCache loop's DNS cache
+	 * @param timer loop's timer
+	 * @param timeouts loop's timeouts
+	 * @param destinations warm destinations as host[:port]
+     */
+	public ConnectionWarmer (ConnectionManager connectionManager, DnsCache dnsCache, HashedWheelTimer timer,
+		Timeouts timeouts, List<String> destinations) {
+		this.connectionManager = connectionManager;
+		this.dnsCache = dnsCache;
+		this.timer = timer;
+		this.timeouts = timeouts;
+		this.destinations = new ArrayList<>();
+
+		for (String destination : destinations)
+			this.destinations.add(new Destination(destination));
+	}
+
+	/**
+	 * Schedules the first refill. Must be called on the loop's thread.
+	 */
+	public void start () {
+		if (destinations.isEmpty() || MIN_IDLE <= 0)
+			return;
+
+		LOGGER.info("Warming connections to {}", destinations);
+		timer.schedule(this::refill, ThreadLocalRandom.current().nextInt(INTERVAL) + 1, TimeUnit.MILLISECONDS);
+	}
+
+	private void refill () {
+		for (Destination destination : destinations)
+			refill(destination);
+
+		timer.schedule(this::refill, INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	private void refill (Destination destination) {
+		List<InetSocketAddress> addresses = dnsCache.get(destination.hostBytes);
+
+		if (addresses == null) {
+			resolve(destination);
+			return;
+		}
+
+		InetSocketAddress address = addresses.get(0);
+
+		if (address.isUnresolved())
+			return;
+
+		int idle = connectionManager.idleConnections(address);
+		SERVER_METRICS.addWarmConnections(destination.name, idle - destination.publishedIdle);
+		destination.publishedIdle = idle;
+
+		if (idle + destination.connecting < MIN_IDLE && connectionManager.canWarm(address, destination.connecting))
+			connect(destination, addresses);
+	}
+
+	private void resolve (Destination destination) {
+		if (destination.resolving)
+			return;
+
+		InetSocketAddress address;
+
+		try {
+			address = HOST_PARSER.parseAddress(destination.hostBytes);
+		} catch (IllegalArgumentException e) {
+			LOGGER.warn("Invalid warm destination {}: {}", destination, e.getMessage());
+			return;
+		}
+
+		destination.resolving = true;
+		RESOLVER.resolve(address, EventLoop.current(), resolved -> {
+			destination.resolving = false;
+			dnsCache.put(destination.hostBytes, resolved);
+		});
+	}
+
+	/**
+	 * Races the destination's addresses for a new connection, stored under its first address once established
+	 * @param destination destination to connect
+	 * @param addresses destination's resolved addresses
+     */
+	private void connect (Destination destination, List<InetSocketAddress> addresses) {
+		Selector selector = EventLoop.current().getSelector();
+		SocketAddress address = addresses.get(0);
+
+		ConnectionRace race = new ConnectionRace(addresses, selector, timer, ATTEMPT_DELAY, FAMILY_HISTORY,
+			new ConnectionRace.Listener() {
+				@Override
+				public void connected (SelectionKey key, InetSocketAddress remoteAddress) {
+					LOGGER.debug("Warm connection to {} established", destination);
+					destination.connecting--;
+					SERVER_METRICS.addConnection();
+					connectionManager.storeWarmConnection(key, address);
+				}
+
+				@Override
+				public void failed (IOException cause) {
+					LOGGER.warn("Failed to warm connection to {}: {}", destination, cause.getMessage());
+					destination.connecting--;
+				}
+			});
+
+		destination.connecting++;
+
+		if (!race.start() && timeouts.isEnabled(TimeoutType.UPSTREAM_CONNECT))
+			timer.schedule(() -> expire(destination, race),
+				timeouts.getMillis(TimeoutType.UPSTREAM_CONNECT), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gives up on a connection not established in time
+	 * @param destination destination being connected
+	 * @param race connection's race
+     */
+	private void expire (Destination destination, ConnectionRace race) {
+		if (race.isFinished())
+			return;
+
+		LOGGER.warn("Timed out warming connection to {}", destination);
+		race.cancel();
+		destination.connecting--;
+	}
+
+	/**
+	 * A warm destination and its connections being established on this loop
+	 */
+	private static class Destination {
+		private final String name;
+		private final byte[] hostBytes;
+		private int connecting;
+		private int publishedIdle;
+		private boolean resolving;
+
+		private Destination (String name) {
+			this.name = name;
+			this.hostBytes = name.getBytes(PROPERTIES.getCharset());
+		}
+
+		@Override
+		public String toString () {
+			return name;
+		}
+	}
+}
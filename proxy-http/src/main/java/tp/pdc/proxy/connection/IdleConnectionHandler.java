@@ -0,0 +1,78 @@
+package tp.pdc.proxy.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tp.pdc.proxy.connection.ConnectionPool.PooledConnection;
+import tp.pdc.proxy.handler.HttpServerProxyHandler;
+import tp.pdc.proxy.handler.interfaces.Handler;
+
+/**
+ * Attached to a pooled server connection while it is idle, in place of its {@link HttpServerProxyHandler}.
+ * The connection stays registered for reading so the server closing it, or sending anything before
+ * a request was written, evicts it from the pool right away.
+ */
+public class IdleConnectionHandler implements Handler {
+	private static final Logger LOGGER = LoggerFactory.getLogger(IdleConnectionHandler.class);
+
+	private final ConnectionManager manager;
+	private final PooledConnection connection;
+	private final HttpServerProxyHandler serverHandler;
+	private final ByteBuffer scratch;
+
+	/**
+	 * @param manager manager owning the pool
+	 * @param connection pooled connection
+	 * @param serverHandler handler restored when the connection is checked out
+	 * @param scratch buffer where stray bytes are discarded, shared by the manager's idle connections
+     */
+	public IdleConnectionHandler (ConnectionManager manager, PooledConnection connection,
+		HttpServerProxyHandler serverHandler, ByteBuffer scratch) {
+		this.manager = manager;
+		this.connection = connection;
+		this.serverHandler = serverHandler;
+		this.scratch = scratch;
+	}
+
+	@Override
+	public void handleRead (SelectionKey key) {
+		int read;
+
+		scratch.clear();
+
+		try {
+			read = ((SocketChannel) key.channel()).read(scratch);
+		} catch (IOException e) {
+			LOGGER.debug("Idle connection failed: {}", e.getMessage());
+			read = -1;
+		}
+
+		if (read == 0)
+			return;
+
+		if (read < 0)
+			LOGGER.debug("Server closed idle connection");
+		else
+			LOGGER.debug("Server sent data on idle connection");
+
+		manager.discard(connection);
+	}
+
+	@Override
+	public void handleWrite (SelectionKey key) {
+		// Idle connections are never registered for writing
+	}
+
+	public PooledConnection getConnection () {
+		return connection;
+	}
+
+	public HttpServerProxyHandler getServerHandler () {
+		return serverHandler;
+	}
+}
@@ -0,0 +1,23 @@
+package tp.pdc.proxy.connection;
+
+/**
+ * Outcomes of the idle server connection pool, counted by the server metrics
+ */
+public enum PoolEvent {
+	/**
+	 * A request reused a pooled connection
+	 */
+	HIT,
+	/**
+	 * A request found no usable pooled connection and had to establish one
+	 */
+	MISS,
+	/**
+	 * A pooled connection was closed because a cap was reached or its time to live expired
+	 */
+	EVICTION,
+	/**
+	 * A pooled connection was found closed by the server when checked out
+	 */
+	STALE_DISCARD
+}
@@ -8,7 +8,7 @@ public class L33tFlag {
 
 	private static final L33tFlag INSTANCE = new L33tFlag();
 
-	private boolean l33tFlag;
+	private volatile boolean l33tFlag;
 
 	public static L33tFlag getInstance () {
 		return INSTANCE;
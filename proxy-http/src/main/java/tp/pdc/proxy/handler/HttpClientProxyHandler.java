@@ -4,12 +4,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.handler.interfaces.HttpClientState;
 import tp.pdc.proxy.handler.state.client.*;
 import tp.pdc.proxy.header.Header;
-import tp.pdc.proxy.header.HeaderValue;
 import tp.pdc.proxy.header.HttpErrorCode;
 import tp.pdc.proxy.header.Method;
 import tp.pdc.proxy.log.ProxyLogger;
@@ -17,6 +15,8 @@ import tp.pdc.proxy.metric.ClientMetricImpl;
 import tp.pdc.proxy.metric.interfaces.ClientMetric;
 import tp.pdc.proxy.parser.factory.HttpRequestParserFactory;
 import tp.pdc.proxy.parser.interfaces.HttpRequestParser;
+import tp.pdc.proxy.parser.utils.ParseUtils;
+import tp.pdc.proxy.time.TimeoutType;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -47,7 +47,8 @@ public class HttpClientProxyHandler extends HttpHandler {
 	}
 
 	/**
-	 * Resets the handlers attributes to it's initial values.
+	 * Resets the handlers attributes to it's initial values. Buffers are given back to the pool unless
+	 * the client already sent part of its next request, so idle kept alive clients hold none.
 	 * @param key to reset the connected peer and to set an interest to read
      */
 	public void reset (SelectionKey key) {
@@ -56,8 +57,41 @@ public class HttpClientProxyHandler extends HttpHandler {
 		this.errorState = false;
 		this.requestParser.reset();
 
+		if (getReadBuffer().position() == 0)
+			releaseBuffers();
+
 		setConnectedPeerKey(null);
 		key.interestOps(SelectionKey.OP_READ);
+		scheduleTimeout(TimeoutType.IDLE_KEEPALIVE, key);
+	}
+
+	@Override
+	public void handleRegister (SelectionKey key) {
+		scheduleTimeout(TimeoutType.HEADER_READ, key);
+	}
+
+	/**
+	 * A request not fully read in time gets a 408 response. An idle kept alive connection is just closed.
+	 * @param type expired timeout type
+	 * @param key client's key
+     */
+	@Override
+	protected void handleTimeout (TimeoutType type, SelectionKey key) {
+		CLIENT_METRICS.addTimeout(type);
+
+		if (type == TimeoutType.IDLE_KEEPALIVE) {
+			LOGGER.info("Closing idle kept alive client connection");
+			closeChannel(key.channel());
+		} else
+			setErrorState(key, HttpErrorCode.REQUEST_TIMEOUT_408, type.toString());
+	}
+
+	/**
+	 * Checks if the client is waiting for a server connection to be established
+	 * @return true if the client is in {@link ConnectingState}
+     */
+	public boolean isConnecting () {
+		return state == ConnectingState.getInstance();
 	}
 
 	/**
@@ -85,17 +119,27 @@ public class HttpClientProxyHandler extends HttpHandler {
 	}
 
 	/**
-	 * Checks if the request header connection or proxy connection is keep alive or not.
+	 * Checks if the client's connection persists, from its Connection or Proxy-Connection header
+	 * and its http version.
 	 * @return true if the connection should be kept alive
      */
 	private boolean shouldKeepConnectionAlive () {
+		byte[] connection = null;
+
 		if (requestParser.hasHeaderValue(Header.CONNECTION))
-			return BytesUtils.equalsBytes(requestParser.getHeaderValue(Header.CONNECTION),
-				HeaderValue.KEEP_ALIVE.getValue(), BytesUtils.TO_LOWERCASE);
+			connection = requestParser.getHeaderValue(Header.CONNECTION);
 		else if (requestParser.hasHeaderValue(Header.PROXY_CONNECTION))
-			return BytesUtils.equalsBytes(requestParser.getHeaderValue(Header.PROXY_CONNECTION),
-				HeaderValue.KEEP_ALIVE.getValue(), BytesUtils.TO_LOWERCASE);
-		return false;
+			connection = requestParser.getHeaderValue(Header.PROXY_CONNECTION);
+
+		return ParseUtils.isPersistentConnection(requestParser, connection);
+	}
+
+	/**
+	 * Checks if the client understands chunked responses, which HTTP/1.1 clients must
+	 * @return true if the request's version is HTTP/1.1 or later
+     */
+	public boolean acceptsChunkedResponse () {
+		return ParseUtils.isHttp11OrLater(requestParser);
 	}
 
 	/**
@@ -176,12 +220,11 @@ public class HttpClientProxyHandler extends HttpHandler {
 	}
 
 	@Override
-	protected void processRead (SelectionKey key) {
+	protected int processRead (SelectionKey key) {
 		SocketChannel socketChannel = (SocketChannel) key.channel();
-		ByteBuffer buffer = this.getReadBuffer();
 
 		try {
-			int bytesRead = socketChannel.read(buffer);
+			int bytesRead = read(socketChannel, requestParser);
 			if (bytesRead == -1) {
 				LOGGER.info("Received EOF from client");
 				closeServerChannel();
@@ -189,21 +232,34 @@ public class HttpClientProxyHandler extends HttpHandler {
 			} else {
 				LOGGER.info("Read {} bytes from client", bytesRead);
 				CLIENT_METRICS.addBytesRead(bytesRead);
+
+				if (getTimeoutType() == TimeoutType.IDLE_KEEPALIVE && bytesRead > 0)
+					scheduleTimeout(TimeoutType.HEADER_READ, key);
 			}
+
+			return bytesRead;
 		} catch (IOException e) {
 			LOGGER.warn("Failed to read from client: {}", e.getMessage());
 			logError(key, "Failed to read from client", e.getMessage());
 			closeServerChannel();
 			closeChannel(socketChannel);
+			return -1;
 		}
 	}
 
+	@Override
+	protected void recordReadsPerWakeup (int reads) {
+		CLIENT_METRICS.addReadsPerWakeup(reads);
+	}
+
 	@Override
 	protected void process (ByteBuffer inputBuffer, SelectionKey key) {
 		ByteBuffer processedBuffer = this.getProcessedBuffer();
 
 		if (!requestParser.hasFinished())
 			processRequest(inputBuffer, processedBuffer, key);
+		else
+			updateRequestTimeout(key); // the body may have been passed through
 
 		if (!errorState)
 			state.handle(this, key);
@@ -220,6 +276,7 @@ public class HttpClientProxyHandler extends HttpHandler {
 		try {
 			requestParser.parse(inputBuffer, outputBuffer);
 			recordAndValidateMethod(key);
+			updateRequestTimeout(key);
 
 		} catch (ParserFormatException e) {
 			recordAndValidateMethod(key);
@@ -231,6 +288,25 @@ public class HttpClientProxyHandler extends HttpHandler {
 		}
 	}
 
+	/**
+	 * Moves from the header read timeout to the body read one once headers are read, and cancels
+	 * it once the whole request is read.
+	 * @param key client's key
+     */
+	private void updateRequestTimeout (SelectionKey key) {
+		TimeoutType timeoutType = getTimeoutType();
+
+		if (timeoutType != TimeoutType.HEADER_READ && timeoutType != TimeoutType.BODY_READ)
+			return;
+
+		if (requestParser.hasFinished())
+			cancelTimeout();
+		else if (timeoutType == TimeoutType.HEADER_READ && requestParser.hasHeadersFinished())
+			scheduleTimeout(TimeoutType.BODY_READ, key);
+		else
+			touchTimeout();
+	}
+
 	/**
 	 * Gets the method from the request sent by the client and checks if it's accepted by the proxy.
 	 * @param key client's key
@@ -266,7 +342,7 @@ public class HttpClientProxyHandler extends HttpHandler {
 	}
 
 	/**
-	 * Closes the server channel
+	 * Closes the server channel, unless it no longer serves this client (e.g. it was pooled)
 	 */
 	private void closeServerChannel () {
 		if (isServerChannelOpen())
@@ -274,11 +350,31 @@ public class HttpClientProxyHandler extends HttpHandler {
 	}
 
 	/**
-	 * Checks if the server channel is open
+	 * Checks if the server channel is open and still linked to this client
 	 * @return true if the server channel if open, false if not
      */
 	private boolean isServerChannelOpen () {
-		return this.getConnectedPeerKey() != null && this.getConnectedPeerKey().channel().isOpen();
+		SelectionKey serverKey = this.getConnectedPeerKey();
+
+		if (serverKey == null || !serverKey.channel().isOpen())
+			return false;
+
+		if (!(serverKey.attachment() instanceof HttpServerProxyHandler)) {
+			LOGGER.warn("Server key is no longer attached to a server handler");
+			return false;
+		}
+
+		SelectionKey clientKey = ((HttpServerProxyHandler) serverKey.attachment()).getConnectedPeerKey();
+		return clientKey != null && clientKey.attachment() == this;
+	}
+
+	/**
+	 * Unlinks the server's key from this client, so it can be pooled without the client reaching it again
+	 * @param serverKey server's key
+     */
+	public void unlinkServer (SelectionKey serverKey) {
+		if (this.getConnectedPeerKey() == serverKey)
+			setConnectedPeerKey(null);
 	}
 
 	/**
@@ -316,6 +412,8 @@ public class HttpClientProxyHandler extends HttpHandler {
 	 * @param logErrorMessage Extra error message to log
      */
 	public void setErrorState (SelectionKey key, HttpErrorCode errorResponse, String logErrorMessage) {
+		acquireBuffers(); // an idle client may time out before sending anything
+
 		ByteBuffer writeBuffer = this.getWriteBuffer();
 		writeBuffer.clear();
 		writeBuffer.put(errorResponse.getBytes());
@@ -333,6 +431,8 @@ public class HttpClientProxyHandler extends HttpHandler {
      */
 	public void setErrorState (SelectionKey key, String... logErrorMessages) {
 		logError(key, logErrorMessages);
+		cancelTimeout();
+		acquireBuffers();
 
 		this.errorState = true;
 		this.state = LastWriteCloseConnection.getInstance();
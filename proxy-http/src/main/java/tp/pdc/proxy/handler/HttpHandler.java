@@ -3,8 +3,15 @@ package tp.pdc.proxy.handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import tp.pdc.proxy.bytes.AdaptiveBufferSize;
 import tp.pdc.proxy.bytes.ByteBufferFactory;
 import tp.pdc.proxy.handler.interfaces.Handler;
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.parser.interfaces.PassThroughParser;
+import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.time.HashedWheelTimer.Timeout;
+import tp.pdc.proxy.time.TimeoutType;
+import tp.pdc.proxy.time.Timeouts;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -12,37 +19,82 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides the handle methods and is in charge for the flip and compact of the buffers.
+ * Buffers are pooled and only held while there is traffic: they are acquired on the first readable event and
+ * given back to the pool once the request/response cycle ends or the channel is closed.
+ * While held, the read buffer and the buffer the handler processes into follow the handler's
+ * {@link AdaptiveBufferSize}, being replaced whenever they are empty.
+ * Bodies which need no transformation skip the read buffer, see {@link #read(SocketChannel, PassThroughParser)}.
+ * <p>
+ * A readable event is served by reading, processing and writing to the peer repeatedly until the socket
+ * is drained or the per event read budget is used up.
  */
 public abstract class HttpHandler implements Handler {
 	private static final Logger LOGGER = LoggerFactory.getLogger(HttpHandler.class);
 	private static final ByteBufferFactory BUFFER_FACTORY = ByteBufferFactory.getInstance();
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+	private static final boolean WRITE_THROUGH = PROPERTIES.isWriteThroughEnabled();
+	private static final int READ_BUDGET_READS = PROPERTIES.getReadBudgetReads();
+	private static final long READ_BUDGET_BYTES = PROPERTIES.getReadBudgetBytes();
 
 	private ByteBuffer readBuffer;
 	private ByteBuffer writeBuffer;
 	private ByteBuffer processedBuffer;
 	private SelectionKey connectedPeerKey;
+	private Timeout timeout;
+	private TimeoutType timeoutType;
+	private long lastActivity;
+	private boolean lastReadFilled;
+	private final boolean ownsPeerBuffers;
+	private final AdaptiveBufferSize adaptiveSize = new AdaptiveBufferSize(BUFFER_FACTORY.getProxyBufferSize(),
+		BUFFER_FACTORY.getMinAdaptiveSize(), BUFFER_FACTORY.getMaxAdaptiveSize());
 
+	/**
+	 * Builds a handler sharing its peer's buffers, which remain owned by the peer.
+	 * Only its read buffer is its own.
+	 * @param writeBuffer peer's buffer to write from
+	 * @param processedBuffer peer's buffer to process into
+     */
 	public HttpHandler (ByteBuffer writeBuffer, ByteBuffer processedBuffer) {
-		this.readBuffer = BUFFER_FACTORY.getProxyBuffer();
 		this.writeBuffer = writeBuffer;
 		this.processedBuffer = processedBuffer;
+		this.ownsPeerBuffers = false;
 	}
 
+	/**
+	 * Builds a handler owning its read, write and processed buffers
+	 */
 	public HttpHandler () {
-		this.readBuffer = BUFFER_FACTORY.getProxyBuffer();
-		this.writeBuffer = BUFFER_FACTORY.getProxyBuffer();
-		this.processedBuffer = BUFFER_FACTORY.getProxyBuffer();
+		this.ownsPeerBuffers = true;
 	}
 
-	abstract protected void processRead (SelectionKey key);
+	/**
+	 * Reads once from the handler's channel, see {@link #read(SocketChannel, PassThroughParser)}
+	 * @param key handler's key
+	 * @return bytes read, -1 if the channel was closed
+     */
+	abstract protected int processRead (SelectionKey key);
+
+	/**
+	 * Records how many reads a single readable event took
+	 * @param reads reads done
+     */
+	abstract protected void recordReadsPerWakeup (int reads);
 
 	abstract protected void process (ByteBuffer inputBuffer, SelectionKey key);
 
 	abstract protected void processWrite (ByteBuffer inputBuffer, SelectionKey key);
 
+	/**
+	 * Handles the expiration of the handler's current timeout. Only called if the key is still valid.
+	 * @param type expired timeout type
+	 * @param key handler's key
+     */
+	abstract protected void handleTimeout (TimeoutType type, SelectionKey key);
+
 	public ByteBuffer getReadBuffer () {
 		return readBuffer;
 	}
@@ -71,15 +123,133 @@ public abstract class HttpHandler implements Handler {
 		this.connectedPeerKey = connectedPeerKey;
 	}
 
+	/**
+	 * Schedules a timeout on the current event loop's timer, replacing the handler's current timeout.
+	 * Disabled timeout types are not scheduled.
+	 * @param type timeout type
+	 * @param key handler's key
+     */
+	public void scheduleTimeout (TimeoutType type, SelectionKey key) {
+		Timeouts timeouts = EventLoop.current().getTimeouts();
+		cancelTimeout();
+
+		if (timeouts.isEnabled(type)) {
+			lastActivity = System.nanoTime();
+			scheduleTimeout(type, key, timeouts.getMillis(type));
+		}
+	}
+
+	private void scheduleTimeout (TimeoutType type, SelectionKey key, long millis) {
+		timeoutType = type;
+		timeout = EventLoop.current().getTimer().schedule(() -> expireTimeout(type, key), millis, TimeUnit.MILLISECONDS);
+	}
+
+	private void expireTimeout (TimeoutType type, SelectionKey key) {
+		timeout = null;
+
+		if (!key.isValid()) {
+			timeoutType = null;
+			return;
+		}
+
+		if (type.isIdleBased()) {
+			long millis = EventLoop.current().getTimeouts().getMillis(type);
+			long idle = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivity);
+
+			if (idle < millis) {
+				scheduleTimeout(type, key, millis - idle);
+				return;
+			}
+		}
+
+		timeoutType = null;
+		LOGGER.info("{} timeout expired", type);
+
+		try {
+			handleTimeout(type, key);
+		} catch (RuntimeException e) {
+			LOGGER.error("Failed handling {} timeout, closing connection", type, e);
+			closeChannel(key.channel());
+		}
+	}
+
+	/**
+	 * Records activity, postponing idle based timeouts
+	 */
+	protected void touchTimeout () {
+		lastActivity = System.nanoTime();
+	}
+
+	/**
+	 * Cancels the handler's current timeout, if any
+	 */
+	public void cancelTimeout () {
+		if (timeout != null) {
+			timeout.cancel();
+			timeout = null;
+		}
+
+		timeoutType = null;
+	}
+
+	/**
+	 * Gets the type of the handler's pending timeout
+	 * @return the pending timeout type, null if there is none
+     */
+	public TimeoutType getTimeoutType () {
+		return timeoutType;
+	}
+
 	/**
 	 * Handles read for an specific key
 	 * @param key
      */
 	public void handleRead (SelectionKey key) {
-		processRead(key);
+		SelectionKey peerKey = connectedPeerKey; // a finished response unlinks the server from its client
+		long bytesRead = 0;
+		int reads = 0;
+		int read;
 
-		if (key.isValid()) // in case EOF was received
-			processReadBuffer(key);
+		acquireBuffers();
+
+		do {
+			read = processRead(key);
+			reads++;
+
+			if (key.isValid()) { // in case EOF was received
+				bytesRead += read;
+				processReadBuffer(key);
+			}
+
+			if (connectedPeerKey != null)
+				peerKey = connectedPeerKey;
+
+			if (peerKey != null)
+				((HttpHandler) peerKey.attachment()).writeThrough(peerKey);
+
+		} while (shouldKeepReading(key, read, reads, bytesRead));
+
+		recordReadsPerWakeup(reads);
+	}
+
+	/**
+	 * Reading goes on while the last read filled the space it was given, so the socket probably has more,
+	 * and the handler still wants to read. The read budget bounds how long one connection holds the loop.
+     */
+	private boolean shouldKeepReading (SelectionKey key, int read, int reads, long bytesRead) {
+		return lastReadFilled && read > 0 && readBuffer != null && key.isValid()
+			&& (key.interestOps() & SelectionKey.OP_READ) != 0
+			&& reads < READ_BUDGET_READS && bytesRead < READ_BUDGET_BYTES;
+	}
+
+	/**
+	 * Writes right away if the handler is waiting to write, instead of waiting for the selector to report
+	 * the channel writable. Write interest is kept only if the socket could not take every byte.
+	 * @param key handler's key
+     */
+	public void writeThrough (SelectionKey key) {
+		if (WRITE_THROUGH && key.isValid() && (key.interestOps() & SelectionKey.OP_WRITE) != 0)
+			handleWrite(key);
 	}
 
 	/**
@@ -87,9 +257,13 @@ public abstract class HttpHandler implements Handler {
 	 * @param key
      */
 	public void handleWrite (SelectionKey key) {
+		ByteBuffer writeBuffer = this.writeBuffer; // the cycle may end while writing
 		writeBuffer.flip();
 		processWrite(writeBuffer, key);
 		writeBuffer.compact();
+
+		if (this.writeBuffer == writeBuffer && writeBuffer.position() == 0)
+			resizeWriteBuffer(key);
 	}
 
 	/**
@@ -98,7 +272,7 @@ public abstract class HttpHandler implements Handler {
 	 * @param buffer
      */
 	public void handleProcess (SelectionKey key, ByteBuffer buffer) {
-		if (key.isValid() && readBuffer.position() != 0) {
+		if (key.isValid() && readBuffer != null && readBuffer.position() != 0) {
 			buffer.compact();
 			processReadBuffer(key);
 			buffer.flip();
@@ -110,9 +284,13 @@ public abstract class HttpHandler implements Handler {
 	 * @param key
      */
 	private void processReadBuffer (SelectionKey key) {
+		ByteBuffer readBuffer = this.readBuffer;
 		readBuffer.flip();
 		process(readBuffer, key);
 		readBuffer.compact();
+
+		if (this.readBuffer == readBuffer && readBuffer.position() == 0)
+			resizeReadBuffer();
 	}
 
 	/**
@@ -132,14 +310,151 @@ public abstract class HttpHandler implements Handler {
 	}
 
 	/**
-	 * Closes the socket channel
+	 * Closes the socket channel and releases the handler's buffers
 	 * @param socketChannel
      */
-	protected void closeChannel (SelectableChannel socketChannel) {
+	public void closeChannel (SelectableChannel socketChannel) {
+		cancelTimeout();
+
 		try {
 			socketChannel.close();
 		} catch (IOException e1) {
 			LOGGER.error("Failed to close handler's socket: {}", e1.getMessage());
 		}
+
+		releaseBuffers();
+	}
+
+	/**
+	 * Takes the owned buffers from the pool unless they are already held
+	 */
+	public void acquireBuffers () {
+		if (readBuffer != null)
+			return;
+
+		readBuffer = BUFFER_FACTORY.getProxyBuffer(adaptiveSize.getSize());
+
+		if (ownsPeerBuffers) {
+			writeBuffer = BUFFER_FACTORY.getProxyBuffer();
+			// A request's head must fit in the processed buffer until there is a server to drain it
+			processedBuffer = BUFFER_FACTORY.getProxyBuffer(
+				Math.max(adaptiveSize.getSize(), BUFFER_FACTORY.getProxyBufferSize()));
+		}
+	}
+
+	public boolean hasBuffers () {
+		return readBuffer != null;
+	}
+
+	/**
+	 * Gives the owned buffers back to the pool. Release is deferred until the current event loop iteration
+	 * is over, as the handler and its peer may still be flipping or draining them.
+	 */
+	protected void releaseBuffers () {
+		if (readBuffer == null)
+			return;
+
+		if (ownsPeerBuffers) {
+			releaseLater(readBuffer, writeBuffer, processedBuffer);
+			writeBuffer = processedBuffer = null;
+		} else
+			releaseLater(readBuffer);
+
+		readBuffer = null;
+	}
+
+	/**
+	 * Reads from the channel into the read buffer. Once the parser lets body bytes bypass it and every byte
+	 * read before has been processed, they are read straight into the processed buffer, which the peer
+	 * writes from, and the parser only accounts for them.
+	 * @param channel channel to read from
+	 * @param parser parser of the message being read
+	 * @return bytes read, -1 on EOF
+	 * @throws IOException
+     */
+	protected int read (SocketChannel channel, PassThroughParser parser) throws IOException {
+		int passThroughBytes = parser.getPassThroughBytes();
+		boolean passThrough = passThroughBytes > 0 && processedBuffer != null && readBuffer.position() == 0;
+		ByteBuffer buffer = passThrough ? processedBuffer : readBuffer;
+		int limit = buffer.limit();
+		int bytesRead;
+
+		if (passThrough && passThroughBytes < buffer.remaining())
+			buffer.limit(buffer.position() + passThroughBytes);
+
+		int requested = buffer.remaining();
+
+		try {
+			bytesRead = channel.read(buffer);
+		} finally {
+			buffer.limit(limit);
+		}
+
+		lastReadFilled = requested > 0 && bytesRead == requested;
+
+		if (bytesRead > 0) {
+			if (passThrough) {
+				LOGGER.debug("Passed {} bytes through to the processed buffer", bytesRead);
+				parser.passThrough(bytesRead);
+			}
+
+			adaptiveSize.record(bytesRead, buffer.capacity(), !buffer.hasRemaining());
+		}
+
+		return bytesRead;
+	}
+
+	/**
+	 * Replaces the empty read buffer if the handler's adaptive size changed
+	 */
+	private void resizeReadBuffer () {
+		int size = adaptiveSize.getSize();
+
+		if (size != readBuffer.capacity()) {
+			LOGGER.debug("Resizing read buffer from {} to {} bytes", readBuffer.capacity(), size);
+			releaseLater(readBuffer);
+			readBuffer = BUFFER_FACTORY.getProxyBuffer(size);
+		}
+	}
+
+	/**
+	 * Replaces the empty write buffer if its producer's adaptive size changed. The write buffer is the peer's
+	 * processed buffer, so both references are replaced.
+	 * @param key handler's key
+     */
+	private void resizeWriteBuffer (SelectionKey key) {
+		if (!key.isValid() || connectedPeerKey == null || !connectedPeerKey.isValid())
+			return;
+
+		HttpHandler peer = (HttpHandler) connectedPeerKey.attachment();
+
+		if (peer.connectedPeerKey != key || peer.processedBuffer != writeBuffer)
+			return;
+
+		int size = peer.adaptiveSize.getSize();
+
+		if (size != writeBuffer.capacity()) {
+			LOGGER.debug("Resizing write buffer from {} to {} bytes", writeBuffer.capacity(), size);
+			releaseLater(writeBuffer);
+			writeBuffer = peer.processedBuffer = BUFFER_FACTORY.getProxyBuffer(size);
+		}
+	}
+
+	/**
+	 * Gives buffers back to the pool once the current event loop iteration is over
+	 * @param buffers buffers to release
+     */
+	private void releaseLater (ByteBuffer... buffers) {
+		Runnable release = () -> {
+			for (ByteBuffer buffer : buffers)
+				BUFFER_FACTORY.release(buffer);
+		};
+
+		EventLoop eventLoop = EventLoop.current();
+
+		if (eventLoop != null)
+			eventLoop.execute(release);
+		else
+			release.run();
 	}
 }
@@ -3,36 +3,52 @@ package tp.pdc.proxy.handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import tp.pdc.proxy.bytes.ByteBufferFactory;
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.handler.interfaces.HttpServerState;
 import tp.pdc.proxy.handler.state.server.LastWriteState;
 import tp.pdc.proxy.handler.state.server.ReadResponseState;
 import tp.pdc.proxy.handler.state.server.SendingRequestState;
+import tp.pdc.proxy.header.HttpErrorCode;
 import tp.pdc.proxy.header.Method;
 import tp.pdc.proxy.log.ProxyLogger;
+import tp.pdc.proxy.loop.EventLoop;
 import tp.pdc.proxy.metric.ServerMetricImpl;
 import tp.pdc.proxy.metric.interfaces.ServerMetric;
 import tp.pdc.proxy.parser.factory.HttpResponseParserFactory;
 import tp.pdc.proxy.parser.interfaces.HttpResponseParser;
+import tp.pdc.proxy.time.TimeoutType;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 
 /**
  * Handler for a server interacting with the proxy.
+ * <p>
+ * A pooled connection may have been closed by the server right when a request is sent on it. An idempotent
+ * request sent on a reused connection is therefore retryable: the bytes written are kept until the server
+ * answers, and if the connection fails before any response byte arrives they are sent again on a new one.
  */
 public class HttpServerProxyHandler extends HttpHandler {
 	private static final Logger LOGGER = LoggerFactory.getLogger(HttpServerProxyHandler.class);
 	private static final HttpResponseParserFactory RESPONSE_PARSER_FACTORY = HttpResponseParserFactory.getInstance();
 	private static final ServerMetric SERVER_METRICS = ServerMetricImpl.getInstance();
 	private static final ProxyLogger PROXY_LOGGER = ProxyLogger.getInstance();
+	private static final ByteBufferFactory BUFFER_FACTORY = ByteBufferFactory.getInstance();
 
 	private HttpServerState state;
 	private HttpResponseParser responseParser;
 	private boolean errorState;
 	private boolean responseCodeRecorded;
+	private boolean readEOF;
+	private boolean retryable;
+	private ByteBuffer sentRequest;
+	private SocketAddress activeAddress;
 
 	public HttpServerProxyHandler (ByteBuffer writeBuffer, ByteBuffer processedBuffer, Method clientMethod) {
 		super(writeBuffer, processedBuffer);
@@ -41,11 +57,13 @@ public class HttpServerProxyHandler extends HttpHandler {
 	}
 
 	/**
-	 * Resets the handlers attributes in order to be stored in a cache.
+	 * Resets the handlers attributes in order to be stored in a cache. A stored connection holds no buffers.
 	 * @param key corresponding to the server handler
 	 */
 	public void reset (SelectionKey key) {
 		key.interestOps(0);
+		cancelTimeout();
+		releaseBuffers();
 
 		responseParser.reset();
 		this.state = SendingRequestState.getInstance();
@@ -55,6 +73,8 @@ public class HttpServerProxyHandler extends HttpHandler {
 		setWriteBuffer(null);
 
 		responseCodeRecorded = false;
+		readEOF = false;
+		retryable = false;
 	}
 
 	/**
@@ -65,6 +85,22 @@ public class HttpServerProxyHandler extends HttpHandler {
 		responseParser.setClientMethod(method);
 	}
 
+	/**
+	 * Sets whether the client understands chunked responses
+	 * @param acceptsChunked true if the client speaks HTTP/1.1 or later
+     */
+	public void setClientAcceptsChunked (boolean acceptsChunked) {
+		responseParser.setClientAcceptsChunked(acceptsChunked);
+	}
+
+	/**
+	 * Sets whether the request about to be sent may be sent again on a new connection if this one fails
+	 * @param retryable true for an idempotent request on a reused connection
+     */
+	public void setRetryable (boolean retryable) {
+		this.retryable = retryable;
+	}
+
 	@Override
 	protected void processWrite (ByteBuffer inputBuffer, SelectionKey key) {
 		SocketChannel socketChannel = (SocketChannel) key.channel();
@@ -75,24 +111,161 @@ public class HttpServerProxyHandler extends HttpHandler {
 			LOGGER.info("Sent {} bytes to server", bytesWritten);
 			SERVER_METRICS.addBytesWritten(bytesWritten);
 
+			if (retryable)
+				keepSentRequest(inputBuffer, bytesWritten);
+
 			state.handle(this, key);
 
 		} catch (IOException e) {
+			if (retryable && retryRequest(key, inputBuffer)) {
+				inputBuffer.flip(); // the caller compacts it
+				return;
+			}
+
 			setResponseError(key, "Failed to write response to server", e.getMessage());
 			closeChannel(socketChannel);
 		}
 	}
 
+	/**
+	 * Keeps a copy of the bytes just written, so they can be sent again. A request which doesn't fit
+	 * in a buffer is not retried.
+	 * @param inputBuffer buffer just written from
+	 * @param bytesWritten bytes written
+     */
+	private void keepSentRequest (ByteBuffer inputBuffer, int bytesWritten) {
+		if (sentRequest == null)
+			sentRequest = BUFFER_FACTORY.getProxyBuffer();
+
+		if (sentRequest.remaining() < bytesWritten) {
+			LOGGER.debug("Request too long to be retried");
+			stopRetrying();
+			return;
+		}
+
+		ByteBuffer written = inputBuffer.duplicate();
+		written.position(inputBuffer.position() - bytesWritten);
+		sentRequest.put(written);
+	}
+
+	/**
+	 * Once the server answers the request is no longer retried
+	 */
+	private void stopRetrying () {
+		retryable = false;
+
+		if (sentRequest != null) {
+			BUFFER_FACTORY.release(sentRequest);
+			sentRequest = null;
+		}
+	}
+
+	/**
+	 * Closes the failed connection and has the client send its request again on a new one. The bytes sent
+	 * are put back in front of those still pending, in the buffer this handler writes from.
+	 * @param key server's key
+	 * @param pending buffer to write from, flipped. It's left ready to be written into.
+	 * @return true if the request was handed over to a new connection, false if it can't be retried
+     */
+	private boolean retryRequest (SelectionKey key, ByteBuffer pending) {
+		SelectionKey clientKey = getConnectedPeerKey();
+		HttpClientProxyHandler clientHandler = getClientHandler();
+		SocketAddress address = activeAddress;
+		InetSocketAddress remoteAddress;
+
+		try {
+			remoteAddress = (InetSocketAddress) ((SocketChannel) key.channel()).getRemoteAddress();
+		} catch (IOException e) {
+			return false;
+		}
+
+		if (!requeueSentRequest(pending))
+			return false;
+
+		LOGGER.info("Retrying request on a new connection: reused connection failed");
+		retryable = false;
+		closeChannel(key.channel());
+		clientHandler.setConnectingState(clientKey);
+
+		EventLoop.current().getConnectionManager().retry(clientHandler.getRequestParser().getMethod(), address,
+			remoteAddress, clientKey);
+		return true;
+	}
+
+	/**
+	 * Puts the bytes sent back in front of the pending ones
+	 * @param pending buffer to write from, flipped. It's left ready to be written into.
+	 * @return false if they don't fit
+     */
+	private boolean requeueSentRequest (ByteBuffer pending) {
+		if (sentRequest == null) { // nothing was sent yet
+			pending.compact();
+			return true;
+		}
+
+		if (sentRequest.remaining() < pending.remaining() || sentRequest.position() + pending.remaining() > pending.capacity()) {
+			LOGGER.debug("Request too long to be retried");
+			return false;
+		}
+
+		sentRequest.put(pending);
+		sentRequest.flip();
+		pending.clear();
+		pending.put(sentRequest);
+		stopRetrying();
+		return true;
+	}
+
+	/**
+	 * Closing a connection in use frees its slot in the {@link tp.pdc.proxy.connection.ConnectionManager}
+	 */
+	@Override
+	public void closeChannel (SelectableChannel socketChannel) {
+		super.closeChannel(socketChannel);
+
+		if (activeAddress != null)
+			EventLoop.current().getConnectionManager().release(this);
+	}
+
+	/**
+	 * Address the connection counts against while in use
+	 * @return connection's address, null if not in use
+     */
+	public SocketAddress getActiveAddress () {
+		return activeAddress;
+	}
+
+	public void setActiveAddress (SocketAddress activeAddress) {
+		this.activeAddress = activeAddress;
+	}
+
 	@Override
-	protected void processRead (SelectionKey key) {
+	protected void releaseBuffers () {
+		super.releaseBuffers();
+		stopRetrying();
+	}
+
+	@Override
+	protected int processRead (SelectionKey key) {
 		SocketChannel socketChannel = (SocketChannel) key.channel();
-		ByteBuffer buffer = this.getReadBuffer();
 
 		try {
-			int bytesRead = socketChannel.read(buffer);
+			int bytesRead = read(socketChannel, responseParser);
 
 			// EOF could signal normal end of response if no content-length or chunked was received
 			if (bytesRead == -1) {
+				if (retryable && retryPendingRequest(key))
+					return bytesRead;
+
+				readEOF = true;
+
+				// A re-framed body still has its last chunk to write, the response ends once it is processed
+				if (responseParser.signalEndOfInput()) {
+					LOGGER.debug("Server EOF ends the re-framed response");
+					key.interestOps(0);
+					return bytesRead;
+				}
+
 				LOGGER.info("Closing connection to server: EOF");
 				LOGGER.debug("Registering client for write: client must consume EOF");
 
@@ -104,7 +277,7 @@ public class HttpServerProxyHandler extends HttpHandler {
 				else {
 					setResponseError(key, "Server EOF but headers not finished");
 					closeChannel(socketChannel);
-					return;
+					return bytesRead;
 				}
 
 				closeChannel(socketChannel);
@@ -120,13 +293,45 @@ public class HttpServerProxyHandler extends HttpHandler {
 			} else {
 				LOGGER.info("Read {} bytes from server", bytesRead);
 				SERVER_METRICS.addBytesRead(bytesRead);
+
+				if (retryable && bytesRead > 0)
+					stopRetrying();
+
+				if (getTimeoutType() == TimeoutType.FIRST_BYTE && bytesRead > 0)
+					cancelTimeout();
 			}
 
+			return bytesRead;
 		} catch (IOException e) {
-			setResponseError(key, "Failed to read from server", e.getMessage());
+			if (!retryable || !retryPendingRequest(key))
+				setResponseError(key, "Failed to read from server", e.getMessage());
+
+			return -1;
 		}
 	}
 
+	/**
+	 * Retries the request once the server closed the connection without answering
+	 * @param key server's key
+	 * @return true if the request was handed over to a new connection
+     */
+	private boolean retryPendingRequest (SelectionKey key) {
+		ByteBuffer writeBuffer = getWriteBuffer();
+
+		writeBuffer.flip();
+
+		if (retryRequest(key, writeBuffer))
+			return true;
+
+		writeBuffer.compact();
+		return false;
+	}
+
+	@Override
+	protected void recordReadsPerWakeup (int reads) {
+		SERVER_METRICS.addReadsPerWakeup(reads);
+	}
+
 	@Override
 	protected void process (ByteBuffer inputBuffer, SelectionKey key) {
 		ByteBuffer processedBuffer = this.getProcessedBuffer();
@@ -201,6 +406,14 @@ public class HttpServerProxyHandler extends HttpHandler {
 		return (HttpClientProxyHandler) this.getConnectedPeerKey().attachment();
 	}
 
+	/**
+	 * Checks if the server closed its side of the connection
+	 * @return true if EOF was read
+     */
+	public boolean hasReadEOF () {
+		return readEOF;
+	}
+
 	/**
 	 * Gets the {@link HttpResponseParser}
 	 * @return response parser
@@ -226,13 +439,30 @@ public class HttpServerProxyHandler extends HttpHandler {
 
 	/**
 	 * Sets the {@link HttpServerState} to {@link ReadResponseState}.
-	 * Unregisters server from write and registers for read because the whole client request was sent
+	 * Unregisters server from write and registers for read because the whole client request was sent.
+	 * The server has until the first byte timeout to start responding.
 	 * @param key server's key
      */
 	public void setReadResponseState (SelectionKey key) {
 		LOGGER.debug("Unregistering server from write and registering for read: whole client request sent");
 		key.interestOps(SelectionKey.OP_READ);
 		this.state = ReadResponseState.getInstance();
+		scheduleTimeout(TimeoutType.FIRST_BYTE, key);
+	}
+
+	/**
+	 * A server that doesn't connect or start responding in time is closed and the client
+	 * gets a 504 response.
+	 * @param type expired timeout type
+	 * @param key server's key
+     */
+	@Override
+	protected void handleTimeout (TimeoutType type, SelectionKey key) {
+		SERVER_METRICS.addTimeout(type);
+
+		errorState = true;
+		closeChannel(key.channel());
+		getClientHandler().setErrorState(getConnectedPeerKey(), HttpErrorCode.GATEWAY_TIMEOUT_504, type.toString());
 	}
 
 	public void logAccess (SelectionKey key) {
@@ -0,0 +1,15 @@
+package tp.pdc.proxy.handler.interfaces;
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * Attached to a server connection while it is being established, with no client handler yet
+ */
+public interface ConnectHandler {
+
+	/**
+	 * Finishes connecting once the channel is connectable
+	 * @param key connection's key
+     */
+	public void handleConnect (SelectionKey key);
+}
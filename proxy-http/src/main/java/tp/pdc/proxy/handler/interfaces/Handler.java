@@ -18,4 +18,11 @@ public interface Handler {
 	 * @param key client's key
      */
 	public void handleWrite (SelectionKey key);
+
+	/**
+	 * Called by the event loop once the handler's channel is registered on it
+	 * @param key client's key
+     */
+	public default void handleRegister (SelectionKey key) {
+	}
 }
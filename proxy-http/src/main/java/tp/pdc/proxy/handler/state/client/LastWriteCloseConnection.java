@@ -5,10 +5,8 @@ import org.slf4j.LoggerFactory;
 import tp.pdc.proxy.handler.HttpClientProxyHandler;
 import tp.pdc.proxy.handler.interfaces.HttpClientState;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.SocketChannel;
 
 /**
  * Client state representing the last time the proxy is writing to the client the response from the server.
@@ -32,17 +30,10 @@ public class LastWriteCloseConnection implements HttpClientState {
 		LOGGER.debug("Last write close connection state handle");
 
 		ByteBuffer writeBuffer = httpHandler.getWriteBuffer();
-		SocketChannel socketChannel = (SocketChannel) key.channel();
 
 		if (!writeBuffer.hasRemaining()) {
 			LOGGER.info("Closing connection to client: response sent");
-
-			try {
-				socketChannel.close();
-			} catch (IOException e) {
-				LOGGER.error("Failed to close client's channel on client's write error");
-				e.printStackTrace();
-			}
+			httpHandler.closeChannel(key.channel());
 		}
 	}
 
@@ -1,35 +1,42 @@
 package tp.pdc.proxy.handler.state.client;
 
-import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import tp.pdc.proxy.connection.ConnectionManager;
 import tp.pdc.proxy.handler.HttpClientProxyHandler;
 import tp.pdc.proxy.handler.interfaces.HttpClientState;
 import tp.pdc.proxy.header.HttpErrorCode;
 import tp.pdc.proxy.header.Method;
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.metric.ServerMetricImpl;
+import tp.pdc.proxy.metric.interfaces.ServerMetric;
 import tp.pdc.proxy.parser.HostParser;
 import tp.pdc.proxy.parser.interfaces.HttpRequestParser;
 import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.resolver.AsyncResolver;
+import tp.pdc.proxy.resolver.DnsCache;
 
 /**
  * Client state in which a client has not yet established a connection to any server.
  * In case a host is detected in the request it tries to connect to the corresponding address.
  * in case no host is detected in the request or it is invalid the proper error response is sent to the client.
- * Once it tries to connect (address is resolved), it sets client's state to {@link ConnectingState}
+ * Once a host is detected, it sets client's state to {@link ConnectingState} and resolves the address
+ * through the event loop's {@link DnsCache} or, on a miss, asynchronously. The connection attempt is made
+ * back on the client's event loop once the address is resolved.
  */
 public class NotConnectedState implements HttpClientState {
 	private static final Logger LOGGER = LoggerFactory.getLogger(NotConnectedState.class);
 	private static final HostParser HOST_PARSER = new HostParser();
-	private static final ConnectionManager CONNECTION_MANAGER = ConnectionManager.getInstance();
+	private static final AsyncResolver RESOLVER = AsyncResolver.getInstance();
+	private static final ServerMetric SERVER_METRICS = ServerMetricImpl.getInstance();
 	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
 	private static final int PROXY_PORT = PROPERTIES.getProxyPort();
 
@@ -50,9 +57,22 @@ public class NotConnectedState implements HttpClientState {
 		final HttpRequestParser requestParser = httpHandler.getRequestParser();
 
 		if (requestParser.hasHost()) {
-			byte[] hostBytes = requestParser.getHostValue();
+			Method method = requestParser.getMethod();
+			DnsCache dnsCache = EventLoop.current().getDnsCache();
+			List<InetSocketAddress> addresses = dnsCache.get(requestParser.getHostArray(),
+				requestParser.getHostOffset(), requestParser.getHostLength());
 			InetSocketAddress address;
 
+			if (addresses != null) {
+				SERVER_METRICS.addDnsCacheHit();
+				httpHandler.setConnectingState(key);
+				onResolved(httpHandler, method, addresses, key);
+				return;
+			}
+
+			// Only a miss copies the host, which the cache keeps once resolved
+			byte[] hostBytes = requestParser.getHostValue();
+
 			try {
 				address = HOST_PARSER.parseAddress(hostBytes);
 			} catch (IllegalArgumentException e) {
@@ -61,12 +81,12 @@ public class NotConnectedState implements HttpClientState {
 				return;
 			}
 
-			try {
-				tryConnect(httpHandler, requestParser.getMethod(), address, key);
-			} catch (IOException e) {
-				LOGGER.warn("Failed to connect to server: {}", e.getMessage());
-				httpHandler.setErrorState(key, HttpErrorCode.BAD_GATEWAY_502, e.getMessage());
-			}
+			SERVER_METRICS.addDnsCacheMiss();
+			httpHandler.setConnectingState(key);
+			RESOLVER.resolve(address, EventLoop.current(), resolved -> {
+				dnsCache.put(hostBytes, resolved);
+				onResolved(httpHandler, method, resolved, key);
+			});
 		} else if (!processedBuffer.hasRemaining()) {
 			LOGGER.warn("Client's processed buffer full and connection not established with server");
 			httpHandler.setErrorState(key, HttpErrorCode.TOO_MANY_HEADERS_NO_HOST_431);
@@ -76,22 +96,42 @@ public class NotConnectedState implements HttpClientState {
 		}
 	}
 
-	private void tryConnect (HttpClientProxyHandler httpHandler, Method requestMethod, InetSocketAddress address, SelectionKey key) throws IOException {
+	/**
+	 * Runs on the client's event loop once the address lookup finishes
+	 */
+	private void onResolved (HttpClientProxyHandler httpHandler, Method requestMethod, List<InetSocketAddress> addresses, SelectionKey key) {
+		if (!key.isValid() || !httpHandler.isConnecting()) {
+			LOGGER.debug("Client closed or timed out while resolving {}", addresses.get(0).getHostString());
+			return;
+		}
+
+		tryConnect(httpHandler, requestMethod, addresses, key);
+	}
+
+	private void tryConnect (HttpClientProxyHandler httpHandler, Method requestMethod, List<InetSocketAddress> addresses, SelectionKey key) {
+		InetSocketAddress address = addresses.get(0);
 
-		LOGGER.debug("Server address: {}", address);
+		LOGGER.debug("Server addresses: {}", addresses);
 
 		if (address.isUnresolved()) {
 			LOGGER.warn("Failed to resolve address: {}", address.getHostString());
 			httpHandler.setErrorState(key, HttpErrorCode.UNRESOLVED_ADDRESS_502, address.getHostString());
-		} else if (isConnectingToSelf(address)) {
+		} else if (isConnectingToSelf(addresses)) {
 			LOGGER.warn("Rejecting connection attempt to self");
 			httpHandler.setErrorState(key, HttpErrorCode.LOOP_DETECTED_508, address.getHostString());
 		}
 		else {
-			httpHandler.setConnectingState(key);
-			CONNECTION_MANAGER.connect(requestMethod, address, key);
+			EventLoop.current().getConnectionManager().connect(requestMethod, addresses, key);
 		}
 	}
+
+	private boolean isConnectingToSelf(List<InetSocketAddress> addresses) {
+		for (InetSocketAddress address : addresses)
+			if (isConnectingToSelf(address))
+				return true;
+
+		return false;
+	}
 	
 	private boolean isConnectingToSelf(InetSocketAddress socketAddress) {
 		InetAddress address = socketAddress.getAddress();
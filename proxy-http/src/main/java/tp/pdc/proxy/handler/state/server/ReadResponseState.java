@@ -3,13 +3,12 @@ package tp.pdc.proxy.handler.state.server;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import tp.pdc.proxy.bytes.BytesUtils;
-import tp.pdc.proxy.connection.ConnectionManager;
 import tp.pdc.proxy.handler.HttpServerProxyHandler;
 import tp.pdc.proxy.handler.interfaces.HttpServerState;
+import tp.pdc.proxy.loop.EventLoop;
 import tp.pdc.proxy.header.Header;
-import tp.pdc.proxy.header.HeaderValue;
 import tp.pdc.proxy.parser.interfaces.HttpResponseParser;
+import tp.pdc.proxy.parser.utils.ParseUtils;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -26,7 +25,6 @@ import java.nio.channels.SelectionKey;
  */
 public class ReadResponseState implements HttpServerState {
 
-	private static final ConnectionManager CONNECTION_MANAGER = ConnectionManager.getInstance();
 	private static final Logger LOGGER = LoggerFactory.getLogger(ReadResponseState.class);
 
 	private static final ReadResponseState INSTANCE = new ReadResponseState();
@@ -56,9 +54,9 @@ public class ReadResponseState implements HttpServerState {
 			try {
 				handler.logAccess(key);
 				if (shouldKeepAlive(handler))
-					CONNECTION_MANAGER.storeConnection(key);
+					EventLoop.current().getConnectionManager().storeConnection(key);
 				else
-					key.channel().close();
+					handler.closeChannel(key.channel());
 			} catch (IOException e) {
 				LOGGER.error("Failed to store server's connection on response processed: {}",
 					e.getMessage());
@@ -71,9 +69,13 @@ public class ReadResponseState implements HttpServerState {
 	}
 
 	private boolean shouldKeepAlive (HttpServerProxyHandler handler) {
+		if (handler.hasReadEOF())
+			return false;
+
 		HttpResponseParser responseParser = handler.getResponseParser();
-		return responseParser.hasHeaderValue(Header.CONNECTION) && BytesUtils
-			.equalsBytes(responseParser.getHeaderValue(Header.CONNECTION),
-				HeaderValue.KEEP_ALIVE.getValue(), BytesUtils.TO_LOWERCASE);
+		byte[] connection = responseParser.hasHeaderValue(Header.CONNECTION) ?
+			responseParser.getHeaderValue(Header.CONNECTION) : null;
+
+		return ParseUtils.isPersistentConnection(responseParser, connection);
 	}
 }
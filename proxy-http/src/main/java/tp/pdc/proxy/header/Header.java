@@ -1,6 +1,5 @@
 package tp.pdc.proxy.header;
 
-import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.properties.ProxyProperties;
 
 import java.nio.ByteBuffer;
@@ -20,7 +19,8 @@ public enum Header {
 	SERVER("server"),
 	REFERER("referer"), 
 	CONTENT_ENCODING("content-encoding"), 
-	EXPECT("expect");
+	EXPECT("expect"),
+	KEEP_ALIVE("keep-alive");
 
 	private String headerName;
 	private byte[] headerBytes;
@@ -31,12 +31,19 @@ public enum Header {
 	}
 
 	public static Header getHeaderByBytes (ByteBuffer bytes, int length) {
-		for (Header header : values())
-			if (BytesUtils
-				.equalsBytes(header.headerBytes, 0, bytes.array(), bytes.position(), length,
-					BytesUtils.TO_LOWERCASE))
-				return header;
-		return null;
+		return getHeaderByBytes(bytes, bytes.position(), length);
+	}
+
+	/**
+	 * Finds the header whose name is at an absolute index of a buffer, ignoring case
+	 * @param bytes buffer holding the name, heap or direct
+	 * @param offset absolute index of the name
+	 * @param length name length
+	 * @return the header, null if the name is not one of them
+     */
+	public static Header getHeaderByBytes (ByteBuffer bytes, int offset, int length) {
+		HeaderRegistry registry = HeaderRegistry.getInstance();
+		return registry.getHeader(registry.getId(bytes, offset, length));
 	}
 
 	@Override
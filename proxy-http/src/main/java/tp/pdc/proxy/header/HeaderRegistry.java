@@ -0,0 +1,75 @@
+package tp.pdc.proxy.header;
+
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ids of the header names known to the proxy, ignoring case. Every {@link Header} has its ordinal as id and
+ * the custom names from the parser.customHeaders property follow, so names outside the enum can be recognized too.
+ */
+public final class HeaderRegistry {
+	private static final Header[] HEADERS = Header.values();
+	private static final HeaderRegistry INSTANCE = new HeaderRegistry(ProxyProperties.getInstance().getCustomHeaders());
+
+	private final NameTable names = new NameTable(true);
+	private final List<String> customNames = new ArrayList<>();
+
+	HeaderRegistry (List<String> customHeaders) {
+		for (Header header : HEADERS)
+			names.register(header.toString());
+
+		for (String name : customHeaders)
+			if (names.register(name) == HEADERS.length + customNames.size())
+				customNames.add(name.toLowerCase());
+	}
+
+	public static HeaderRegistry getInstance () {
+		return INSTANCE;
+	}
+
+	/**
+	 * Finds the id of the header whose name is at an absolute index of a buffer
+	 * @param bytes buffer holding the name, heap or direct
+	 * @param offset absolute index of the name
+	 * @param length name length
+	 * @return the header's id, -1 if unknown
+     */
+	public int getId (ByteBuffer bytes, int offset, int length) {
+		return names.indexOf(bytes, offset, length);
+	}
+
+	/**
+	 * @param header header
+	 * @return the header's id
+     */
+	public int getId (Header header) {
+		return header.ordinal();
+	}
+
+	/**
+	 * @param id header id
+	 * @return the header with that id, null if it is a custom header
+     */
+	public Header getHeader (int id) {
+		return id >= 0 && id < HEADERS.length ? HEADERS[id] : null;
+	}
+
+	/**
+	 * @param id header id
+	 * @return the header's lowercase name
+     */
+	public String getName (int id) {
+		Header header = getHeader(id);
+		return header != null ? header.toString() : customNames.get(id - HEADERS.length);
+	}
+
+	/**
+	 * @return amount of known headers, ids range from 0 to it, exclusive
+     */
+	public int size () {
+		return names.size();
+	}
+}
@@ -16,9 +16,13 @@ public enum HttpErrorCode {
 	REQUEST_URI_TOO_LONG_414("414 Request URI too long", "Request URI too long"),
 	HEADER_FIELD_TOO_LARGE_431("431 Request headers fields too large", "Header field too large"),
 	TOO_MANY_HEADERS_NO_HOST_431("431 Request headers fields too large", "Header field too large and still no host found"),
+	REQUEST_TIMEOUT_408("408 Request Timeout", "Timed out waiting for the request"),
 	NOT_IMPLEMENTED_501("501 Method not implemented", "Method not implemented"),
 	UNRESOLVED_ADDRESS_502("502 Bad Gateway", "Host address could not be resolved"),
 	BAD_GATEWAY_502("502 Bad Gateway", "Failed to connect to server"), 
+	SERVICE_UNAVAILABLE_503("503 Service Unavailable", "Too many requests waiting for a server connection"),
+	QUEUE_TIMEOUT_503("503 Service Unavailable", "Timed out waiting for a server connection"),
+	GATEWAY_TIMEOUT_504("504 Gateway Timeout", "Timed out waiting for the server"),
 	LOOP_DETECTED_508("508 Loop Detected", "Rejecting connection attempt to self");
 
 	private static final String SEPARATOR = ": ";
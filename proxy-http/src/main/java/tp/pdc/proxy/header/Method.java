@@ -1,6 +1,5 @@
 package tp.pdc.proxy.header;
 
-import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.properties.ProxyProperties;
 
 import java.nio.ByteBuffer;
@@ -13,6 +12,14 @@ public enum Method {
 	GET("GET"), POST("POST"), HEAD("HEAD"), OPTIONS("OPTIONS"), PUT("PUT"),
 	DELETE("DELETE"), TRACE("TRACE"), CONNECT("CONNECT");
 
+	private static final Method[] METHODS = values();
+	private static final NameTable NAMES = new NameTable(false);
+
+	static {
+		for (Method method : METHODS)
+			NAMES.register(method.methodName);
+	}
+
 	private String methodName;
 	private byte[] methodBytes;
 
@@ -21,11 +28,15 @@ public enum Method {
 		methodBytes = method.getBytes(ProxyProperties.getInstance().getCharset());
 	}
 
+	/**
+	 * Finds the method whose name is at the position of a buffer, which is case sensitive
+	 * @param bytes buffer holding the name, heap or direct
+	 * @param length name length
+	 * @return the method, null if the name is not one of them
+     */
 	public static Method getByBytes (ByteBuffer bytes, int length) {
-		for (Method method : values())
-			if (BytesUtils.equalsBytes(method.methodBytes, bytes, length))
-				return method;
-		return null;
+		int id = NAMES.indexOf(bytes, bytes.position(), length);
+		return id >= 0 ? METHODS[id] : null;
 	}
 
 	public static int maxMethodLen () {
@@ -47,4 +58,13 @@ public enum Method {
 	public byte[] getBytes () {
 		return methodBytes;
 	}
+
+	/**
+	 * Checks if the method may be sent again without changing its outcome, so it can be retried
+	 * on another connection
+	 * @return true for GET, HEAD, PUT and DELETE
+     */
+	public boolean isIdempotent () {
+		return this == GET || this == HEAD || this == PUT || this == DELETE;
+	}
 }
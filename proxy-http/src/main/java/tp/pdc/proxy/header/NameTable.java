@@ -0,0 +1,112 @@
+package tp.pdc.proxy.header;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps ASCII names to consecutive ids, starting at 0 in registration order. Names are bucketed by length and
+ * then by their first byte, so a lookup compares at most the few names sharing both, reading the buffer with
+ * absolute gets and allocating nothing.
+ * <p>
+ * Names are registered at startup. Lookups are thread safe once registration is over.
+ */
+public final class NameTable {
+	private static final int FIRST_BYTES = 128;
+
+	private final boolean ignoreCase;
+	private Entry[][] buckets = new Entry[0][];
+	private int size;
+
+	/**
+	 * @param ignoreCase whether names are matched ignoring ASCII case
+     */
+	public NameTable (boolean ignoreCase) {
+		this.ignoreCase = ignoreCase;
+	}
+
+	/**
+	 * Registers a name, unless already registered
+	 * @param name ASCII name
+	 * @return the name's id
+     */
+	public int register (String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+
+		if (bytes.length == 0 || bytes[0] < 0)
+			throw new IllegalArgumentException("Invalid name: " + name);
+
+		int id = indexOf(ByteBuffer.wrap(bytes), 0, bytes.length);
+		if (id >= 0)
+			return id;
+
+		if (bytes.length >= buckets.length)
+			buckets = Arrays.copyOf(buckets, bytes.length + 1);
+
+		if (buckets[bytes.length] == null)
+			buckets[bytes.length] = new Entry[FIRST_BYTES];
+
+		Entry[] byFirstByte = buckets[bytes.length];
+		int first = fold(bytes[0]);
+
+		if (ignoreCase)
+			for (int i = 0; i < bytes.length; i++)
+				bytes[i] = fold(bytes[i]);
+
+		byFirstByte[first] = new Entry(bytes, size, byFirstByte[first]);
+		return size++;
+	}
+
+	/**
+	 * Finds the id of the name at an absolute index of a buffer
+	 * @param bytes buffer holding the name, heap or direct
+	 * @param offset absolute index of the name
+	 * @param length name length
+	 * @return the name's id, -1 if not registered
+     */
+	public int indexOf (ByteBuffer bytes, int offset, int length) {
+		if (length <= 0 || length >= buckets.length || buckets[length] == null)
+			return -1;
+
+		byte first = fold(bytes.get(offset));
+		if (first < 0)
+			return -1;
+
+		for (Entry entry = buckets[length][first]; entry != null; entry = entry.next)
+			if (matches(entry.name, bytes, offset))
+				return entry.id;
+
+		return -1;
+	}
+
+	/**
+	 * @return amount of registered names
+     */
+	public int size () {
+		return size;
+	}
+
+	private boolean matches (byte[] name, ByteBuffer bytes, int offset) {
+		for (int i = 1; i < name.length; i++)
+			if (fold(bytes.get(offset + i)) != name[i])
+				return false;
+
+		return true;
+	}
+
+	private byte fold (byte b) {
+		return ignoreCase && b >= 'A' && b <= 'Z' ? (byte) (b + 'a' - 'A') : b;
+	}
+
+	private static final class Entry {
+		private final byte[] name;
+		private final int id;
+		private final Entry next;
+
+		private Entry (byte[] name, int id, Entry next) {
+			this.name = name;
+			this.id = id;
+			this.next = next;
+		}
+	}
+}
@@ -1,6 +1,6 @@
 package tp.pdc.proxy.header.protocol;
 
-import tp.pdc.proxy.bytes.BytesUtils;
+import tp.pdc.proxy.header.NameTable;
 import tp.pdc.proxy.properties.ProxyProperties;
 
 import java.nio.ByteBuffer;
@@ -20,12 +20,39 @@ public enum PopisHeader {
 	SERVER_BYTES_READ("server_bytes_read"),
 	SERVER_BYTES_WRITTEN("server_bytes_written"),
 	SERVER_CONNECTIONS("server_connections"),
+	DNS_CACHE_HITS("dns_cache_hits"),
+	DNS_CACHE_MISSES("dns_cache_misses"),
+	POOL_HITS("pool_hits"),
+	POOL_MISSES("pool_misses"),
+	POOL_EVICTIONS("pool_evictions"),
+	POOL_STALE_DISCARDS("pool_stale_discards"),
+	REQUEST_RETRIES("request_retries"),
+	QUEUE_DEPTH("queue_depth"),
+	QUEUE_WAIT_AVG("queue_wait_avg_ms"),
+	QUEUE_REJECTIONS("queue_rejections"),
+	HEADER_READ_TIMEOUTS("header_read_timeouts"),
+	BODY_READ_TIMEOUTS("body_read_timeouts"),
+	CONNECT_TIMEOUTS("connect_timeouts"),
+	FIRST_BYTE_TIMEOUTS("first_byte_timeouts"),
+	KEEPALIVE_TIMEOUTS("keepalive_timeouts"),
 	METHOD_COUNT("method_count"),
 	STATUS_CODE_COUNT("status_code_count"),
+	BUFFER_SIZES("buffer_sizes"),
+	CLIENT_READS_WAKEUP("client_reads_wakeup"),
+	SERVER_READS_WAKEUP("server_reads_wakeup"),
+	WARM_POOL("warm_pool"),
 	METRICS("metrics"),
 	PING("ping"),
 	END("end");
 
+	private static final PopisHeader[] HEADERS = values();
+	private static final NameTable NAMES = new NameTable(false);
+
+	static {
+		for (PopisHeader header : HEADERS)
+			NAMES.register(header.headerName);
+	}
+
 	private final String headerName;
 	private final byte[] headerBytes;
 
@@ -34,11 +61,15 @@ public enum PopisHeader {
 		headerBytes = header.getBytes(ProxyProperties.getInstance().getCharset());
 	}
 
+	/**
+	 * Finds the header whose name is at the position of a buffer, which is case sensitive
+	 * @param bytes buffer holding the name, heap or direct
+	 * @param length name length
+	 * @return the header, null if the name is not one of them
+     */
 	public static PopisHeader getHeaderByBytes (ByteBuffer bytes, int length) {
-		for (PopisHeader header : values())
-			if (BytesUtils.equalsBytes(header.headerBytes, bytes, length))
-				return header;
-		return null;
+		int id = NAMES.indexOf(bytes, bytes.position(), length);
+		return id >= 0 ? HEADERS[id] : null;
 	}
 
 	public static int maxHeaderLen () {
@@ -0,0 +1,275 @@
+package tp.pdc.proxy.loop;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tp.pdc.proxy.connection.ConnectionManager;
+import tp.pdc.proxy.connection.ConnectionWarmer;
+import tp.pdc.proxy.handler.HttpHandler;
+import tp.pdc.proxy.handler.SelectorHandler;
+import tp.pdc.proxy.handler.interfaces.Handler;
+import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.resolver.DnsCache;
+import tp.pdc.proxy.time.HashedWheelTimer;
+import tp.pdc.proxy.time.Timeouts;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reactor owning its own {@link Selector} and running on its own thread.
+ * Every key registered on an event loop, as well as every key created while handling one of its keys
+ * (such as the server key of a client), is only ever touched by the loop's thread. This keeps
+ * the handlers' state machines lock-free. Other threads interact with a loop by submitting tasks.
+ */
+public class EventLoop implements Runnable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EventLoop.class);
+	private static final ThreadLocal<EventLoop> CURRENT = new ThreadLocal<>();
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+
+	private final int id;
+	private final Selector selector;
+	private final SelectorHandler selectorHandler;
+	private final HashedWheelTimer timer;
+	private final Timeouts timeouts;
+	private final ConnectionManager connectionManager;
+	private final ConnectionWarmer connectionWarmer;
+	private final DnsCache dnsCache;
+	private final Queue<Runnable> tasks;
+	private volatile boolean running;
+	private Thread thread;
+
+	public EventLoop (int id) throws IOException {
+		this(id, PROPERTIES.getTimerTickDuration(), new Timeouts());
+	}
+
+	/**
+	 * @param id loop's id
+	 * @param tickDuration duration in milliseconds of a tick of the loop's timer
+	 * @param timeouts durations of the timeouts scheduled on the loop
+     */
+	public EventLoop (int id, long tickDuration, Timeouts timeouts) throws IOException {
+		this.id = id;
+		this.selector = Selector.open();
+		this.selectorHandler = new SelectorHandler();
+		this.timer = new HashedWheelTimer(tickDuration, TimeUnit.MILLISECONDS, PROPERTIES.getTimerWheelSize());
+		this.timeouts = timeouts;
+		this.connectionManager = new ConnectionManager(timer, timeouts);
+		this.dnsCache = new DnsCache(PROPERTIES.getResolverCacheSize(), PROPERTIES.getResolverCacheTimeToLive(),
+			PROPERTIES.getResolverCacheNegativeTimeToLive(), TimeUnit.SECONDS);
+		this.connectionWarmer = new ConnectionWarmer(connectionManager, dnsCache, timer, timeouts,
+			PROPERTIES.getWarmDestinations());
+		this.tasks = new ConcurrentLinkedQueue<>();
+	}
+
+	/**
+	 * Gets the event loop running on the current thread
+	 * @return the current thread's event loop, null if it is not an event loop thread
+     */
+	public static EventLoop current () {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Starts the loop on a new thread
+	 */
+	public void start () {
+		running = true;
+		thread = new Thread(this, "event-loop-" + id);
+		thread.start();
+	}
+
+	/**
+	 * Stops the loop once its current iteration ends. Its channels and selector are closed by the loop's thread.
+	 */
+	public void shutdown () {
+		running = false;
+		selector.wakeup();
+	}
+
+	/**
+	 * Waits for the loop's thread to end after {@link #shutdown()}
+	 * @param timeout maximum time to wait
+	 * @param unit timeout's unit
+	 * @return true if the loop ended
+	 */
+	public boolean awaitTermination (long timeout, TimeUnit unit) throws InterruptedException {
+		thread.join(unit.toMillis(timeout));
+		return !thread.isAlive();
+	}
+
+	public int getId () {
+		return id;
+	}
+
+	public Selector getSelector () {
+		return selector;
+	}
+
+	public HashedWheelTimer getTimer () {
+		return timer;
+	}
+
+	public Timeouts getTimeouts () {
+		return timeouts;
+	}
+
+	public ConnectionManager getConnectionManager () {
+		return connectionManager;
+	}
+
+	public DnsCache getDnsCache () {
+		return dnsCache;
+	}
+
+	/**
+	 * Checks if the caller is running on this loop's thread
+	 * @return true if the current thread is the loop's thread
+     */
+	public boolean inEventLoop () {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Submits a task to be run by the loop's thread once the current selection is processed.
+	 * The selector is woken up if the task is submitted from another thread.
+	 * @param task task to run on the loop
+     */
+	public void execute (Runnable task) {
+		tasks.add(task);
+
+		if (!inEventLoop())
+			selector.wakeup();
+	}
+
+	/**
+	 * Registers a channel on this loop's selector from any thread
+	 * @param channel channel to register, must be in non blocking mode
+	 * @param ops interest set
+	 * @param attachment key attachment
+     */
+	public void register (SelectableChannel channel, int ops, Object attachment) {
+		execute(() -> {
+			try {
+				SelectionKey key = channel.register(selector, ops, attachment);
+
+				if (attachment instanceof Handler)
+					((Handler) attachment).handleRegister(key);
+			} catch (ClosedChannelException e) {
+				LOGGER.warn("Failed to register channel on event loop {}: {}", id, e.getMessage());
+			}
+		});
+	}
+
+	@Override
+	public void run () {
+		CURRENT.set(this);
+		LOGGER.info("Event loop {} started", id);
+		connectionWarmer.start();
+
+		try {
+			while (running) {
+				select();
+				processSelectedKeys();
+				runTasks();
+				timer.expireTimeouts();
+			}
+		} catch (IOException e) {
+			LOGGER.error("Event loop {} stopped: {}", id, e.getMessage());
+		} finally {
+			close();
+		}
+	}
+
+	private void close () {
+		for (SelectionKey key : selector.keys())
+			closeKey(key);
+
+		try {
+			selector.close();
+		} catch (IOException e) {
+			LOGGER.error("Failed to close event loop {} selector: {}", id, e.getMessage());
+		}
+
+		LOGGER.info("Event loop {} stopped", id);
+	}
+
+	/**
+	 * Closes a key's channel, releasing its handler's buffers if it has any
+	 */
+	private void closeKey (SelectionKey key) {
+		if (key.attachment() instanceof HttpHandler) {
+			((HttpHandler) key.attachment()).closeChannel(key.channel());
+			return;
+		}
+
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			LOGGER.error("Failed to close channel on event loop {}: {}", id, e.getMessage());
+		}
+	}
+
+	/**
+	 * Blocks until a key is selected, a task is submitted or the next timer deadline is reached
+	 */
+	private void select () throws IOException {
+		long timeout = timer.millisToNextTick();
+
+		if (!tasks.isEmpty() || timeout == 0)
+			selector.selectNow();
+		else if (timeout < 0)
+			selector.select();
+		else
+			selector.select(timeout);
+	}
+
+	private void processSelectedKeys () {
+		Set<SelectionKey> keySet = selector.selectedKeys();
+		Iterator<SelectionKey> keyIter = keySet.iterator();
+
+		while (keyIter.hasNext()) {
+			SelectionKey key = keyIter.next();
+			keyIter.remove();
+
+			try {
+				processSelectedKey(key);
+			} catch (RuntimeException e) {
+				LOGGER.error("Event loop {} failed handling a key, closing it", id, e);
+				closeKey(key);
+			}
+		}
+	}
+
+	private void processSelectedKey (SelectionKey key) {
+		if (key.isValid() && key.isConnectable())
+			selectorHandler.handleConnect(key);
+
+		if (key.isValid() && key.isReadable())
+			selectorHandler.handleRead(key);
+
+		// A write through may have already drained the channel since it was selected
+		if (key.isValid() && key.isWritable() && (key.interestOps() & SelectionKey.OP_WRITE) != 0)
+			selectorHandler.handleWrite(key);
+	}
+
+	private void runTasks () {
+		Runnable task;
+
+		while ((task = tasks.poll()) != null) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("Event loop {} task failed", id, e);
+			}
+		}
+	}
+}
@@ -6,6 +6,7 @@ import tp.pdc.proxy.metric.interfaces.ClientMetric;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of the client metrics
@@ -14,12 +15,12 @@ public class ClientMetricImpl extends HostMetricImpl implements ClientMetric {
 
 	private static final ClientMetricImpl INSTANCE = new ClientMetricImpl();
 
-	private final Map<Method, Integer> methodRequests;
+	private final Map<Method, AtomicInteger> methodRequests;
 
 	private ClientMetricImpl () {
 		methodRequests = new EnumMap<>(Method.class);
 		for (Method m : Method.values())
-			methodRequests.put(m, 0);
+			methodRequests.put(m, new AtomicInteger());
 	}
 
 	public static final ClientMetricImpl getInstance () {
@@ -28,13 +29,12 @@ public class ClientMetricImpl extends HostMetricImpl implements ClientMetric {
 
 	@Override
 	public void addMethodCount (Method m) {
-		int count = getMethodCount(m);
-		methodRequests.put(m, count + 1);
+		methodRequests.get(m).incrementAndGet();
 	}
 
 	@Override
 	public int getMethodCount (Method m) {
-		return methodRequests.get(m);
+		return methodRequests.get(m).get();
 	}
 
 	@Override
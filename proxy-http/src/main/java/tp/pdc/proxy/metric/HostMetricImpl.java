@@ -1,41 +1,96 @@
 package tp.pdc.proxy.metric;
 
 import tp.pdc.proxy.metric.interfaces.HostMetric;
+import tp.pdc.proxy.time.TimeoutType;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Host metrics shared by every event loop. Counters are {@link LongAdder}s so loops
+ * don't contend on each update.
+ */
 public class HostMetricImpl implements HostMetric {
 
-	private long connections;
-	private long bytesRead;
-	private long bytesWritten;
+	private final LongAdder connections = new LongAdder();
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final Map<TimeoutType, LongAdder> timeouts;
+	private final LongAdder[] readsPerWakeup = new LongAdder[Integer.SIZE - 1];
+
+	public HostMetricImpl () {
+		timeouts = new EnumMap<>(TimeoutType.class);
+		for (TimeoutType type : TimeoutType.values())
+			timeouts.put(type, new LongAdder());
+
+		for (int i = 0; i < readsPerWakeup.length; i++)
+			readsPerWakeup[i] = new LongAdder();
+	}
 
 	@Override
 	public long getConnections () {
-		return connections;
+		return connections.sum();
 	}
 
 	@Override
 	public long getBytesRead () {
-		return bytesRead;
+		return bytesRead.sum();
 	}
 
 	@Override
 	public long getBytesWritten () {
-		return bytesWritten;
+		return bytesWritten.sum();
 	}
 
 	@Override
 	public void addConnection () {
-		connections++;
+		connections.increment();
 	}
 
 	@Override
 	public void addBytesRead (long bytes) {
-		bytesRead += assertNonNegative(bytes);
+		bytesRead.add(assertNonNegative(bytes));
 	}
 
 	@Override
 	public void addBytesWritten (long bytes) {
-		bytesWritten += assertNonNegative(bytes);
+		bytesWritten.add(assertNonNegative(bytes));
+	}
+
+	@Override
+	public void addTimeout (TimeoutType type) {
+		timeouts.get(type).increment();
+	}
+
+	@Override
+	public long getTimeouts (TimeoutType type) {
+		return timeouts.get(type).sum();
+	}
+
+	@Override
+	public void addReadsPerWakeup (int reads) {
+		if (reads < 1)
+			throw new IllegalArgumentException("Invalid amount of reads: " + reads);
+
+		// Bucket i holds up to 2^i reads, the last one also holds anything above
+		int bucket = Integer.SIZE - Integer.numberOfLeadingZeros(reads - 1);
+		readsPerWakeup[Math.min(bucket, readsPerWakeup.length - 1)].increment();
+	}
+
+	@Override
+	public Map<Integer, Long> getReadsPerWakeup () {
+		Map<Integer, Long> distribution = new LinkedHashMap<>();
+
+		for (int i = 0; i < readsPerWakeup.length; i++) {
+			long events = readsPerWakeup[i].sum();
+
+			if (events > 0)
+				distribution.put(1 << i, events);
+		}
+
+		return distribution;
 	}
 
 	private long assertNonNegative (long bytes) {
@@ -1,10 +1,15 @@
 package tp.pdc.proxy.metric;
 
+import tp.pdc.proxy.connection.PoolEvent;
 import tp.pdc.proxy.metric.interfaces.ServerMetric;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Implementation of the servers metrics.
@@ -13,10 +18,23 @@ public class ServerMetricImpl extends HostMetricImpl implements ServerMetric {
 
 	private static final ServerMetricImpl INSTANCE = new ServerMetricImpl();
 
-	private final Map<Integer, Integer> responseCodeCount;
+	private final LongAdder dnsCacheHits = new LongAdder();
+	private final LongAdder dnsCacheMisses = new LongAdder();
+	private final LongAdder requestRetries = new LongAdder();
+	private final LongAdder queueDepth = new LongAdder();
+	private final LongAdder queueWaits = new LongAdder();
+	private final LongAdder queueWaitMillis = new LongAdder();
+	private final LongAdder queueRejections = new LongAdder();
+	private final Map<Integer, AtomicInteger> responseCodeCount;
+	private final Map<PoolEvent, LongAdder> poolEvents;
+	private final Map<String, LongAdder> warmConnections;
 
 	private ServerMetricImpl () {
-		responseCodeCount = new HashMap<>();
+		responseCodeCount = new ConcurrentHashMap<>();
+		warmConnections = new ConcurrentHashMap<>();
+		poolEvents = new EnumMap<>(PoolEvent.class);
+		for (PoolEvent event : PoolEvent.values())
+			poolEvents.put(event, new LongAdder());
 	}
 
 	public static final ServerMetricImpl getInstance () {
@@ -25,17 +43,101 @@ public class ServerMetricImpl extends HostMetricImpl implements ServerMetric {
 
 	@Override
 	public void addResponseCodeCount (int responseCode) {
-		int count = getResponseCodeCount(responseCode);
-		responseCodeCount.put(responseCode, count + 1);
+		responseCodeCount.computeIfAbsent(responseCode, code -> new AtomicInteger()).incrementAndGet();
 	}
 
 	@Override
 	public int getResponseCodeCount (int responseCode) {
-		return responseCodeCount.getOrDefault(responseCode, 0);
+		AtomicInteger count = responseCodeCount.get(responseCode);
+		return count == null ? 0 : count.get();
 	}
 
 	@Override
 	public Set<Integer> getStatusCodes () {
 		return responseCodeCount.keySet();
 	}
+
+	@Override
+	public void addDnsCacheHit () {
+		dnsCacheHits.increment();
+	}
+
+	@Override
+	public void addDnsCacheMiss () {
+		dnsCacheMisses.increment();
+	}
+
+	@Override
+	public long getDnsCacheHits () {
+		return dnsCacheHits.sum();
+	}
+
+	@Override
+	public long getDnsCacheMisses () {
+		return dnsCacheMisses.sum();
+	}
+
+	@Override
+	public void addPoolEvent (PoolEvent event) {
+		poolEvents.get(event).increment();
+	}
+
+	@Override
+	public long getPoolEvents (PoolEvent event) {
+		return poolEvents.get(event).sum();
+	}
+
+	@Override
+	public void addRequestRetry () {
+		requestRetries.increment();
+	}
+
+	@Override
+	public long getRequestRetries () {
+		return requestRetries.sum();
+	}
+
+	@Override
+	public void addQueueDepth (long delta) {
+		queueDepth.add(delta);
+	}
+
+	@Override
+	public void addQueueWait (long millis) {
+		queueWaits.increment();
+		queueWaitMillis.add(millis);
+	}
+
+	@Override
+	public void addQueueRejection () {
+		queueRejections.increment();
+	}
+
+	@Override
+	public long getQueueDepth () {
+		return queueDepth.sum();
+	}
+
+	@Override
+	public long getQueueWaitAverage () {
+		long waits = queueWaits.sum();
+		return waits == 0 ? 0 : queueWaitMillis.sum() / waits;
+	}
+
+	@Override
+	public long getQueueRejections () {
+		return queueRejections.sum();
+	}
+
+	@Override
+	public void addWarmConnections (String destination, long delta) {
+		warmConnections.computeIfAbsent(destination, d -> new LongAdder()).add(delta);
+	}
+
+	@Override
+	public Map<String, Long> getWarmConnections () {
+		Map<String, Long> connections = new TreeMap<>();
+		warmConnections.forEach((destination, count) -> connections.put(destination, count.sum()));
+		return connections;
+	}
 }
@@ -1,5 +1,9 @@
 package tp.pdc.proxy.metric.interfaces;
 
+import tp.pdc.proxy.time.TimeoutType;
+
+import java.util.Map;
+
 /**
  * Metrics related to a specific host.
  */
@@ -39,4 +43,30 @@ public interface HostMetric {
 	 * @param bytes written to a host
 	 */
 	public void addBytesWritten (long bytes);
+
+	/**
+	 * Add one to the amount of expired timeouts of a certain type
+	 * @param type expired timeout type
+	 */
+	public void addTimeout (TimeoutType type);
+
+	/**
+	 * Get amount of expired timeouts of a certain type
+	 * @param type timeout type
+	 * @return amount of expirations
+	 */
+	public long getTimeouts (TimeoutType type);
+
+	/**
+	 * Records how many reads a single readable event of a certain host took
+	 * @param reads reads done, at least one
+	 */
+	public void addReadsPerWakeup (int reads);
+
+	/**
+	 * Get the distribution of reads per readable event. Events are counted in power of two buckets:
+	 * each bucket holds the events with at most that many reads and more than the previous bucket.
+	 * @return map from bucket to amount of events, sorted and only including non empty buckets
+	 */
+	public Map<Integer, Long> getReadsPerWakeup ();
 }
@@ -1,5 +1,8 @@
 package tp.pdc.proxy.metric.interfaces;
 
+import tp.pdc.proxy.connection.PoolEvent;
+
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -25,4 +28,98 @@ public interface ServerMetric extends HostMetric {
 	 * @return a {@link Set} of the status codes
      */
 	Set<Integer> getStatusCodes ();
+
+	/**
+	 * Add one to the amount of server addresses found in the DNS cache
+	 */
+	void addDnsCacheHit ();
+
+	/**
+	 * Add one to the amount of server addresses that had to be resolved
+	 */
+	void addDnsCacheMiss ();
+
+	/**
+	 * Get amount of server addresses found in the DNS cache
+	 * @return DNS cache hits
+     */
+	long getDnsCacheHits ();
+
+	/**
+	 * Get amount of server addresses that had to be resolved
+	 * @return DNS cache misses
+     */
+	long getDnsCacheMisses ();
+
+	/**
+	 * Add one to the count of a connection pool event
+	 * @param event pool event
+     */
+	void addPoolEvent (PoolEvent event);
+
+	/**
+	 * Get amount of times a connection pool event happened
+	 * @param event pool event
+	 * @return event count
+     */
+	long getPoolEvents (PoolEvent event);
+
+	/**
+	 * Add one to the amount of requests retried on a new connection after a pooled one failed
+	 */
+	void addRequestRetry ();
+
+	/**
+	 * Get amount of requests retried on a new connection
+	 * @return request retries
+     */
+	long getRequestRetries ();
+
+	/**
+	 * Updates the amount of requests waiting for a server connection
+	 * @param delta change in waiting requests
+     */
+	void addQueueDepth (long delta);
+
+	/**
+	 * Records how long a request waited for a server connection
+	 * @param millis milliseconds waited
+     */
+	void addQueueWait (long millis);
+
+	/**
+	 * Add one to the amount of requests answered with a 503 as they couldn't wait for a server connection
+	 */
+	void addQueueRejection ();
+
+	/**
+	 * Get the amount of requests waiting for a server connection, across event loops
+	 * @return waiting requests
+     */
+	long getQueueDepth ();
+
+	/**
+	 * Get the average time requests waited for a server connection
+	 * @return milliseconds, 0 if no request waited
+     */
+	long getQueueWaitAverage ();
+
+	/**
+	 * Get the amount of requests answered with a 503 as they couldn't wait for a server connection
+	 * @return rejected requests
+     */
+	long getQueueRejections ();
+
+	/**
+	 * Updates the amount of idle connections kept to a warm destination
+	 * @param destination destination as configured
+	 * @param delta change in idle connections
+     */
+	void addWarmConnections (String destination, long delta);
+
+	/**
+	 * Get the amount of idle connections kept to each warm destination, across event loops
+	 * @return idle connections by destination
+     */
+	Map<String, Long> getWarmConnections ();
 }
@@ -6,7 +6,8 @@ import tp.pdc.proxy.properties.ProxyProperties;
 import java.net.InetSocketAddress;
 
 /**
- * Given host and port bytes returns the host name and its port as an {@link InetSocketAddress}
+ * Given host and port bytes returns the host name and its port as an unresolved {@link InetSocketAddress}.
+ * Resolution is left to {@link tp.pdc.proxy.resolver.AsyncResolver} so it never blocks an event loop.
  */
 public class HostParser {
 	public static final int DEFAULT_PORT = 80;
@@ -15,7 +16,7 @@ public class HostParser {
 	/**
 	 * Given host and port bytes returns the host name and its port as an {@link InetSocketAddress}
 	 * @param hostBytes bytes of the host
-	 * @return an {@link InetSocketAddress} with the host and its port
+	 * @return an unresolved {@link InetSocketAddress} with the host and its port
      */
 	public InetSocketAddress parseAddress (byte[] hostBytes) {
 		int colonIndex;
@@ -32,6 +33,6 @@ public class HostParser {
 		else
 			port = ParseUtils.parseInt(hostBytes, colonIndex + 1, hostBytes.length - colonIndex - 1);
 
-		return new InetSocketAddress(hostname, port);
+		return InetSocketAddress.createUnresolved(hostname, port);
 	}
 }
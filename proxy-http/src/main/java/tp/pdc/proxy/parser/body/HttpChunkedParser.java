@@ -1,5 +1,6 @@
 package tp.pdc.proxy.parser.body;
 
+import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.parser.encoders.StaticL33tEncoder;
 import tp.pdc.proxy.parser.interfaces.HttpBodyParser;
@@ -13,7 +14,8 @@ import static tp.pdc.proxy.parser.utils.DecimalConstants.A_DECIMAL_VALUE;
 import static tp.pdc.proxy.parser.utils.DecimalConstants.HEXA_BASE_VALUE;
 
 /**
- * Body parser for Chunked
+ * Body parser for Chunked. Chunk data is copied in bulk, as its size is known once the size line is parsed,
+ * so only size lines and the CRLF framing go through the byte by byte state machine.
  */
 public class HttpChunkedParser implements HttpBodyParser {
 
@@ -40,6 +42,11 @@ public class HttpChunkedParser implements HttpBodyParser {
 	public boolean parse (ByteBuffer input, ByteBuffer output) throws ParserFormatException {
 
 		while (input.hasRemaining() && output.hasRemaining()) {
+			if (isReadingChunkData()) {
+				putChunkData(input, output);
+				continue;
+			}
+
 			byte c = input.get();
 
 			switch (parserState) {
@@ -64,6 +71,26 @@ public class HttpChunkedParser implements HttpBodyParser {
 		return hasFinished();
 	}
 
+	private boolean isReadingChunkData () {
+		return parserState == ParserState.READ_CHUNK && chunkState == ChunkState.START && chunkSize > 0;
+	}
+
+	/**
+	 * Copies as much of the current chunk's data as the buffers allow, l33t encoding it if enabled
+	 * @param input buffer to read from
+	 * @param output buffer to write to
+     */
+	private void putChunkData (ByteBuffer input, ByteBuffer output) {
+		int length = Math.min(chunkSize, Math.min(input.remaining(), output.remaining()));
+
+		if (l33tFlag)
+			StaticL33tEncoder.encode(input, output, length);
+		else
+			BytesUtils.lengthPut(input, output, length);
+
+		chunkSize -= length;
+	}
+
 	private void parseChunkSize (byte c) throws ParserFormatException {
 
 		switch (chunkSizeState) {
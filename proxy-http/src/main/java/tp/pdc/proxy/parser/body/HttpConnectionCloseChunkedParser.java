@@ -0,0 +1,92 @@
+package tp.pdc.proxy.parser.body;
+
+import tp.pdc.proxy.exceptions.ParserFormatException;
+import tp.pdc.proxy.parser.encoders.StaticL33tEncoder;
+import tp.pdc.proxy.parser.interfaces.HttpBodyParser;
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.nio.ByteBuffer;
+
+import static tp.pdc.proxy.parser.utils.AsciiConstants.CR;
+import static tp.pdc.proxy.parser.utils.AsciiConstants.LF;
+
+/**
+ * Body parser for Connection Close which re-frames the body as chunked, so the client's connection
+ * outlives the server's. Each parse writes one chunk with as much of the input as the output takes,
+ * and the last chunk is written once the input has ended.
+ */
+public class HttpConnectionCloseChunkedParser implements HttpBodyParser {
+
+	private static final byte[] HEX_DIGITS =
+		"0123456789abcdef".getBytes(ProxyProperties.getInstance().getCharset());
+	private static final byte[] LAST_CHUNK = {'0', CR.getValue(), LF.getValue(), CR.getValue(), LF.getValue()};
+
+	private final boolean l33tFlag;
+	private boolean inputEnded;
+	private boolean finished;
+
+	/**
+	 * @param l33tFlag whether the body is l33t encoded
+	 */
+	public HttpConnectionCloseChunkedParser (boolean l33tFlag) {
+		this.l33tFlag = l33tFlag;
+	}
+
+	@Override
+	public boolean parse (ByteBuffer input, ByteBuffer output) throws ParserFormatException {
+		if (input.hasRemaining())
+			putChunk(input, output);
+
+		if (inputEnded && !input.hasRemaining() && !finished) {
+			if (output.remaining() >= LAST_CHUNK.length) {
+				output.put(LAST_CHUNK);
+				finished = true;
+			} else
+				output.limit(output.position()); // Así se simula que el buffer está lleno
+		}
+
+		return finished;
+	}
+
+	private void putChunk (ByteBuffer input, ByteBuffer output) {
+		// 4: CRLF after the size + CRLF after the data
+		int room = output.remaining() - hexLength(output.remaining()) - 4;
+		int size = Math.min(input.remaining(), room);
+
+		if (size <= 0) {
+			output.limit(output.position()); // Así se simula que el buffer está lleno
+			return;
+		}
+
+		for (int shift = (hexLength(size) - 1) * 4; shift >= 0; shift -= 4)
+			output.put(HEX_DIGITS[(size >>> shift) & 0xF]);
+
+		output.put(CR.getValue()).put(LF.getValue());
+
+		if (l33tFlag) {
+			StaticL33tEncoder.encode(input, output, size);
+		} else {
+			int limit = input.limit();
+			input.limit(input.position() + size);
+			output.put(input);
+			input.limit(limit);
+		}
+
+		output.put(CR.getValue()).put(LF.getValue());
+	}
+
+	private static int hexLength (int value) {
+		return Math.max((Integer.SIZE - Integer.numberOfLeadingZeros(value) + 3) / 4, 1);
+	}
+
+	@Override
+	public boolean hasFinished () {
+		return finished;
+	}
+
+	@Override
+	public boolean signalEndOfInput () {
+		inputEnded = true;
+		return true;
+	}
+}
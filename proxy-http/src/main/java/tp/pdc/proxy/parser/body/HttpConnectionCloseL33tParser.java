@@ -23,8 +23,7 @@ public class HttpConnectionCloseL33tParser implements HttpBodyParser {
 
 	@Override
 	public boolean parse (ByteBuffer input, ByteBuffer output) throws ParserFormatException {
-		while (input.hasRemaining() && output.hasRemaining())
-			output.put(StaticL33tEncoder.encodeByte(input.get()));
+		StaticL33tEncoder.encode(input, output, Math.min(input.remaining(), output.remaining()));
 
 		return false;
 	}
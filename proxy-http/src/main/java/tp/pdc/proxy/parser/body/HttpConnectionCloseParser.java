@@ -34,4 +34,14 @@ public class HttpConnectionCloseParser implements HttpBodyParser {
 		return false;
 	}
 
+	@Override
+	public int getPassThroughBytes () {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void passThrough (int bytes) {
+		// The body ends with the connection, there is nothing to count
+	}
+
 }
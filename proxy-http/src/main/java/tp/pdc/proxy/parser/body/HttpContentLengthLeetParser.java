@@ -25,27 +25,19 @@ public class HttpContentLengthLeetParser implements HttpBodyParser {
 	@Override
 	public boolean parse (ByteBuffer input, ByteBuffer output) throws ParserFormatException {
 
-		while (index <= contentLength && input.hasRemaining() && output.hasRemaining()) {
+		if (index > contentLength)
+			return hasFinished();
 
-			byte c = input.get();
+		if (parserState != ParserState.START)
+			handleParserError();
 
-			output.put(StaticL33tEncoder.encodeByte(c));
+		int length = Math.min(contentLength - index + 1, Math.min(input.remaining(), output.remaining()));
 
-			switch (parserState) {
+		StaticL33tEncoder.encode(input, output, length);
+		index += length;
 
-				case START:
-
-					if (index == contentLength) {
-						parserState = ParserState.END_OK;
-						return true;
-					}
-					break;
-
-				default:
-					handleParserError();
-			}
-			index++;
-		}
+		if (index > contentLength)
+			parserState = ParserState.END_OK;
 
 		return hasFinished();
 	}
@@ -46,4 +46,14 @@ public class HttpContentLengthParser implements HttpBodyParser {
 		return contentLength == 0;
 	}
 
+	@Override
+	public int getPassThroughBytes () {
+		return contentLength;
+	}
+
+	@Override
+	public void passThrough (int bytes) {
+		contentLength -= bytes;
+	}
+
 }
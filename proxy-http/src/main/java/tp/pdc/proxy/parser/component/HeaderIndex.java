@@ -0,0 +1,151 @@
+package tp.pdc.proxy.parser.component;
+
+import tp.pdc.proxy.exceptions.ParserFormatException;
+import tp.pdc.proxy.header.HttpErrorCode;
+
+import java.util.Arrays;
+
+/**
+ * Values of the headers saved from a message. Values are appended to an arena and indexed by records of
+ * header id, offset and length, so saving them allocates nothing once the arena and the records grew enough,
+ * and values are only copied when asked for. If a header is repeated, its last value is the one found.
+ * A value is only found once it ended, so a value split across reads is never taken for a complete one.
+ * <p>
+ * Values and records are charged against a budget, so neither long values nor many repeated headers can grow
+ * them without limit. Each record costs as much as the ints it takes.
+ */
+final class HeaderIndex {
+	private static final int RECORD_SIZE = 3; // id, offset, length
+	private static final int RECORD_BYTES = RECORD_SIZE * Integer.BYTES;
+	private static final int INITIAL_RECORDS = 8;
+
+	private final int budget;
+	private int[] records;
+	private int recordsLength;
+	private int publishedLength;
+	private byte[] arena;
+	private int arenaLength;
+
+	/**
+	 * @param initialCapacity initial arena size
+	 * @param budget maximum total length of the values and records, in bytes
+     */
+	HeaderIndex (int initialCapacity, int budget) {
+		this.budget = budget;
+		this.records = new int[INITIAL_RECORDS * RECORD_SIZE];
+		this.arena = new byte[Math.min(initialCapacity, budget)];
+	}
+
+	/**
+	 * Starts a value, empty until bytes are appended and not found until it ends
+	 * @param id header id
+	 * @throws ParserFormatException if the budget is exceeded
+     */
+	void start (int id) throws ParserFormatException {
+		if (charged() + RECORD_BYTES > budget)
+			throwTooLarge();
+
+		if (recordsLength == records.length)
+			records = Arrays.copyOf(records, records.length * 2);
+
+		records[recordsLength] = id;
+		records[recordsLength + 1] = arenaLength;
+		records[recordsLength + 2] = 0;
+		recordsLength += RECORD_SIZE;
+	}
+
+	/**
+	 * Appends a byte to the last started value
+	 * @param b byte to append
+	 * @throws ParserFormatException if the budget is exceeded
+     */
+	void append (byte b) throws ParserFormatException {
+		if (charged() >= budget)
+			throwTooLarge();
+
+		if (arenaLength == arena.length)
+			arena = Arrays.copyOf(arena, Math.min(Math.max(arena.length * 2, 1), budget));
+
+		arena[arenaLength++] = b;
+		records[recordsLength - 1]++;
+	}
+
+	/**
+	 * Ends the last started value, which can be found from then on
+	 */
+	void end () {
+		publishedLength = recordsLength;
+	}
+
+	/**
+	 * @return length of the last started value
+     */
+	int lastLength () {
+		return records[recordsLength - 1];
+	}
+
+	boolean contains (int id) {
+		return find(id) >= 0;
+	}
+
+	/**
+	 * @param id header id
+	 * @return a copy of the header's value, null if not saved
+     */
+	byte[] getValue (int id) {
+		int record = find(id);
+
+		if (record < 0)
+			return null;
+
+		int offset = records[record + 1];
+		return Arrays.copyOfRange(arena, offset, offset + records[record + 2]);
+	}
+
+	/**
+	 * @return array holding the saved values, which is replaced as it grows
+     */
+	byte[] arena () {
+		return arena;
+	}
+
+	/**
+	 * @param id header id
+	 * @return offset of the header's value in the arena, -1 if not saved
+     */
+	int offset (int id) {
+		int record = find(id);
+		return record < 0 ? -1 : records[record + 1];
+	}
+
+	/**
+	 * @param id header id
+	 * @return length of the header's value, -1 if not saved
+     */
+	int length (int id) {
+		int record = find(id);
+		return record < 0 ? -1 : records[record + 2];
+	}
+
+	void clear () {
+		recordsLength = 0;
+		publishedLength = 0;
+		arenaLength = 0;
+	}
+
+	private int charged () {
+		return arenaLength + recordsLength / RECORD_SIZE * RECORD_BYTES;
+	}
+
+	private void throwTooLarge () throws ParserFormatException {
+		throw new ParserFormatException("Header section too large", HttpErrorCode.HEADER_FIELD_TOO_LARGE_431);
+	}
+
+	private int find (int id) {
+		for (int record = publishedLength - RECORD_SIZE; record >= 0; record -= RECORD_SIZE)
+			if (records[record] == id)
+				return record;
+
+		return -1;
+	}
+}
@@ -1,19 +1,21 @@
 package tp.pdc.proxy.parser.component;
 
-import org.apache.commons.lang3.ArrayUtils;
-
+import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.header.Header;
+import tp.pdc.proxy.header.HeaderRegistry;
 import tp.pdc.proxy.header.HttpErrorCode;
 import tp.pdc.proxy.parser.interfaces.HttpHeaderParser;
+import tp.pdc.proxy.parser.utils.ByteScanner;
 import tp.pdc.proxy.parser.utils.ParseUtils;
 import tp.pdc.proxy.properties.ProxyProperties;
 
 import java.nio.ByteBuffer;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static tp.pdc.proxy.parser.utils.AsciiConstants.*;
 
@@ -21,6 +23,15 @@ import static tp.pdc.proxy.parser.utils.AsciiConstants.*;
  * Parses a header line of an http request to get the header name and its value
  * In case some useful headers are missing, it adds them to the request.
  * And in case some headers should be removed from the request it eliminates them.
+ * Headers which depend on the whole header section are added right before it ends.
+ * <p>
+ * Unless disabled, whole lines of headers which are neither saved nor rewritten are found a word at a time
+ * with a {@link ByteScanner} and copied in bulk. The byte by byte state machine parses everything else:
+ * saved and rewritten headers, the end of the section and lines cut by the end of a buffer.
+ * <p>
+ * Saved values are streamed to the output as they are parsed and kept in a {@link HeaderIndex}, so they can be
+ * of any length within the header budget. Besides the headers asked for, the custom headers of the
+ * {@link HeaderRegistry} are saved.
  */
 public class HttpHeaderParserImpl implements HttpHeaderParser {
 
@@ -28,30 +39,48 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 		ProxyProperties.getInstance().getHeaderNameBufferSize();
 	private static final int HEADER_CONTENT_SIZE =
 		ProxyProperties.getInstance().getHeaderContentBufferSize();
-	private final Map<Header, byte[]> savedHeaders;
+	private static final int HEADER_BUDGET = ProxyProperties.getInstance().getHeaderBudget();
+	private static final boolean WORD_SCAN = ProxyProperties.getInstance().isHeaderWordScanEnabled();
+	private static final HeaderRegistry REGISTRY = HeaderRegistry.getInstance();
+	private final HeaderIndex savedHeaders;
 	private HttpHeaderState state;
 	private Header currentHeader;
-	private ByteBuffer headerName, headerValue;
+	private ByteBuffer headerName;
 	private Set<Header> headersToSave;
 	private Set<Header> headersToRemove;
 	private Map<Header, byte[]> headersToAdd;
 	private Iterator<Map.Entry<Header, byte[]>> headersToAddIterator;
 	private Map.Entry<Header, byte[]> nextToAdd;
+	private Supplier<Map<Header, byte[]>> sectionEndHeaders;
+	private Map<Header, byte[]> sectionEndToAdd;
+	private int sectionEndLength;
 	private boolean ignoring;
 	// Buffered bytes que todavía no se escribieron en outputBuffer
 	private int buffered = 0;
+	private boolean wordScan = WORD_SCAN;
 
 	public HttpHeaderParserImpl (Map<Header, byte[]> toAdd, Set<Header> toRemove,
 		Set<Header> toSave) {
+		this(toAdd, toRemove, toSave, Collections::emptyMap);
+	}
+
+	/**
+	 * @param toAdd headers added at the beginning of the section, replacing the parsed ones
+	 * @param toRemove headers removed
+	 * @param toSave headers whose values are saved
+	 * @param sectionEndHeaders headers added at the end of the section, asked for once every header was parsed
+	 */
+	public HttpHeaderParserImpl (Map<Header, byte[]> toAdd, Set<Header> toRemove,
+		Set<Header> toSave, Supplier<Map<Header, byte[]>> sectionEndHeaders) {
 		state = HttpHeaderState.ADD_HEADERS;
 		headerName = ByteBuffer.allocate(HEADER_NAME_SIZE);
-		headerValue = ByteBuffer.allocate(HEADER_CONTENT_SIZE);
-		savedHeaders = new HashMap<>();
+		savedHeaders = new HeaderIndex(HEADER_CONTENT_SIZE, HEADER_BUDGET);
 
 		this.headersToRemove = toRemove;
 		this.headersToAdd = toAdd;
 		this.headersToAddIterator = toAdd.entrySet().iterator();
 		this.headersToSave = toSave;
+		this.sectionEndHeaders = sectionEndHeaders;
 	}
 
 	private void expectByteAndOutput (byte read, byte expected, HttpHeaderState next,
@@ -72,9 +101,14 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 	@Override
 	public boolean parse (ByteBuffer inputBuffer, ByteBuffer outputBuffer)
 		throws ParserFormatException {
-		while (inputBuffer.hasRemaining() && outputBuffer.remaining() > buffered)
+		while (inputBuffer.hasRemaining() && outputBuffer.remaining() > buffered) {
+			if (wordScan && (state == HttpHeaderState.ADD_HEADERS || state == HttpHeaderState.LINE_START)
+				&& copyLines(inputBuffer, outputBuffer))
+				continue;
+
 			if (parse(inputBuffer.get(), outputBuffer))
 				return true;
+		}
 
 		if (outputBuffer.remaining() <= buffered)
 			outputBuffer.limit(outputBuffer.position()); // Así se simula que el buffer está lleno
@@ -84,6 +118,73 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 		return false;
 	}
 
+	/**
+	 * Copies, or skips if removed, the whole header lines at the start of the input which are neither saved
+	 * nor rewritten. Stops at the first line which has to be parsed byte by byte, including invalid ones.
+	 * @param input buffer to read from
+	 * @param output buffer to write to
+	 * @return true if any line was consumed
+     */
+	private boolean copyLines (ByteBuffer input, ByteBuffer output) {
+		boolean copied = false;
+
+		if (state == HttpHeaderState.ADD_HEADERS) {
+			addHeaders(output);
+			state = HttpHeaderState.LINE_START;
+		}
+
+		while (input.hasRemaining() && copyLine(input, output))
+			copied = true;
+
+		if (copied) {
+			headerName.clear();
+			buffered = 0;
+		}
+
+		return copied;
+	}
+
+	private boolean copyLine (ByteBuffer input, ByteBuffer output) {
+		int start = input.position();
+		int limit = input.limit();
+		int colon = ByteScanner.indexOf(input, start, Math.min(limit, start + HEADER_NAME_SIZE + 1), (byte) ':');
+
+		if (colon <= start)
+			return false;
+
+		for (int i = start; i < colon; i++)
+			if (!ParseUtils.isHeaderNameChar(input.get(i)))
+				return false;
+
+		int cr = ByteScanner.indexOf(input, colon + 1, limit, CR.getValue());
+
+		// at least a content byte, and the LF already read
+		if (cr < colon + 3 || cr + 1 >= limit)
+			return false;
+
+		if (input.get(colon + 1) != SP.getValue() || input.get(cr + 1) != LF.getValue()
+			|| !ByteScanner.isHeaderContent(input, colon + 2, cr))
+			return false;
+
+		int id = REGISTRY.getId(input, start, colon - start);
+		Header header = REGISTRY.getHeader(id);
+		int length = cr + 2 - start;
+
+		if (isSaved(id, header))
+			return false;
+
+		if (headersToRemove.contains(header) || headersToAdd.containsKey(header)) {
+			input.position(start + length);
+			return true;
+		}
+
+		if (output.remaining() < length)
+			return false;
+
+		BytesUtils.lengthPut(input, output, length);
+		return true;
+	}
+
 	private boolean parse (byte c, ByteBuffer output) throws ParserFormatException {
 		switch (state) {
 			case ADD_HEADERS:
@@ -93,12 +194,17 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 			case LINE_START:
 				ignoring = false;
 				if (c == CR.getValue()) {
+					// CR is held back until the headers added at the end fit along with it
+					sectionEndToAdd = sectionEndHeaders.get();
+					sectionEndLength = 2;
+
+					for (Map.Entry<Header, byte[]> header : sectionEndToAdd.entrySet())
+						sectionEndLength += headerLength(header.getKey(), header.getValue());
+
 					state = HttpHeaderState.SECTION_END_CR;
-					output.put(c);
 				} else if (ParseUtils.isHeaderNameChar(c)) {
 					// Reset
 					headerName.clear();
-					headerValue.clear();
 					currentHeader = null;
 					saveHeaderNameByte(c);
 					state = HttpHeaderState.NAME;
@@ -122,7 +228,7 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 
 			case RELEVANT_SPACE:
 				if (ParseUtils.isHeaderContentChar(c)) {
-					saveHeaderContentByte(c);
+					saveHeaderContentByte(c, output);
 					state = HttpHeaderState.RELEVANT_CONTENT;
 				} else {
 					handleError();
@@ -131,16 +237,11 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 
 			case RELEVANT_CONTENT:
 				if (c == CR.getValue()) {
-					headerValue.flip();
-					byte[] headerAux = new byte[headerValue.remaining()];
-					headerValue.get(headerAux);
-					savedHeaders.put(currentHeader, headerAux);
-
+					savedHeaders.end();
 					state = HttpHeaderState.END_LINE_CR;
-					if (!ignoring)
-						output.put(headerAux).put(CR.getValue());
+					putIfNotIgnored(c, output);
 				} else if (ParseUtils.isHeaderContentChar(c)) {
-					saveHeaderContentByte(c);
+					saveHeaderContentByte(c, output);
 				} else {
 					handleError();
 				}
@@ -175,14 +276,24 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 				break;
 
 			case SECTION_END_CR:
-				expectByteAndOutput(c, LF.getValue(), HttpHeaderState.END_OK, output);
+				if (c != LF.getValue())
+					handleError();
+
+				for (Map.Entry<Header, byte[]> header : sectionEndToAdd.entrySet())
+					putHeaderInBuffer(header.getKey(), header.getValue(), output);
+
+				output.put(CR.getValue()).put(LF.getValue());
+				state = HttpHeaderState.END_OK;
 				return true;
 
 			default:
 				throw new IllegalStateException();
 		}
 
-		buffered = headerName.position() + headerValue.position();
+		if (state == HttpHeaderState.SECTION_END_CR)
+			buffered = sectionEndLength - 1; // LF is only read once everything left fits
+		else
+			buffered = headerName.position();
 		return false;
 	}
 
@@ -192,12 +303,11 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 		headerName.put(b);
 	}
 
-	private void saveHeaderContentByte (byte b) throws ParserFormatException {
-		if (!headerValue.hasRemaining())
-			throw new ParserFormatException("Header content too long", HttpErrorCode.HEADER_FIELD_TOO_LARGE_431);
-		
-		if (headerValue.position() != 0 || !ParseUtils.isWhiteSpace(b)) // initial white spaces skipped
-			headerValue.put(b);
+	private void saveHeaderContentByte (byte b, ByteBuffer output) throws ParserFormatException {
+		if (savedHeaders.lastLength() != 0 || !ParseUtils.isWhiteSpace(b)) { // initial white spaces skipped
+			savedHeaders.append(b);
+			putIfNotIgnored(b, output);
+		}
 	}
 
 	/**
@@ -205,11 +315,10 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 	 * @param c last byte of the header
 	 * @param outputBuffer buffer to put the current header
      */
-	private void handleHeaderName (byte c, ByteBuffer outputBuffer) {
+	private void handleHeaderName (byte c, ByteBuffer outputBuffer) throws ParserFormatException {
 		headerName.flip();
-		int nameLen = headerName.remaining();
-		currentHeader = Header.getHeaderByBytes(headerName,
-			nameLen); //TODO: podría ser más optimo, pero no es determinante
+		int id = REGISTRY.getId(headerName, 0, headerName.remaining());
+		currentHeader = REGISTRY.getHeader(id);
 
 		if (headersToRemove.contains(currentHeader) || headersToAdd
 			.containsKey(currentHeader) /* gets changed */)
@@ -218,14 +327,23 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 		if (!ignoring)
 			outputBuffer.put(headerName).put(c);
 
-		if (headersToSave.contains(currentHeader) || currentHeader == Header.HOST) {
-			savedHeaders.put(currentHeader, ArrayUtils.EMPTY_BYTE_ARRAY);
+		if (isSaved(id, currentHeader)) {
+			savedHeaders.start(id);
 			state = HttpHeaderState.RELEVANT_COLON;
 		} else {
 			state = HttpHeaderState.COLON;
 		}
 	}
 
+	/**
+	 * @param id header id, -1 if unknown
+	 * @param header header with that id, null if unknown or custom
+	 * @return true if the header's value has to be saved
+     */
+	private boolean isSaved (int id, Header header) {
+		return header == null ? id >= 0 : header == Header.HOST || headersToSave.contains(header);
+	}
+
 	private void assertBufferCapacity (ByteBuffer buffer) {
 		if (buffer.capacity() < buffered)
 			throw new IllegalArgumentException("Output buffer too small");
@@ -267,8 +385,11 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 	}
 
 	private boolean headerFitsBuffer (Header header, byte[] value, ByteBuffer buffer) {
-		return buffer.remaining() >= header.getBytes().length + value.length + 4;
-		// 4: colon + SP + CR + LF
+		return buffer.remaining() >= headerLength(header, value);
+	}
+
+	private int headerLength (Header header, byte[] value) {
+		return header.getBytes().length + value.length + 4; // 4: colon + SP + CR + LF
 	}
 
 	private void putIfNotIgnored (byte c, ByteBuffer output) {
@@ -276,6 +397,14 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 			output.put(c);
 	}
 
+	/**
+	 * Enables or disables scanning a word at a time, so both ways can be compared
+	 * @param wordScan false to parse every byte through the state machine
+     */
+	void setWordScan (boolean wordScan) {
+		this.wordScan = wordScan;
+	}
+
 	@Override
 	public boolean hasFinished () {
 		return this.state == HttpHeaderState.END_OK;
@@ -284,7 +413,6 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 	@Override
 	public void reset () {
 		headerName.clear();
-		headerValue.clear();
 		savedHeaders.clear();
 		state = HttpHeaderState.ADD_HEADERS;
 		buffered = 0;
@@ -292,16 +420,53 @@ public class HttpHeaderParserImpl implements HttpHeaderParser {
 
 		headersToAddIterator = headersToAdd.entrySet().iterator();
 		nextToAdd = null;
+		sectionEndToAdd = null;
+		sectionEndLength = 0;
 	}
 
 	@Override
 	public byte[] getHeaderValue (Header header) {
-		return this.savedHeaders.get(header);
+		return this.savedHeaders.getValue(REGISTRY.getId(header));
 	}
 
 	@Override
 	public boolean hasHeaderValue (Header header) {
-		return this.savedHeaders.containsKey(header);
+		return this.savedHeaders.contains(REGISTRY.getId(header));
+	}
+
+	@Override
+	public byte[] getHeaderValue (int id) {
+		return this.savedHeaders.getValue(id);
+	}
+
+	@Override
+	public boolean hasHeaderValue (int id) {
+		return this.savedHeaders.contains(id);
+	}
+
+	/**
+	 * Gets the array holding the saved header values, which are not copied. It is only valid until the parser
+	 * goes on.
+	 * @return saved values, each at its {@link #getHeaderValueOffset(Header)}
+     */
+	public byte[] getSavedValues () {
+		return this.savedHeaders.arena();
+	}
+
+	/**
+	 * @param header saved header
+	 * @return offset of the header's value in {@link #getSavedValues()}, -1 if it doesn't have the header
+     */
+	public int getHeaderValueOffset (Header header) {
+		return this.savedHeaders.offset(REGISTRY.getId(header));
+	}
+
+	/**
+	 * @param header saved header
+	 * @return length of the header's value, -1 if it doesn't have the header
+     */
+	public int getHeaderValueLength (Header header) {
+		return this.savedHeaders.length(REGISTRY.getId(header));
 	}
 
 	private enum HttpHeaderState {
@@ -2,7 +2,6 @@ package tp.pdc.proxy.parser.component;
 
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.parser.interfaces.HttpResponseLineParser;
-import tp.pdc.proxy.parser.interfaces.HttpVersionParser;
 import tp.pdc.proxy.parser.utils.ParseUtils;
 
 import java.nio.ByteBuffer;
@@ -15,7 +14,7 @@ import static tp.pdc.proxy.parser.utils.AsciiConstants.*;
  */
 public class HttpResponseLineParserImpl implements HttpResponseLineParser {
 
-	private HttpVersionParser versionParser;
+	private HttpVersionParserImpl versionParser;
 	private int statusCode;
 	private ResponseLineState state;
 
@@ -25,6 +24,14 @@ public class HttpResponseLineParserImpl implements HttpResponseLineParser {
 		state = ResponseLineState.HTTP_VERSION;
 	}
 
+	/**
+	 * @param forwardAsHttp11 true to write an HTTP/1.0 status line as HTTP/1.1
+	 * @see HttpVersionParserImpl#setForwardAsHttp11(boolean)
+     */
+	public void setForwardAsHttp11 (boolean forwardAsHttp11) {
+		versionParser.setForwardAsHttp11(forwardAsHttp11);
+	}
+
 	@Override
 	public boolean readMinorVersion () {
 		return versionParser.readMinorVersion();
@@ -15,6 +15,7 @@ public class HttpVersionParserImpl implements HttpVersionParser {
 
 	private int minorVersion, majorVersion;
 	private boolean readMinorVersion, readMajorVersion;
+	private boolean forwardAsHttp11;
 	private byte endByte;
 	private HttpVersionState state;
 	private ByteBuffer wholeVersionBuffer;
@@ -38,10 +39,20 @@ public class HttpVersionParserImpl implements HttpVersionParser {
 	@Override
 	public void reset () {
 		majorVersion = minorVersion = 0;
+		readMajorVersion = readMinorVersion = false;
 		state = HttpVersionState.NOT_READ_YET;
 		wholeVersionBuffer.clear();
 	}
 
+	/**
+	 * Makes an HTTP/1.0 version be written as HTTP/1.1, as an intermediary forwards messages with its own version.
+	 * Versions are read as they were sent.
+	 * @param forwardAsHttp11 true to write HTTP/1.0 as HTTP/1.1
+     */
+	public void setForwardAsHttp11 (boolean forwardAsHttp11) {
+		this.forwardAsHttp11 = forwardAsHttp11;
+	}
+
 	@Override
 	public boolean readMinorVersion () {
 		return readMinorVersion;
@@ -118,11 +129,9 @@ public class HttpVersionParserImpl implements HttpVersionParser {
 
 			case MAJOR_VERSION:
 				if (ParseUtils.isDigit(b)) {
-					if (readMajorVersion || b != (byte) '0') { // No es cero a la izquierda
-						readMajorVersion = true;
-						majorVersion *= 10;
-						majorVersion += (b - (byte) '0');
-					}
+					readMajorVersion = true; // Ceros a la izquierda no suman
+					majorVersion *= 10;
+					majorVersion += (b - (byte) '0');
 					outputBuffer.put(b);
 				} else if (b == (byte) '.' && majorVersion != 0) {
 					state = HttpVersionState.MINOR_VERSION;
@@ -134,12 +143,11 @@ public class HttpVersionParserImpl implements HttpVersionParser {
 
 			case MINOR_VERSION:
 				if (ParseUtils.isDigit(b)) {
-					if (readMinorVersion || b != (byte) '0') { // No es cero a la izquierda
-						readMinorVersion = true;
-						minorVersion *= 10;
-						minorVersion += (b - (byte) '0');
-					}
-					outputBuffer.put(b);
+					boolean rewrite = forwardAsHttp11 && !readMinorVersion && majorVersion == 1 && b == '0';
+					readMinorVersion = true; // Ceros a la izquierda no suman
+					minorVersion *= 10;
+					minorVersion += (b - (byte) '0');
+					outputBuffer.put(rewrite ? (byte) '1' : b);
 				} else if (b == endByte) {
 					state = HttpVersionState.READ_OK;
 					outputBuffer.put(b);
@@ -1,6 +1,10 @@
 package tp.pdc.proxy.parser.encoders;
 
+import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.parser.interfaces.l33tEncoder;
+import tp.pdc.proxy.parser.utils.ByteScanner;
+
+import java.nio.ByteBuffer;
 
 /**
  * L33t Encoder
@@ -10,14 +14,20 @@ import tp.pdc.proxy.parser.interfaces.l33tEncoder;
  * 'i' to 1<br>
  * 'o' to 0<br>
  * 'c' to <
+ * <p>
+ * Bytes are mapped one to one, so ranges can be encoded in bulk, either while copying them or in place.
  */
 public class StaticL33tEncoder implements l33tEncoder {
+	private static final byte[] MAPPED = {'a', 'e', 'i', 'o', 'c'};
+	private static final long ONES = 0x0101010101010101L;
 	private static byte[] encode;
 	private static byte[] decode;
+	private static byte[] encodeUnsigned; // encode indexed by unsigned byte, non ASCII bytes are left as is
 
 	static {
 		encode = new byte[128];
 		decode = new byte[128];
+		encodeUnsigned = new byte[256];
 		for (int c = 0; c < 128; c++) {
 			switch (c) {
 				case 'a':
@@ -59,6 +69,9 @@ public class StaticL33tEncoder implements l33tEncoder {
 					decode[c] = (byte) c;
 			}
 		}
+
+		for (int c = 0; c < 256; c++)
+			encodeUnsigned[c] = encodeByte((byte) c);
 	}
 
 	public static byte encodeByte (byte c) {
@@ -68,5 +81,75 @@ public class StaticL33tEncoder implements l33tEncoder {
 	public static byte decodeByte (byte c) {
 		return c > 0 ? decode[c] : c;
 	}
+
+	/**
+	 * Copies bytes from one buffer to another encoding them, advancing both buffers' positions
+	 * @param input buffer to read from
+	 * @param output buffer to write to
+	 * @param length amount of bytes to encode, at most the remaining bytes of both buffers
+	 */
+	public static void encode (ByteBuffer input, ByteBuffer output, int length) {
+		if (input.hasArray() && output.hasArray()) {
+			encode(input.array(), input.arrayOffset() + input.position(),
+				output.array(), output.arrayOffset() + output.position(), length);
+			input.position(input.position() + length);
+			output.position(output.position() + length);
+		} else {
+			int start = output.position();
+			BytesUtils.lengthPut(input, output, length);
+			encode(output, start, start + length);
+		}
+	}
+
+	/**
+	 * Encodes a range of a buffer in place, leaving its position untouched. Direct buffers are read a word,
+	 * eight bytes, at a time, and only words holding a mapped letter are written back.
+	 * @param buffer buffer to encode
+	 * @param from absolute index to start at, inclusive
+	 * @param to absolute index to stop at, exclusive
+	 */
+	public static void encode (ByteBuffer buffer, int from, int to) {
+		if (buffer.hasArray()) {
+			byte[] array = buffer.array();
+			int offset = buffer.arrayOffset();
+			encode(array, offset + from, array, offset + from, to - from);
+			return;
+		}
+
+		int i = from;
+
+		for (; i + Long.BYTES <= to; i += Long.BYTES) {
+			long word = buffer.getLong(i);
+			long encoded = encodeWord(word);
+
+			if (encoded != word)
+				buffer.putLong(i, encoded);
+		}
+
+		for (; i < to; i++)
+			buffer.put(i, encodeByte(buffer.get(i)));
+	}
+
+	private static void encode (byte[] input, int inputOffset, byte[] output, int outputOffset, int length) {
+		for (int i = 0; i < length; i++)
+			output[outputOffset + i] = encodeUnsigned[input[inputOffset + i] & 0xFF];
+	}
+
+	/**
+	 * Replaces the bytes of a word matching each mapped letter at once. Bytes keep their place, so the
+	 * buffer's byte order doesn't matter.
+	 */
+	private static long encodeWord (long word) {
+		long encoded = word;
+
+		for (byte letter : MAPPED) {
+			long mask = ByteScanner.byteMask(word, letter);
+
+			if (mask != 0)
+				encoded = (encoded & ~mask) | (ONES * encode[letter] & mask);
+		}
+
+		return encoded;
+	}
 }
 
@@ -28,7 +28,7 @@ public class HttpBodyParserFactory {
 
 	private final HttpNoBodyParser noBodyParser = HttpNoBodyParser.getInstance();
 	private final L33tFlag l33tFlag = L33tFlag.getInstance();
-	private final CharsetParser charsetParser = new CharsetParser();
+	private final ThreadLocal<CharsetParser> charsetParser = ThreadLocal.withInitial(CharsetParser::new);
 	private final List<byte[]> acceptedCharsets = PROPERTIES.getAcceptedCharsets();
 
 	private HttpBodyParserFactory () {
@@ -59,24 +59,51 @@ public class HttpBodyParserFactory {
 		return parser;
 	}
 
-	public HttpBodyParser getServerHttpBodyParser (HttpResponseParser headersParser, Method method)
-		throws ParserFormatException {
-		if (method != Method.HEAD && isBodyStatusCode(headersParser.getStatusCode()))
-			return buildServerBodyParser(headersParser);
+	/**
+	 * Builds the parser of a response's body
+	 * @param headersParser parsed response head
+	 * @param method method the client requested
+	 * @param acceptsChunked whether the client understands chunked bodies
+	 * @return body parser
+	 * @throws ParserFormatException if the response's length is invalid
+	 */
+	public HttpBodyParser getServerHttpBodyParser (HttpResponseParser headersParser, Method method,
+		boolean acceptsChunked) throws ParserFormatException {
+		if (hasBody(headersParser, method))
+			return buildServerBodyParser(headersParser, acceptsChunked);
 		return noBodyParser;
 	}
 
+	/**
+	 * Checks if a response's body is delimited by the server closing the connection and re-framed as chunked.
+	 * Only asked once every header was parsed.
+	 * @param headersParser parsed response head
+	 * @param method method the client requested
+	 * @param acceptsChunked whether the client understands chunked bodies
+	 * @return true if the body is re-framed as chunked
+	 */
+	public boolean isReframedAsChunked (HttpResponseParser headersParser, Method method, boolean acceptsChunked) {
+		return acceptsChunked && hasBody(headersParser, method) && !hasContentLength(headersParser)
+			&& !headersParser.hasHeaderValue(Header.TRANSFER_ENCODING);
+	}
+
+	private boolean hasBody (HttpResponseParser headersParser, Method method) {
+		return method != Method.HEAD && isBodyStatusCode(headersParser.getStatusCode());
+	}
+
 	// No body responses: 1xx, 204 or 304
 	private boolean isBodyStatusCode (int statusCode) {
 		return statusCode / 100 != 1 && statusCode != 204 && statusCode != 304;
 	}
 
-	private HttpBodyParser buildServerBodyParser (HttpHeaderParser headersParser)
+	private HttpBodyParser buildServerBodyParser (HttpHeaderParser headersParser, boolean acceptsChunked)
 		throws ParserFormatException {
 		HttpBodyParser parser = buildBodyParser(headersParser);
 
 		if (parser == null) {
-			if (shouldL33t(headersParser))
+			if (acceptsChunked && !headersParser.hasHeaderValue(Header.TRANSFER_ENCODING))
+				return new HttpConnectionCloseChunkedParser(shouldL33t(headersParser));
+			else if (shouldL33t(headersParser))
 				return HttpConnectionCloseL33tParser.getInstance();
 			else
 				return HttpConnectionCloseParser.getInstance();
@@ -127,7 +154,7 @@ public class HttpBodyParserFactory {
 			final byte[] contentTypeValue = headersParser.getHeaderValue(Header.CONTENT_TYPE);
 
 			return BytesUtils.equalsBytes(contentTypeValue, textPlain, textPlain.length)
-				&& isAcceptedCharset(charsetParser.extractCharset(contentTypeValue))
+				&& isAcceptedCharset(charsetParser.get().extractCharset(contentTypeValue))
 				&& noEncoding(headersParser);
 		}
 
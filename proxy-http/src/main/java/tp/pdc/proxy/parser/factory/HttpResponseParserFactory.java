@@ -25,7 +25,7 @@ public class HttpResponseParserFactory {
 		toAdd.put(Header.CONNECTION, HeaderValue.KEEP_ALIVE.getValue());
 
 		toSave = EnumSet.of(Header.CONNECTION, Header.CONTENT_LENGTH, Header.TRANSFER_ENCODING,
-			Header.CONTENT_TYPE, Header.SERVER, Header.CONTENT_ENCODING);
+			Header.CONTENT_TYPE, Header.SERVER, Header.CONTENT_ENCODING, Header.KEEP_ALIVE);
 	}
 
 	public static HttpResponseParserFactory getInstance () {
@@ -1,5 +1,26 @@
 package tp.pdc.proxy.parser.interfaces;
 
-public interface HttpBodyParser extends Parser {
+/**
+ * Parses a body. Bodies are parsed unless the parser states they can be passed through untransformed.
+ */
+public interface HttpBodyParser extends Parser, PassThroughParser {
 
+	@Override
+	default int getPassThroughBytes () {
+		return 0;
+	}
+
+	@Override
+	default void passThrough (int bytes) {
+		if (bytes != 0)
+			throw new IllegalArgumentException("Body parser lets no bytes pass through");
+	}
+
+	/**
+	 * Signals the body's input ended, as the connection was closed
+	 * @return true if the parser ends the body on it, writing what is left on the following parse
+	 */
+	default boolean signalEndOfInput () {
+		return false;
+	}
 }
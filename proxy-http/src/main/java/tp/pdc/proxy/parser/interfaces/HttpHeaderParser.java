@@ -19,4 +19,18 @@ public interface HttpHeaderParser extends Parser, Reseteable {
 	 * @return header value
      */
 	byte[] getHeaderValue (Header header);
+
+	/**
+	 * Checks if a request or response has a header value, custom headers included
+	 * @param id header id, as given by {@link tp.pdc.proxy.header.HeaderRegistry}
+	 * @return true if it has the header, false if not
+     */
+	boolean hasHeaderValue (int id);
+
+	/**
+	 * Gets a header value, custom headers included
+	 * @param id header id, as given by {@link tp.pdc.proxy.header.HeaderRegistry}
+	 * @return header value, null if it doesn't have the header
+     */
+	byte[] getHeaderValue (int id);
 }
@@ -3,7 +3,7 @@ package tp.pdc.proxy.parser.interfaces;
 /**
  * Parses an HTTP request
  */
-public interface HttpRequestParser extends HttpHeaderParser, HttpRequestLineParser {
+public interface HttpRequestParser extends HttpHeaderParser, HttpRequestLineParser, PassThroughParser {
 	/**
 	 * Checks is the first line of the request has finished
 	 * @return true if it has finished, false if not
@@ -15,4 +15,20 @@ public interface HttpRequestParser extends HttpHeaderParser, HttpRequestLinePars
 	 * @return true if there are no more headers, false if not
      */
 	public boolean hasHeadersFinished ();
+
+	/**
+	 * Gets the array holding the host value, which is not copied. It is only valid until the parser goes on.
+	 * @return array holding the host at {@link #getHostOffset()}
+     */
+	public byte[] getHostArray ();
+
+	/**
+	 * @return offset of the host value in {@link #getHostArray()}
+     */
+	public int getHostOffset ();
+
+	/**
+	 * @return length of the host value
+     */
+	public int getHostLength ();
 }
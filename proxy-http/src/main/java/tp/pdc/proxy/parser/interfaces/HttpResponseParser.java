@@ -5,7 +5,7 @@ import tp.pdc.proxy.header.Method;
 /**
  * Parses an HTTP response
  */
-public interface HttpResponseParser extends HttpResponseLineParser, HttpHeaderParser {
+public interface HttpResponseParser extends HttpResponseLineParser, HttpHeaderParser, PassThroughParser {
 	/**
 	 * Checks if there are no more headers
 	 * @return true if there are no more headers, false if not
@@ -17,4 +17,28 @@ public interface HttpResponseParser extends HttpResponseLineParser, HttpHeaderPa
 	 * @param clientMethod client method to set
      */
 	void setClientMethod (Method clientMethod);
+
+	/**
+	 * Sets whether the client understands chunked bodies, so close delimited bodies are re-framed as chunked
+	 * @param acceptsChunked true if the client speaks HTTP/1.1 or later
+     */
+	void setClientAcceptsChunked (boolean acceptsChunked);
+
+	/**
+	 * Signals the response's input ended, as the server closed the connection
+	 * @return true if the response goes on until the body parser ends it, false if it ends right away
+     */
+	boolean signalEndOfInput ();
+
+	/**
+	 * Gets the timeout parameter of the Keep-Alive header: how long the server keeps the connection idle
+	 * @return timeout in seconds, -1 if the server did not send it
+     */
+	int getKeepAliveTimeout ();
+
+	/**
+	 * Gets the max parameter of the Keep-Alive header: how many more requests the server takes on the connection
+	 * @return remaining requests, -1 if the server did not send it
+     */
+	int getKeepAliveMax ();
 }
@@ -0,0 +1,20 @@
+package tp.pdc.proxy.parser.interfaces;
+
+/**
+ * Parser which can let bytes bypass it. Those bytes are moved by the caller straight to where the parser
+ * would have put them, and the parser only accounts for them.
+ */
+public interface PassThroughParser {
+
+	/**
+	 * Gets how many of the next bytes may bypass the parser
+	 * @return amount of bytes, 0 if every byte must be parsed
+     */
+	int getPassThroughBytes ();
+
+	/**
+	 * Accounts for bytes which bypassed the parser
+	 * @param bytes amount of bytes, not greater than {@link #getPassThroughBytes()}
+     */
+	void passThrough (int bytes);
+}
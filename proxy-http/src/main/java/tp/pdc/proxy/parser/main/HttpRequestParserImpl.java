@@ -8,7 +8,6 @@ import tp.pdc.proxy.parser.component.HttpHeaderParserImpl;
 import tp.pdc.proxy.parser.component.HttpRequestLineParserImpl;
 import tp.pdc.proxy.parser.factory.HttpBodyParserFactory;
 import tp.pdc.proxy.parser.interfaces.HttpBodyParser;
-import tp.pdc.proxy.parser.interfaces.HttpHeaderParser;
 import tp.pdc.proxy.parser.interfaces.HttpRequestLineParser;
 import tp.pdc.proxy.parser.interfaces.HttpRequestParser;
 
@@ -23,7 +22,7 @@ public class HttpRequestParserImpl implements HttpRequestParser {
 		HttpBodyParserFactory.getInstance();
 
 	private HttpRequestLineParser requestLineParser;
-	private HttpHeaderParser headersParser;
+	private HttpHeaderParserImpl headersParser;
 	private HttpBodyParser bodyParser;
 
 	public HttpRequestParserImpl (Map<Header, byte[]> toAdd, Set<Header> toRemove,
@@ -43,6 +42,16 @@ public class HttpRequestParserImpl implements HttpRequestParser {
 		return headersParser.getHeaderValue(header);
 	}
 
+	@Override
+	public boolean hasHeaderValue (int id) {
+		return headersParser.hasHeaderValue(id);
+	}
+
+	@Override
+	public byte[] getHeaderValue (int id) {
+		return headersParser.getHeaderValue(id);
+	}
+
 	@Override
 	public byte[] getHostValue () {
 		if (!hasHost())
@@ -53,6 +62,32 @@ public class HttpRequestParserImpl implements HttpRequestParser {
 			return headersParser.getHeaderValue(Header.HOST);
 	}
 
+	@Override
+	public byte[] getHostArray () {
+		if (!hasHost())
+			throw new NoSuchElementException("Host not read yet");
+		if (requestLineParser.hasHost())
+			return requestLineParser.getHostValue();
+		else
+			return headersParser.getSavedValues();
+	}
+
+	@Override
+	public int getHostOffset () {
+		if (requestLineParser.hasHost())
+			return 0;
+		else
+			return headersParser.getHeaderValueOffset(Header.HOST);
+	}
+
+	@Override
+	public int getHostLength () {
+		if (requestLineParser.hasHost())
+			return requestLineParser.getHostValue().length;
+		else
+			return headersParser.getHeaderValueLength(Header.HOST);
+	}
+
 	@Override
 	public byte[] getWholeRequestLine () {
 		return requestLineParser.getWholeRequestLine();
@@ -146,4 +181,17 @@ public class HttpRequestParserImpl implements HttpRequestParser {
 	public byte[] getWholeVersionBytes () {
 		return requestLineParser.getWholeVersionBytes();
 	}
+
+	/**
+	 * Body bytes may bypass the parser once headers are parsed, if the body parser allows it
+	 */
+	@Override
+	public int getPassThroughBytes () {
+		return hasHeadersFinished() ? bodyParser.getPassThroughBytes() : 0;
+	}
+
+	@Override
+	public void passThrough (int bytes) {
+		bodyParser.passThrough(bytes);
+	}
 }
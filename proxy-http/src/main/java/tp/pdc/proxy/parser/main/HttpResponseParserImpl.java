@@ -2,6 +2,7 @@ package tp.pdc.proxy.parser.main;
 
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.header.Header;
+import tp.pdc.proxy.header.HeaderValue;
 import tp.pdc.proxy.header.Method;
 import tp.pdc.proxy.parser.body.HttpNullBodyParser;
 import tp.pdc.proxy.parser.component.HttpHeaderParserImpl;
@@ -9,10 +10,12 @@ import tp.pdc.proxy.parser.component.HttpResponseLineParserImpl;
 import tp.pdc.proxy.parser.factory.HttpBodyParserFactory;
 import tp.pdc.proxy.parser.interfaces.HttpBodyParser;
 import tp.pdc.proxy.parser.interfaces.HttpHeaderParser;
-import tp.pdc.proxy.parser.interfaces.HttpResponseLineParser;
 import tp.pdc.proxy.parser.interfaces.HttpResponseParser;
+import tp.pdc.proxy.parser.utils.ParseUtils;
+import tp.pdc.proxy.properties.ProxyProperties;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -21,16 +24,22 @@ public class HttpResponseParserImpl implements HttpResponseParser {
 
 	private static final HttpBodyParserFactory BODY_PARSER_FACTORY =
 		HttpBodyParserFactory.getInstance();
+	private static final byte[] TIMEOUT = "timeout".getBytes(ProxyProperties.getInstance().getCharset());
+	private static final byte[] MAX = "max".getBytes(ProxyProperties.getInstance().getCharset());
+	private static final Map<Header, byte[]> CHUNKED =
+		Collections.singletonMap(Header.TRANSFER_ENCODING, HeaderValue.CHUNKED.getValue());
 
-	private HttpResponseLineParser lineParser;
+	private HttpResponseLineParserImpl lineParser;
 	private HttpHeaderParser headerParser;
 	private HttpBodyParser bodyParser = HttpNullBodyParser.getInstance();
 	private Method clientMethod;
+	private boolean clientAcceptsChunked;
+	private boolean inputEnded;
 
 	public HttpResponseParserImpl (Map<Header, byte[]> toAdd, Set<Header> toRemove,
 		Set<Header> toSave, Method clientMethod) {
 		lineParser = new HttpResponseLineParserImpl();
-		headerParser = new HttpHeaderParserImpl(toAdd, toRemove, toSave);
+		headerParser = new HttpHeaderParserImpl(toAdd, toRemove, toSave, this::sectionEndHeaders);
 		this.clientMethod = clientMethod;
 	}
 
@@ -55,7 +64,7 @@ public class HttpResponseParserImpl implements HttpResponseParser {
 			} else if (!headerParser.hasFinished()) {
 
 				if (headerParser.parse(input, output)) {
-					bodyParser = BODY_PARSER_FACTORY.getServerHttpBodyParser(this, clientMethod);
+					bodyParser = BODY_PARSER_FACTORY.getServerHttpBodyParser(this, clientMethod, clientAcceptsChunked);
 					return bodyParser.parse(input, output);
 				}
 			} else if (!bodyParser.hasFinished()) {
@@ -67,9 +76,23 @@ public class HttpResponseParserImpl implements HttpResponseParser {
 			}
 		}
 
+		// Once the input ended the body parser may still have something to write
+		if (inputEnded && headerParser.hasFinished() && !bodyParser.hasFinished() && !input.hasRemaining())
+			return bodyParser.parse(input, output);
+
 		return false;
 	}
 
+	/**
+	 * A close delimited body is re-framed as chunked for clients which understand it
+	 */
+	private Map<Header, byte[]> sectionEndHeaders () {
+		if (BODY_PARSER_FACTORY.isReframedAsChunked(this, clientMethod, clientAcceptsChunked))
+			return CHUNKED;
+
+		return Collections.emptyMap();
+	}
+
 	@Override
 	public boolean hasFinished () {
 		return lineParser.hasFinished() && headerParser.hasFinished() && bodyParser.hasFinished();
@@ -81,6 +104,8 @@ public class HttpResponseParserImpl implements HttpResponseParser {
 		headerParser.reset();
 		bodyParser = HttpNullBodyParser.getInstance();
 		clientMethod = null;
+		setClientAcceptsChunked(false);
+		inputEnded = false;
 	}
 
 	@Override
@@ -93,6 +118,16 @@ public class HttpResponseParserImpl implements HttpResponseParser {
 		return headerParser.getHeaderValue(header);
 	}
 
+	@Override
+	public boolean hasHeaderValue (int id) {
+		return headerParser.hasHeaderValue(id);
+	}
+
+	@Override
+	public byte[] getHeaderValue (int id) {
+		return headerParser.getHeaderValue(id);
+	}
+
 	@Override
 	public boolean readMinorVersion () {
 		return lineParser.readMinorVersion();
@@ -127,4 +162,50 @@ public class HttpResponseParserImpl implements HttpResponseParser {
 	public void setClientMethod (Method clientMethod) {
 		this.clientMethod = clientMethod;
 	}
+
+	/**
+	 * Clients which understand chunked bodies get HTTP/1.1 status lines, as close delimited bodies may be
+	 * re-framed as chunked once headers are parsed, after the status line was written
+	 */
+	@Override
+	public void setClientAcceptsChunked (boolean acceptsChunked) {
+		this.clientAcceptsChunked = acceptsChunked;
+		lineParser.setForwardAsHttp11(acceptsChunked);
+	}
+
+	@Override
+	public int getKeepAliveTimeout () {
+		return getKeepAliveParameter(TIMEOUT);
+	}
+
+	@Override
+	public int getKeepAliveMax () {
+		return getKeepAliveParameter(MAX);
+	}
+
+	private int getKeepAliveParameter (byte[] name) {
+		if (!hasHeaderValue(Header.KEEP_ALIVE))
+			return -1;
+
+		return ParseUtils.parseParameter(getHeaderValue(Header.KEEP_ALIVE), name);
+	}
+
+	@Override
+	public boolean signalEndOfInput () {
+		inputEnded = true;
+		return hasHeadersFinished() && bodyParser.signalEndOfInput();
+	}
+
+	/**
+	 * Body bytes may bypass the parser once headers are parsed, if the body parser allows it
+	 */
+	@Override
+	public int getPassThroughBytes () {
+		return hasHeadersFinished() ? bodyParser.getPassThroughBytes() : 0;
+	}
+
+	@Override
+	public void passThrough (int bytes) {
+		bodyParser.passThrough(bytes);
+	}
 }
@@ -2,6 +2,7 @@ package tp.pdc.proxy.parser.protocol;
 
 import tp.pdc.proxy.bytes.ByteBufferFactory;
 import tp.pdc.proxy.bytes.BytesUtils;
+import tp.pdc.proxy.connection.PoolEvent;
 import tp.pdc.proxy.flag.L33tFlag;
 import tp.pdc.proxy.header.Method;
 import tp.pdc.proxy.header.protocol.PopisHeader;
@@ -9,9 +10,11 @@ import tp.pdc.proxy.metric.interfaces.ClientMetric;
 import tp.pdc.proxy.metric.interfaces.ServerMetric;
 import tp.pdc.proxy.parser.utils.ParseUtils;
 import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.time.TimeoutType;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Map;
 import java.util.Set;
 
 import static tp.pdc.proxy.parser.utils.AsciiConstants.*;
@@ -104,6 +107,83 @@ public class PopisOutputGenerator {
 				putValue(serverConnections, output);
 				break;
 
+			case DNS_CACHE_HITS:
+
+				long dnsCacheHits = serverMetrics.getDnsCacheHits();
+				putValue(dnsCacheHits, output);
+				break;
+
+			case DNS_CACHE_MISSES:
+
+				long dnsCacheMisses = serverMetrics.getDnsCacheMisses();
+				putValue(dnsCacheMisses, output);
+				break;
+
+			case POOL_HITS:
+
+				putValue(serverMetrics.getPoolEvents(PoolEvent.HIT), output);
+				break;
+
+			case POOL_MISSES:
+
+				putValue(serverMetrics.getPoolEvents(PoolEvent.MISS), output);
+				break;
+
+			case POOL_EVICTIONS:
+
+				putValue(serverMetrics.getPoolEvents(PoolEvent.EVICTION), output);
+				break;
+
+			case POOL_STALE_DISCARDS:
+
+				putValue(serverMetrics.getPoolEvents(PoolEvent.STALE_DISCARD), output);
+				break;
+
+			case REQUEST_RETRIES:
+
+				putValue(serverMetrics.getRequestRetries(), output);
+				break;
+
+			case QUEUE_DEPTH:
+
+				putValue(serverMetrics.getQueueDepth(), output);
+				break;
+
+			case QUEUE_WAIT_AVG:
+
+				putValue(serverMetrics.getQueueWaitAverage(), output);
+				break;
+
+			case QUEUE_REJECTIONS:
+
+				putValue(serverMetrics.getQueueRejections(), output);
+				break;
+
+			case HEADER_READ_TIMEOUTS:
+
+				putValue(clientMetrics.getTimeouts(TimeoutType.HEADER_READ), output);
+				break;
+
+			case BODY_READ_TIMEOUTS:
+
+				putValue(clientMetrics.getTimeouts(TimeoutType.BODY_READ), output);
+				break;
+
+			case CONNECT_TIMEOUTS:
+
+				putValue(serverMetrics.getTimeouts(TimeoutType.UPSTREAM_CONNECT), output);
+				break;
+
+			case FIRST_BYTE_TIMEOUTS:
+
+				putValue(serverMetrics.getTimeouts(TimeoutType.FIRST_BYTE), output);
+				break;
+
+			case KEEPALIVE_TIMEOUTS:
+
+				putValue(clientMetrics.getTimeouts(TimeoutType.IDLE_KEEPALIVE), output);
+				break;
+
 			case SET_PROXY_BUF_SIZE:
 				break;
 
@@ -113,6 +193,26 @@ public class PopisOutputGenerator {
 			case STATUS_CODE_COUNT:
 				break;
 
+			case BUFFER_SIZES:
+				putCRLF(output);
+				putDistribution(BUFFER_FACTORY.getBufferSizeDistribution(), output);
+				return;
+
+			case CLIENT_READS_WAKEUP:
+				putCRLF(output);
+				putDistribution(clientMetrics.getReadsPerWakeup(), output);
+				return;
+
+			case SERVER_READS_WAKEUP:
+				putCRLF(output);
+				putDistribution(serverMetrics.getReadsPerWakeup(), output);
+				return;
+
+			case WARM_POOL:
+				putCRLF(output);
+				putWarmPool(serverMetrics.getWarmConnections(), output);
+				return;
+
 			case METRICS:
 				addAllMetrics(output);
 				break;
@@ -342,6 +442,36 @@ public class PopisOutputGenerator {
 		}
 	}
 
+	/**
+	 * Puts a distribution, such as how many proxy buffers of each size are in use, one line per entry
+	 * @param distribution map from value to count
+	 * @param output output buffer
+     */
+	private void putDistribution (Map<Integer, Long> distribution, ByteBuffer output) {
+		putArgCount(distribution.size(), output);
+
+		for (Map.Entry<Integer, Long> entry : distribution.entrySet()) {
+			putField(entry.getKey(), output);
+			putValue(entry.getValue(), output);
+			putCRLF(output);
+		}
+	}
+
+	/**
+	 * Puts the idle connections kept to each warm destination, one line per destination
+	 * @param warmConnections map from destination to idle connections
+	 * @param output output buffer
+     */
+	private void putWarmPool (Map<String, Long> warmConnections, ByteBuffer output) {
+		putArgCount(warmConnections.size(), output);
+
+		for (Map.Entry<String, Long> entry : warmConnections.entrySet()) {
+			putField(entry.getKey().getBytes(charset), output);
+			putValue(entry.getValue(), output);
+			putCRLF(output);
+		}
+	}
+
 	private void lengthPut (ByteBuffer input, ByteBuffer output, int length) {
 		BytesUtils.lengthPut(input, output, length);
 	}
@@ -0,0 +1,102 @@
+package tp.pdc.proxy.parser.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Scans buffers a word, eight bytes, at a time. Words are read with absolute {@link ByteBuffer#getLong(int)},
+ * so heap and direct buffers are handled alike and the buffers' positions are left untouched.
+ * Bytes not filling a whole word are scanned one by one.
+ */
+public final class ByteScanner {
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long PRINTABLE_OFFSET = 0x6060606060606060L; // 0x20 + 0x60 sets the high bit
+
+	private ByteScanner () {
+	}
+
+	/**
+	 * Finds the first occurrence of a byte
+	 * @param buffer buffer to scan
+	 * @param from absolute index to start at, inclusive
+	 * @param to absolute index to stop at, exclusive
+	 * @param value byte to find
+	 * @return absolute index of the byte, -1 if not found
+     */
+	public static int indexOf (ByteBuffer buffer, int from, int to, byte value) {
+		long pattern = ONES * (value & 0xFF);
+		boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+		int i = from;
+
+		for (; i + Long.BYTES <= to; i += Long.BYTES) {
+			long matches = zeroBytes(buffer.getLong(i) ^ pattern);
+
+			if (matches != 0)
+				return i + firstByte(matches, bigEndian);
+		}
+
+		for (; i < to; i++)
+			if (buffer.get(i) == value)
+				return i;
+
+		return -1;
+	}
+
+	/**
+	 * Checks if every byte in a range is a header content char, as {@link ParseUtils#isHeaderContentChar(byte)}
+	 * @param buffer buffer to scan
+	 * @param from absolute index to start at, inclusive
+	 * @param to absolute index to stop at, exclusive
+	 * @return true if every byte is valid header content
+     */
+	public static boolean isHeaderContent (ByteBuffer buffer, int from, int to) {
+		int i = from;
+
+		for (; i + Long.BYTES <= to; i += Long.BYTES)
+			if (!isPrintable(buffer.getLong(i)) && !isHeaderContentBytes(buffer, i, i + Long.BYTES))
+				return false;
+
+		return isHeaderContentBytes(buffer, i, to);
+	}
+
+	/**
+	 * Masks the bytes of a word equal to a value
+	 * @param word word to check
+	 * @param value byte to match
+	 * @return word whose bytes are 0xFF where the word's are equal to the value, and 0 elsewhere
+     */
+	public static long byteMask (long word, byte value) {
+		return (zeroBytes(word ^ (ONES * (value & 0xFF))) >>> 7) * 0xFF;
+	}
+
+	private static boolean isHeaderContentBytes (ByteBuffer buffer, int from, int to) {
+		for (int i = from; i < to; i++)
+			if (!ParseUtils.isHeaderContentChar(buffer.get(i)))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Sets the high bit of every zero byte of a word, and only of those
+	 */
+	private static long zeroBytes (long word) {
+		return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+	}
+
+	/**
+	 * Checks if every byte of a word is printable ASCII, from SP to '~'. Once the high bits are known to be
+	 * clear, adding to each byte can't carry into the next one.
+	 */
+	private static boolean isPrintable (long word) {
+		return (word & HIGH_BITS) == 0
+			&& ((word + PRINTABLE_OFFSET) & HIGH_BITS) == HIGH_BITS // no byte below SP
+			&& ((word + ONES) & HIGH_BITS) == 0; // no DEL
+	}
+
+	private static int firstByte (long matches, boolean bigEndian) {
+		return (bigEndian ? Long.numberOfLeadingZeros(matches) : Long.numberOfTrailingZeros(matches)) >>> 3;
+	}
+}
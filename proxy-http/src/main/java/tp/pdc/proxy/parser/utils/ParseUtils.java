@@ -1,5 +1,8 @@
 package tp.pdc.proxy.parser.utils;
 
+import tp.pdc.proxy.header.HeaderValue;
+import tp.pdc.proxy.parser.interfaces.HttpVersionParser;
+
 import java.nio.ByteBuffer;
 
 import static tp.pdc.proxy.parser.utils.AsciiConstants.*;
@@ -164,4 +167,124 @@ public final class ParseUtils {
 
 		return length;
 	}
+
+	/**
+	 * Checks if a comma separated header value, such as Connection's, lists a token.
+	 * Tokens are compared ignoring case and surrounding whitespace.
+	 * @param list header value
+	 * @param token token to find, in lowercase
+	 * @return true if the token is listed
+	 */
+	public static boolean containsToken (byte[] list, byte[] token) {
+		int start = 0;
+
+		while (start <= list.length) {
+			int end = start;
+
+			while (end < list.length && list[end] != ',')
+				end++;
+
+			int from = start, to = end;
+
+			while (from < to && isWhiteSpace(list[from]))
+				from++;
+
+			while (to > from && isWhiteSpace(list[to - 1]))
+				to--;
+
+			if (to - from == token.length && equalsIgnoreCase(list, from, token))
+				return true;
+
+			start = end + 1;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gets a numeric parameter of a comma separated header value, such as Keep-Alive's timeout=5, max=100.
+	 * Parameter names are compared ignoring case.
+	 * @param list header value
+	 * @param name parameter name, in lowercase
+	 * @return parameter value, -1 if absent or not a number
+	 */
+	public static int parseParameter (byte[] list, byte[] name) {
+		int start = 0;
+
+		while (start < list.length) {
+			int end = start;
+
+			while (end < list.length && list[end] != ',')
+				end++;
+
+			int from = start;
+
+			while (from < end && isWhiteSpace(list[from]))
+				from++;
+
+			int valueStart = from + name.length + 1;
+
+			if (valueStart <= end && equalsIgnoreCase(list, from, name) && list[valueStart - 1] == '=') {
+				int valueEnd = end;
+
+				while (valueEnd > valueStart && isWhiteSpace(list[valueEnd - 1]))
+					valueEnd--;
+
+				try {
+					return valueEnd == valueStart ? -1 : parseInt(list, valueStart, valueEnd - valueStart);
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+
+			start = end + 1;
+		}
+
+		return -1;
+	}
+
+	private static boolean equalsIgnoreCase (byte[] arr, int offset, byte[] lowercase) {
+		for (int i = 0; i < lowercase.length; i++) {
+			byte c = arr[offset + i];
+
+			if (c >= 'A' && c <= 'Z')
+				c += 'a' - 'A';
+
+			if (c != lowercase[i])
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Decides whether a connection persists after a message. A close token always closes it and a keep-alive
+	 * token keeps it, otherwise HTTP/1.1 and later persist by default while HTTP/1.0 closes.
+	 * @param version parsed version of the message
+	 * @param connection Connection header value, null if absent
+	 * @return true if the connection persists
+	 */
+	public static boolean isPersistentConnection (HttpVersionParser version, byte[] connection) {
+		if (connection != null) {
+			if (containsToken(connection, HeaderValue.CLOSE.getValue()))
+				return false;
+			if (containsToken(connection, HeaderValue.KEEP_ALIVE.getValue()))
+				return true;
+		}
+
+		return isHttp11OrLater(version);
+	}
+
+	/**
+	 * Checks if a parsed version is HTTP/1.1 or later
+	 * @param version parsed version of the message
+	 * @return true if the version was read and is at least 1.1
+	 */
+	public static boolean isHttp11OrLater (HttpVersionParser version) {
+		if (!version.readMajorVersion() || !version.readMinorVersion())
+			return false;
+
+		int major = version.getMajorHttpVersion();
+		return major > 1 || (major == 1 && version.getMinorHttpVersion() >= 1);
+	}
 }
@@ -65,10 +65,111 @@ public class ProxyProperties {
 		return Integer.parseInt(properties.getProperty("proxy.bufferSize"));
 	}
 
+	/**
+	 * Lower bound of the adaptive size of a connection's buffers
+	 * @return bytes
+     */
+	public final int getProxyBufferMinSize () {
+		return Integer.parseInt(properties.getProperty("proxy.bufferSize.min"));
+	}
+
+	/**
+	 * Upper bound of the adaptive size of a connection's buffers
+	 * @return bytes
+     */
+	public final int getProxyBufferMaxSize () {
+		return Integer.parseInt(properties.getProperty("proxy.bufferSize.max"));
+	}
+
+	/**
+	 * Bytes of each direct slab the proxy buffers are sliced from
+	 * @return slab size
+     */
+	public final int getBufferPoolSlabSize () {
+		return Integer.parseInt(properties.getProperty("buffer.pool.slabSize"));
+	}
+
+	/**
+	 * Maximum amount of free buffers per size class each thread keeps for itself
+	 * @return buffers per size class
+     */
+	public final int getBufferPoolThreadCacheSize () {
+		return Integer.parseInt(properties.getProperty("buffer.pool.threadCacheSize"));
+	}
+
+	/**
+	 * Whether pooled buffers are tracked to report leaks. It can be enabled on tests with
+	 * the buffer.leakDetection system property.
+	 * @return true if leak detection is enabled
+     */
+	public final boolean isBufferLeakDetectionEnabled () {
+		return Boolean.parseBoolean(System.getProperty("buffer.leakDetection",
+			properties.getProperty("buffer.leakDetection")));
+	}
+
+	public final boolean isWriteThroughEnabled () {
+		return Boolean.parseBoolean(System.getProperty("proxy.writeThrough",
+			properties.getProperty("proxy.writeThrough")));
+	}
+
+	/**
+	 * Maximum reads done on a connection for a single readable event
+	 * @return read budget
+     */
+	public final int getReadBudgetReads () {
+		return Integer.parseInt(properties.getProperty("proxy.readBudget.reads"));
+	}
+
+	/**
+	 * Bytes after which a connection stops reading for a single readable event
+	 * @return read budget in bytes
+     */
+	public final long getReadBudgetBytes () {
+		return Long.parseLong(properties.getProperty("proxy.readBudget.bytes"));
+	}
+
 	public final int getProxyPort () {
 		return Integer.parseInt(properties.getProperty("proxy.port"));
 	}
 
+	/**
+	 * Amount of event loops handling proxy and protocol connections.
+	 * A non positive value means one event loop per available processor.
+	 * @return amount of event loops
+     */
+	public final int getEventLoops () {
+		int eventLoops = Integer.parseInt(properties.getProperty("proxy.eventLoops"));
+		return eventLoops > 0 ? eventLoops : Runtime.getRuntime().availableProcessors();
+	}
+
+	public final int getResolverThreads () {
+		return Integer.parseInt(properties.getProperty("resolver.threads"));
+	}
+
+	/**
+	 * Maximum amount of host entries cached by each event loop's DNS cache
+	 * @return cache size
+     */
+	public final int getResolverCacheSize () {
+		return Integer.parseInt(properties.getProperty("resolver.cache.size"));
+	}
+
+	/**
+	 * Time to live of a resolved address in seconds
+	 * @return seconds
+     */
+	public final int getResolverCacheTimeToLive () {
+		return Integer.parseInt(properties.getProperty("resolver.cache.ttl"));
+	}
+
+	/**
+	 * Time to live of a failed resolution in seconds
+	 * @return seconds
+     */
+	public final int getResolverCacheNegativeTimeToLive () {
+		return Integer.parseInt(properties.getProperty("resolver.cache.negativeTtl"));
+	}
+
 	public final int getProtocolBufferSize () {
 		return Integer.parseInt(properties.getProperty("protocol.bufferSize"));
 	}
@@ -97,20 +198,168 @@ public class ProxyProperties {
 		return Integer.parseInt(properties.getProperty("parser.headerNameBufferSize"));
 	}
 
+	/**
+	 * Initial size of the buffer holding the saved header values of a message. It grows up to the header budget.
+	 * @return bytes
+     */
 	public final int getHeaderContentBufferSize () {
 		return Integer.parseInt(properties.getProperty("parser.headerContentBufferSize"));
 	}
 
+	/**
+	 * Whether header lines are scanned a word at a time, instead of byte by byte. It can also be set with
+	 * the parser.headerWordScan system property.
+	 * @return true if word scanning is enabled
+     */
+	public final boolean isHeaderWordScanEnabled () {
+		return Boolean.parseBoolean(System.getProperty("parser.headerWordScan",
+			properties.getProperty("parser.headerWordScan")));
+	}
+
+	/**
+	 * Maximum total length of the saved header values of a message, counting 12 bytes more for each saved
+	 * header. Messages going over it get a 431.
+	 * @return bytes
+     */
+	public final int getHeaderBudget () {
+		return Integer.parseInt(properties.getProperty("parser.headerBudget"));
+	}
+
+	/**
+	 * Header names, besides the ones the proxy knows of, registered at startup so the header parser identifies them
+	 * @return lowercase header names, empty if none
+     */
+	public final List<String> getCustomHeaders () {
+		List<String> headers = new ArrayList<>();
+
+		for (String header : properties.getProperty("parser.customHeaders", "").split(","))
+			if (!header.trim().isEmpty())
+				headers.add(header.trim().toLowerCase());
+
+		return headers;
+	}
+
 	public final int getConnectionQueueLength () {
 		return Integer.parseInt(properties.getProperty("connection.queue.length"));
 	}
 
+	/**
+	 * Maximum amount of idle server connections each event loop keeps, across every address
+	 * @return idle connections
+     */
+	public final int getConnectionPoolSize () {
+		return Integer.parseInt(properties.getProperty("connection.pool.size"));
+	}
+
 	public final int getConnectionTimeToLive () {
 		return Integer.parseInt(properties.getProperty("connection.ttl"));
 	}
 
-	public final int getConnectionCleanRate () {
-		return Integer.parseInt(properties.getProperty("connection.clean.rate"));
+	/**
+	 * Maximum amount of connections in use each event loop opens to a same address. Unlimited if not positive.
+	 * @return connections
+     */
+	public final int getMaxActiveConnections () {
+		return Integer.parseInt(properties.getProperty("connection.limit.maxActive"));
+	}
+
+	/**
+	 * Maximum amount of requests each event loop queues for a connection to an address at its cap
+	 * @return queued requests
+     */
+	public final int getPendingQueueLength () {
+		return Integer.parseInt(properties.getProperty("connection.limit.queueLength"));
+	}
+
+	/**
+	 * Seconds a queued request waits for a connection before being answered with a 503
+	 * @return seconds
+     */
+	public final int getPendingQueueTimeout () {
+		return Integer.parseInt(properties.getProperty("connection.limit.queueTimeout"));
+	}
+
+	/**
+	 * Milliseconds a connection attempt to one of a host's addresses gets before the next address is tried
+	 * in parallel
+	 * @return milliseconds
+     */
+	public final int getConnectionAttemptDelay () {
+		return Integer.parseInt(properties.getProperty("connection.race.attemptDelay"));
+	}
+
+	/**
+	 * Seconds an address family is tried after the other one once connections to it failed
+	 * @return seconds
+     */
+	public final int getAddressFamilyPenalty () {
+		return Integer.parseInt(properties.getProperty("connection.race.familyPenalty"));
+	}
+
+	/**
+	 * Hosts, with an optional port, to which each event loop keeps idle connections open ahead of requests
+	 * @return warm destinations as host[:port], empty if none
+     */
+	public final List<String> getWarmDestinations () {
+		List<String> destinations = new ArrayList<>();
+
+		for (String destination : properties.getProperty("connection.warm.destinations", "").split(","))
+			if (!destination.trim().isEmpty())
+				destinations.add(destination.trim());
+
+		return destinations;
+	}
+
+	/**
+	 * Minimum amount of idle connections each event loop keeps to every warm destination
+	 * @return idle connections
+     */
+	public final int getWarmMinIdle () {
+		return Integer.parseInt(properties.getProperty("connection.warm.minIdle"));
+	}
+
+	/**
+	 * Milliseconds between warm pool refills. Each refill opens at most one connection per destination.
+	 * @return milliseconds
+     */
+	public final int getWarmInterval () {
+		return Integer.parseInt(properties.getProperty("connection.warm.interval"));
+	}
+
+	/**
+	 * Duration in milliseconds of a tick of the event loops' timing wheel
+	 * @return milliseconds
+     */
+	public final int getTimerTickDuration () {
+		return Integer.parseInt(properties.getProperty("timer.tickDuration"));
+	}
+
+	/**
+	 * Amount of buckets of the event loops' timing wheel
+	 * @return wheel size
+     */
+	public final int getTimerWheelSize () {
+		return Integer.parseInt(properties.getProperty("timer.wheelSize"));
+	}
+
+	public final int getHeaderReadTimeout () {
+		return Integer.parseInt(properties.getProperty("timeout.headerRead"));
+	}
+
+	public final int getBodyReadTimeout () {
+		return Integer.parseInt(properties.getProperty("timeout.bodyRead"));
+	}
+
+	public final int getUpstreamConnectTimeout () {
+		return Integer.parseInt(properties.getProperty("timeout.upstreamConnect"));
+	}
+
+	public final int getFirstByteTimeout () {
+		return Integer.parseInt(properties.getProperty("timeout.firstByte"));
+	}
+
+	public final int getIdleKeepAliveTimeout () {
+		return Integer.parseInt(properties.getProperty("timeout.idleKeepAlive"));
 	}
 
 	public int getProtocolHeaderNameBufferSize () {
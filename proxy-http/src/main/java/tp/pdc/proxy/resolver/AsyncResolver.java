@@ -0,0 +1,87 @@
+package tp.pdc.proxy.resolver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Resolves host names on a small pool of resolver threads so blocking DNS lookups never run on an
+ * {@link EventLoop}. Completions are handed back to the requesting loop as tasks.
+ */
+public class AsyncResolver {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncResolver.class);
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+	private static final AsyncResolver INSTANCE = new AsyncResolver(PROPERTIES.getResolverThreads());
+
+	private final ExecutorService resolverPool;
+
+	private AsyncResolver (int threads) {
+		resolverPool = Executors.newFixedThreadPool(threads, new ResolverThreadFactory());
+	}
+
+	public static AsyncResolver getInstance () {
+		return INSTANCE;
+	}
+
+	/**
+	 * Resolves all the addresses of a host and runs the callback on the given event loop. The callback always
+	 * receives at least one address: a single unresolved one if the lookup failed.
+	 * @param address address to resolve, usually unresolved
+	 * @param eventLoop loop on which the callback is run
+	 * @param callback consumer of the resolved addresses, in the resolver's order
+     */
+	public void resolve (InetSocketAddress address, EventLoop eventLoop, Consumer<List<InetSocketAddress>> callback) {
+		if (!address.isUnresolved()) {
+			callback.accept(Collections.singletonList(address));
+			return;
+		}
+
+		resolverPool.execute(() -> {
+			List<InetSocketAddress> resolved = resolveAll(address);
+			LOGGER.debug("Resolved {} to {}", address.getHostString(), resolved);
+			eventLoop.execute(() -> callback.accept(resolved));
+		});
+	}
+
+	private List<InetSocketAddress> resolveAll (InetSocketAddress address) {
+		InetAddress[] inetAddresses;
+
+		try {
+			inetAddresses = InetAddress.getAllByName(address.getHostString());
+		} catch (UnknownHostException e) {
+			return Collections.singletonList(address);
+		}
+
+		List<InetSocketAddress> resolved = new ArrayList<>(inetAddresses.length);
+
+		for (InetAddress inetAddress : inetAddresses)
+			resolved.add(new InetSocketAddress(inetAddress, address.getPort()));
+
+		return Collections.unmodifiableList(resolved);
+	}
+
+	private static class ResolverThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread (Runnable runnable) {
+			Thread thread = new Thread(runnable, "resolver-" + threadCount.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package tp.pdc.proxy.resolver;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded LRU cache of the resolved addresses of hosts keyed on the raw host:port bytes of a request,
+ * so lookups don't need to decode the host nor allocate a key.
+ * Failed resolutions (unresolved addresses) are cached with their own, usually shorter, TTL.
+ * <p>
+ * Not thread safe: each {@link tp.pdc.proxy.loop.EventLoop} owns its own cache.
+ */
+public class DnsCache {
+
+	private final Entry[] table;
+	private final int mask;
+	private final int maxSize;
+	private final long timeToLive;
+	private final long negativeTimeToLive;
+
+	// LRU list: head is the most recently used entry, tail the eviction candidate
+	private Entry head;
+	private Entry tail;
+	private int size;
+
+	public DnsCache (int maxSize, long timeToLive, long negativeTimeToLive, TimeUnit timeUnit) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("Cache size must be positive");
+
+		this.maxSize = maxSize;
+		this.table = new Entry[tableSizeFor(maxSize * 2)];
+		this.mask = table.length - 1;
+		this.timeToLive = timeUnit.toMillis(timeToLive);
+		this.negativeTimeToLive = timeUnit.toMillis(negativeTimeToLive);
+	}
+
+	/**
+	 * Gets the cached addresses for the given host bytes
+	 * @param hostBytes host and optional port bytes, as sent by the client
+	 * @return cached addresses, a single unresolved one if the resolution failed. Null if not cached or expired.
+     */
+	public List<InetSocketAddress> get (byte[] hostBytes) {
+		return get(hostBytes, 0, hostBytes.length);
+	}
+
+	/**
+	 * Gets the cached addresses for the host bytes in a range of an array, which is neither copied nor kept
+	 * @param buf array holding the host and optional port bytes, as sent by the client
+	 * @param off offset of the host in the array
+	 * @param len length of the host
+	 * @return cached addresses, a single unresolved one if the resolution failed. Null if not cached or expired.
+     */
+	public List<InetSocketAddress> get (byte[] buf, int off, int len) {
+		int hash = hash(buf, off, len);
+		Entry entry = find(buf, off, len, hash);
+
+		if (entry == null)
+			return null;
+
+		if (System.currentTimeMillis() >= entry.expirationTime) {
+			remove(entry);
+			return null;
+		}
+
+		moveToHead(entry);
+		return entry.addresses;
+	}
+
+	/**
+	 * Caches the addresses of a host. Unresolved addresses are cached with the negative TTL.
+	 * @param hostBytes host and optional port bytes, as sent by the client. Copied on insertion.
+	 * @param addresses addresses to cache, as given by the {@link AsyncResolver}
+     */
+	public void put (byte[] hostBytes, List<InetSocketAddress> addresses) {
+		int hash = hash(hostBytes, 0, hostBytes.length);
+		long ttl = addresses.get(0).isUnresolved() ? negativeTimeToLive : timeToLive;
+		Entry entry = find(hostBytes, 0, hostBytes.length, hash);
+
+		if (ttl <= 0) {
+			if (entry != null)
+				remove(entry);
+			return;
+		}
+
+		if (entry == null) {
+			entry = new Entry(hostBytes.clone(), hash);
+			int index = hash & mask;
+			entry.next = table[index];
+			table[index] = entry;
+			linkHead(entry);
+
+			if (++size > maxSize)
+				remove(tail);
+		} else
+			moveToHead(entry);
+
+		entry.addresses = addresses;
+		entry.expirationTime = System.currentTimeMillis() + ttl;
+	}
+
+	public int size () {
+		return size;
+	}
+
+	private Entry find (byte[] buf, int off, int len, int hash) {
+		for (Entry e = table[hash & mask]; e != null; e = e.next)
+			if (e.hash == hash && equals(e.key, buf, off, len))
+				return e;
+		return null;
+	}
+
+	private void remove (Entry entry) {
+		int index = entry.hash & mask;
+		Entry prev = null;
+
+		for (Entry e = table[index]; e != null; prev = e, e = e.next) {
+			if (e == entry) {
+				if (prev == null)
+					table[index] = e.next;
+				else
+					prev.next = e.next;
+				break;
+			}
+		}
+
+		unlink(entry);
+		size--;
+	}
+
+	private void moveToHead (Entry entry) {
+		if (entry != head) {
+			unlink(entry);
+			linkHead(entry);
+		}
+	}
+
+	private void linkHead (Entry entry) {
+		entry.before = null;
+		entry.after = head;
+
+		if (head != null)
+			head.before = entry;
+		else
+			tail = entry;
+
+		head = entry;
+	}
+
+	private void unlink (Entry entry) {
+		if (entry.before != null)
+			entry.before.after = entry.after;
+		else
+			head = entry.after;
+
+		if (entry.after != null)
+			entry.after.before = entry.before;
+		else
+			tail = entry.before;
+
+		entry.before = entry.after = null;
+	}
+
+	private static int hash (byte[] buf, int off, int len) {
+		int h = 0;
+		for (int i = off; i < off + len; i++)
+			h = 31 * h + buf[i];
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean equals (byte[] key, byte[] buf, int off, int len) {
+		if (key.length != len)
+			return false;
+
+		for (int i = 0; i < len; i++)
+			if (key[i] != buf[off + i])
+				return false;
+
+		return true;
+	}
+
+	private static int tableSizeFor (int capacity) {
+		int n = 1;
+		while (n < capacity)
+			n <<= 1;
+		return n;
+	}
+
+	private static class Entry {
+		private final byte[] key;
+		private final int hash;
+		private List<InetSocketAddress> addresses;
+		private long expirationTime;
+		private Entry next;
+		private Entry before;
+		private Entry after;
+
+		private Entry (byte[] key, int hash) {
+			this.key = key;
+			this.hash = hash;
+		}
+	}
+}
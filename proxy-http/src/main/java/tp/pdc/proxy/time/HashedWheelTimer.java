@@ -0,0 +1,211 @@
+package tp.pdc.proxy.time;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timing wheel. Scheduling and cancelling a {@link Timeout} are O(1): timeouts are linked into
+ * the bucket of the tick they expire on and carry the amount of full wheel rounds left.
+ * Timeouts fire with tick granularity, never before their deadline.
+ * <p>
+ * Not thread safe: it is meant to be driven by a single {@link tp.pdc.proxy.loop.EventLoop}, which calls
+ * {@link #expireTimeouts()} after each selection and uses {@link #millisToNextTick()} as select timeout.
+ */
+public class HashedWheelTimer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+	private final Bucket[] wheel;
+	private final int mask;
+	private final long tickDuration;
+	private final long startTime;
+
+	private long processedTicks;
+	private int pendingTimeouts;
+
+	public HashedWheelTimer (long tickDuration, TimeUnit timeUnit, int wheelSize) {
+		if (tickDuration <= 0 || wheelSize <= 0)
+			throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+
+		this.tickDuration = timeUnit.toNanos(tickDuration);
+		this.wheel = new Bucket[normalizeWheelSize(wheelSize)];
+		this.mask = wheel.length - 1;
+		this.startTime = System.nanoTime();
+
+		for (int i = 0; i < wheel.length; i++)
+			wheel[i] = new Bucket();
+	}
+
+	/**
+	 * Schedules a task to be run once the delay elapses
+	 * @param task task to run on expiration
+	 * @param delay delay from now
+	 * @param timeUnit delay's unit
+	 * @return a {@link Timeout} handle which can be cancelled
+     */
+	public Timeout schedule (Runnable task, long delay, TimeUnit timeUnit) {
+		long deadline = System.nanoTime() - startTime + timeUnit.toNanos(Math.max(delay, 0));
+		long expirationTick = Math.max((deadline + tickDuration - 1) / tickDuration, processedTicks);
+
+		Timeout timeout = new Timeout(this, task);
+		timeout.remainingRounds = (expirationTick - processedTicks) / wheel.length;
+		wheel[(int) (expirationTick & mask)].add(timeout);
+		pendingTimeouts++;
+
+		return timeout;
+	}
+
+	/**
+	 * Runs every timeout whose tick has elapsed
+	 */
+	public void expireTimeouts () {
+		long currentTick = (System.nanoTime() - startTime) / tickDuration;
+
+		while (processedTicks <= currentTick && pendingTimeouts > 0) {
+			Timeout expired = sweepBucket(wheel[(int) (processedTicks & mask)]);
+			processedTicks++;
+
+			// Tasks run once the bucket is swept, so they can freely schedule or cancel other timeouts
+			while (expired != null) {
+				Timeout next = expired.next;
+				expired.next = null;
+				expired.expire();
+				expired = next;
+			}
+		}
+
+		if (pendingTimeouts == 0)
+			processedTicks = Math.max(processedTicks, currentTick + 1);
+	}
+
+	/**
+	 * Unlinks the bucket's timeouts with no rounds left and decrements the rounds of the rest
+	 * @return expired timeouts, chained through their next reference
+     */
+	private Timeout sweepBucket (Bucket bucket) {
+		Timeout expired = null;
+		Timeout timeout = bucket.head;
+
+		while (timeout != null) {
+			Timeout next = timeout.next;
+
+			if (timeout.remainingRounds <= 0) {
+				bucket.remove(timeout);
+				pendingTimeouts--;
+				timeout.done = true;
+				timeout.next = expired;
+				expired = timeout;
+			} else
+				timeout.remainingRounds--;
+
+			timeout = next;
+		}
+
+		return expired;
+	}
+
+	/**
+	 * Milliseconds until the next tick to process. A wheel with no pending timeouts has no next tick, so
+	 * an idle loop isn't woken up.
+	 * @return milliseconds until the next tick, 0 if it is due, -1 if no timeout is pending
+     */
+	public long millisToNextTick () {
+		if (pendingTimeouts == 0)
+			return -1;
+
+		long delay = startTime + processedTicks * tickDuration - System.nanoTime();
+		return delay <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(delay) + 1;
+	}
+
+	public int pendingTimeouts () {
+		return pendingTimeouts;
+	}
+
+	void cancel (Timeout timeout) {
+		timeout.bucket.remove(timeout);
+		pendingTimeouts--;
+	}
+
+	private static int normalizeWheelSize (int wheelSize) {
+		int size = 1;
+		while (size < wheelSize)
+			size <<= 1;
+		return size;
+	}
+
+	/**
+	 * Handle of a scheduled task
+	 */
+	public static class Timeout {
+		private final HashedWheelTimer timer;
+		private final Runnable task;
+		private long remainingRounds;
+		private Bucket bucket;
+		private Timeout prev;
+		private Timeout next;
+		private boolean done;
+
+		private Timeout (HashedWheelTimer timer, Runnable task) {
+			this.timer = timer;
+			this.task = task;
+		}
+
+		/**
+		 * Cancels the timeout if it has not expired yet
+		 * @return true if the timeout was cancelled, false if it had already expired or been cancelled
+	     */
+		public boolean cancel () {
+			if (done)
+				return false;
+
+			done = true;
+			timer.cancel(this);
+			return true;
+		}
+
+		public boolean isDone () {
+			return done;
+		}
+
+		private void expire () {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("Timeout task failed: {}", e.getMessage());
+			}
+		}
+	}
+
+	private static class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		private void add (Timeout timeout) {
+			timeout.bucket = this;
+
+			if (head == null)
+				head = tail = timeout;
+			else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		private void remove (Timeout timeout) {
+			if (timeout.prev != null)
+				timeout.prev.next = timeout.next;
+			else
+				head = timeout.next;
+
+			if (timeout.next != null)
+				timeout.next.prev = timeout.prev;
+			else
+				tail = timeout.prev;
+
+			timeout.prev = timeout.next = null;
+			timeout.bucket = null;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package tp.pdc.proxy.time;
+
+/**
+ * Timeouts guarding each phase of a proxied exchange. Their durations are kept by {@link Timeouts}.
+ */
+public enum TimeoutType {
+	/**
+	 * Total time a client has to send its request line and headers
+	 */
+	HEADER_READ,
+	/**
+	 * Maximum time between two reads of a client's request body
+	 */
+	BODY_READ,
+	/**
+	 * Time a server connection has to be established
+	 */
+	UPSTREAM_CONNECT,
+	/**
+	 * Time a server has to start responding once the whole request was sent
+	 */
+	FIRST_BYTE,
+	/**
+	 * Time a kept alive client connection may stay idle waiting for its next request
+	 */
+	IDLE_KEEPALIVE;
+
+	/**
+	 * Idle based timeouts are measured from the last activity instead of from when they were scheduled
+	 * @return true if activity postpones the timeout
+     */
+	public boolean isIdleBased () {
+		return this == BODY_READ;
+	}
+}
@@ -0,0 +1,45 @@
+package tp.pdc.proxy.time;
+
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duration of each {@link TimeoutType} on an event loop, the configured one unless set otherwise.
+ * A non positive duration disables the timeout.
+ */
+public class Timeouts {
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+
+	private final long[] millis;
+
+	public Timeouts () {
+		this.millis = new long[TimeoutType.values().length];
+
+		set(TimeoutType.HEADER_READ, PROPERTIES.getHeaderReadTimeout(), TimeUnit.SECONDS);
+		set(TimeoutType.BODY_READ, PROPERTIES.getBodyReadTimeout(), TimeUnit.SECONDS);
+		set(TimeoutType.UPSTREAM_CONNECT, PROPERTIES.getUpstreamConnectTimeout(), TimeUnit.SECONDS);
+		set(TimeoutType.FIRST_BYTE, PROPERTIES.getFirstByteTimeout(), TimeUnit.SECONDS);
+		set(TimeoutType.IDLE_KEEPALIVE, PROPERTIES.getIdleKeepAliveTimeout(), TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Sets a timeout's duration. Must be set before the event loop using it starts.
+	 * @param type timeout type
+	 * @param duration duration, non positive to disable the timeout
+	 * @param timeUnit duration's unit
+	 * @return this
+     */
+	public Timeouts set (TimeoutType type, long duration, TimeUnit timeUnit) {
+		millis[type.ordinal()] = timeUnit.toMillis(duration);
+		return this;
+	}
+
+	public long getMillis (TimeoutType type) {
+		return millis[type.ordinal()];
+	}
+
+	public boolean isEnabled (TimeoutType type) {
+		return getMillis(type) > 0;
+	}
+}
@@ -0,0 +1,88 @@
+package tp.pdc.proxy.benchmark;
+
+import tp.pdc.proxy.exceptions.ParserFormatException;
+import tp.pdc.proxy.header.Header;
+import tp.pdc.proxy.header.HeaderValue;
+import tp.pdc.proxy.parser.component.HttpHeaderParserImpl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Measures the throughput of the header parser on the header section of a typical browser request,
+ * configured as requests are parsed, from and to direct buffers as the proxy's.
+ * <p>
+ * Not run by the test suite. Compare runs with word scanning enabled and disabled:
+ * <pre>
+ * mvn package
+ * java -cp "target/test-classes:target/proxy-http-1.0.jar" tp.pdc.proxy.benchmark.HeaderParserBenchmark
+ * java -Dparser.headerWordScan=false -cp "target/test-classes:target/proxy-http-1.0.jar" tp.pdc.proxy.benchmark.HeaderParserBenchmark
+ * </pre>
+ */
+public class HeaderParserBenchmark {
+	private static final byte[] HEADERS = ("Host: www.example.com\r\n"
+		+ "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/115.0\r\n"
+		+ "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8\r\n"
+		+ "Accept-Language: en-US,en;q=0.5\r\n"
+		+ "Accept-Encoding: gzip, deflate, br\r\n"
+		+ "Referer: http://www.example.com/index.html\r\n"
+		+ "Cookie: session=8f14e45fceea167a5a36dedd4bea2543; theme=dark; lang=en\r\n"
+		+ "Upgrade-Insecure-Requests: 1\r\n"
+		+ "Proxy-Connection: keep-alive\r\n"
+		+ "Cache-Control: max-age=0\r\n"
+		+ "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASURED_ITERATIONS = 10;
+	private static final int PARSES_PER_ITERATION = 500000;
+
+	public static void main (String[] args) throws ParserFormatException {
+		Map<Header, byte[]> toAdd = new EnumMap<>(Header.class);
+		toAdd.put(Header.CONNECTION, HeaderValue.KEEP_ALIVE.getValue());
+
+		HttpHeaderParserImpl parser = new HttpHeaderParserImpl(toAdd,
+			EnumSet.of(Header.PROXY_CONNECTION, Header.EXPECT),
+			EnumSet.of(Header.CONNECTION, Header.PROXY_CONNECTION, Header.CONTENT_LENGTH, Header.TRANSFER_ENCODING));
+
+		ByteBuffer input = ByteBuffer.allocateDirect(HEADERS.length);
+		ByteBuffer output = ByteBuffer.allocateDirect(8192);
+		input.put(HEADERS);
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++)
+			iteration(parser, input, output);
+
+		double best = Double.MAX_VALUE;
+		double total = 0;
+
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			double nanosPerParse = iteration(parser, input, output);
+			best = Math.min(best, nanosPerParse);
+			total += nanosPerParse;
+		}
+
+		System.out.printf("word scan: %s%n", System.getProperty("parser.headerWordScan", "as configured"));
+		System.out.printf("header section: %d bytes%n", HEADERS.length);
+		System.out.printf("mean: %.1f ns/parse, %.0f MB/s%n", total / MEASURED_ITERATIONS,
+			HEADERS.length * 1000.0 / (total / MEASURED_ITERATIONS));
+		System.out.printf("best: %.1f ns/parse%n", best);
+	}
+
+	private static double iteration (HttpHeaderParserImpl parser, ByteBuffer input, ByteBuffer output)
+		throws ParserFormatException {
+		long start = System.nanoTime();
+
+		for (int i = 0; i < PARSES_PER_ITERATION; i++) {
+			input.clear();
+			output.clear();
+			parser.reset();
+
+			if (!parser.parse(input, output))
+				throw new IllegalStateException("Header section not parsed");
+		}
+
+		return (System.nanoTime() - start) / (double) PARSES_PER_ITERATION;
+	}
+}
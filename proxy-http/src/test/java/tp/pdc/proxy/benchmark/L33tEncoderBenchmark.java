@@ -0,0 +1,69 @@
+package tp.pdc.proxy.benchmark;
+
+import tp.pdc.proxy.parser.encoders.StaticL33tEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures the throughput of l33t encoding a body between direct buffers, as the proxy's, byte by byte
+ * as the body parsers used to and with the bulk {@link StaticL33tEncoder#encode(ByteBuffer, ByteBuffer, int)}.
+ * <p>
+ * Not run by the test suite:
+ * <pre>
+ * mvn package
+ * java -cp "target/test-classes:target/proxy-http-1.0.jar" tp.pdc.proxy.benchmark.L33tEncoderBenchmark
+ * </pre>
+ */
+public class L33tEncoderBenchmark {
+	private static final int BODY_SIZE = 4096;
+	private static final int WARMUP_ITERATIONS = 5;
+	private static final int MEASURED_ITERATIONS = 10;
+	private static final int ENCODES_PER_ITERATION = 50000;
+
+	public static void main (String[] args) {
+		byte[] text = ("<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt "
+			+ "ut labore et dolore magna aliqua.</p>\n").getBytes(StandardCharsets.US_ASCII);
+
+		ByteBuffer input = ByteBuffer.allocateDirect(BODY_SIZE);
+		ByteBuffer output = ByteBuffer.allocateDirect(BODY_SIZE);
+
+		while (input.hasRemaining())
+			input.put(text, 0, Math.min(text.length, input.remaining()));
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			iteration(input, output, false);
+			iteration(input, output, true);
+		}
+
+		report("byte by byte", input, output, false);
+		report("bulk", input, output, true);
+	}
+
+	private static void report (String name, ByteBuffer input, ByteBuffer output, boolean bulk) {
+		double best = Double.MAX_VALUE;
+
+		for (int i = 0; i < MEASURED_ITERATIONS; i++)
+			best = Math.min(best, iteration(input, output, bulk));
+
+		System.out.printf("%s: %.1f ns/body, %.0f MB/s%n", name, best, BODY_SIZE * 1000.0 / best);
+	}
+
+	private static double iteration (ByteBuffer input, ByteBuffer output, boolean bulk) {
+		long start = System.nanoTime();
+
+		for (int i = 0; i < ENCODES_PER_ITERATION; i++) {
+			input.clear();
+			output.clear();
+
+			if (bulk) {
+				StaticL33tEncoder.encode(input, output, input.remaining());
+			} else {
+				while (input.hasRemaining())
+					output.put(StaticL33tEncoder.encodeByte(input.get()));
+			}
+		}
+
+		return (System.nanoTime() - start) / (double) ENCODES_PER_ITERATION;
+	}
+}
@@ -0,0 +1,176 @@
+package tp.pdc.proxy.benchmark;
+
+import tp.pdc.proxy.PDCServer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Measures the round trip of small keep alive requests through a single event loop proxy, against an
+ * in-process origin answering a fixed 2 byte response.
+ * <p>
+ * Not run by the test suite. Compare runs with write through enabled and disabled:
+ * <pre>
+ * mvn package
+ * java -cp "target/test-classes:target/proxy-http-1.0.jar" tp.pdc.proxy.benchmark.SmallResponseLatencyBenchmark
+ * java -Dproxy.writeThrough=false -cp "target/test-classes:target/proxy-http-1.0.jar" tp.pdc.proxy.benchmark.SmallResponseLatencyBenchmark
+ * </pre>
+ */
+public class SmallResponseLatencyBenchmark {
+	private static final byte[] RESPONSE = ("HTTP/1.1 200 OK\r\nConnection: keep-alive\r\nContent-Length: 2\r\n\r\nok")
+		.getBytes(StandardCharsets.US_ASCII);
+
+	private static final int WARMUP_REQUESTS = 20000;
+	private static final int MEASURED_REQUESTS = 50000;
+
+	public static void main (String[] args) throws Exception {
+		int originPort = startOrigin();
+		int proxyPort = freePort();
+
+		Thread proxy = new Thread(() -> {
+			try {
+				new PDCServer(proxyPort, freePort(), 1).run();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}, "proxy");
+		proxy.setDaemon(true);
+		proxy.start();
+
+		byte[] request = ("GET http://127.0.0.1:" + originPort + "/ HTTP/1.1\r\nHost: 127.0.0.1:" + originPort
+			+ "\r\nConnection: keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+		try (Socket socket = connect(proxyPort)) {
+			socket.setTcpNoDelay(true);
+			OutputStream out = socket.getOutputStream();
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+
+			for (int i = 0; i < WARMUP_REQUESTS; i++)
+				roundTrip(request, out, in);
+
+			long[] latencies = new long[MEASURED_REQUESTS];
+
+			for (int i = 0; i < MEASURED_REQUESTS; i++) {
+				long start = System.nanoTime();
+				roundTrip(request, out, in);
+				latencies[i] = System.nanoTime() - start;
+			}
+
+			report(latencies);
+		}
+
+		System.exit(0); // event loops don't stop on their own
+	}
+
+	private static void roundTrip (byte[] request, OutputStream out, InputStream in) throws IOException {
+		out.write(request);
+		out.flush();
+
+		// Headers may be rewritten by the proxy, so the response ends 2 body bytes after the empty line
+		int matched = 0;
+		int b;
+
+		while (matched < 4) {
+			if ((b = in.read()) == -1)
+				throw new IOException("Proxy closed the connection");
+
+			matched = (b == '\r' || b == '\n') ? matched + 1 : 0;
+		}
+
+		if (in.read() == -1 || in.read() == -1)
+			throw new IOException("Proxy closed the connection");
+	}
+
+	private static void report (long[] latencies) {
+		Arrays.sort(latencies);
+		long total = 0;
+
+		for (long latency : latencies)
+			total += latency;
+
+		System.out.printf("write through: %s%n", System.getProperty("proxy.writeThrough", "as configured"));
+		System.out.printf("requests: %d%n", latencies.length);
+		System.out.printf("mean: %.1f us%n", total / (double) latencies.length / 1000);
+		System.out.printf("p50:  %.1f us%n", latencies[latencies.length / 2] / 1000.0);
+		System.out.printf("p99:  %.1f us%n", latencies[latencies.length * 99 / 100] / 1000.0);
+	}
+
+	/**
+	 * Starts an origin answering every request on a connection with the same response
+	 * @return origin's port
+	 */
+	private static int startOrigin () throws IOException {
+		ServerSocket origin = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+		Thread acceptor = new Thread(() -> {
+			while (true) {
+				try {
+					Socket socket = origin.accept();
+					Thread connection = new Thread(() -> serve(socket), "origin-connection");
+					connection.setDaemon(true);
+					connection.start();
+				} catch (IOException e) {
+					return;
+				}
+			}
+		}, "origin");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		return origin.getLocalPort();
+	}
+
+	private static void serve (Socket socket) {
+		try {
+			socket.setTcpNoDelay(true);
+			InputStream in = new BufferedInputStream(socket.getInputStream());
+			OutputStream out = socket.getOutputStream();
+			int matched = 0;
+			int b;
+
+			// Requests have no body, each ends with an empty line
+			while ((b = in.read()) != -1) {
+				matched = (b == '\r' || b == '\n') ? matched + 1 : 0;
+
+				if (matched == 4) {
+					out.write(RESPONSE);
+					out.flush();
+					matched = 0;
+				}
+			}
+
+			socket.close();
+		} catch (IOException e) {
+			// Connection closed by the proxy
+		}
+	}
+
+	/**
+	 * Connects to the proxy, waiting for it to start listening
+	 */
+	private static Socket connect (int port) throws IOException, InterruptedException {
+		for (int attempt = 0; ; attempt++) {
+			try {
+				return new Socket(InetAddress.getLoopbackAddress(), port);
+			} catch (IOException e) {
+				if (attempt == 100)
+					throw e;
+
+				Thread.sleep(100);
+			}
+		}
+	}
+
+	private static int freePort () throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package tp.pdc.proxy.bytes;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveBufferSizeTest {
+
+	private AdaptiveBufferSize adaptiveSize;
+
+	@Before
+	public void setUp () throws Exception {
+		adaptiveSize = new AdaptiveBufferSize(8192, 1024, 65536);
+	}
+
+	@Test
+	public void testInitialSize () {
+		assertEquals(8192, adaptiveSize.getSize());
+		assertEquals(1024, new AdaptiveBufferSize(100, 1024, 65536).getSize());
+		assertEquals(4096, new AdaptiveBufferSize(3000, 1024, 65536).getSize());
+	}
+
+	@Test
+	public void testGrowsOnFilledReads () {
+		adaptiveSize.record(8192, 8192, true);
+		assertEquals(16384, adaptiveSize.getSize());
+
+		for (int i = 0; i < 20; i++)
+			adaptiveSize.record(adaptiveSize.getSize(), adaptiveSize.getSize(), true);
+
+		assertEquals(65536, adaptiveSize.getSize());
+	}
+
+	@Test
+	public void testShrinksOnSmallReads () {
+		for (int i = 0; i < 5; i++)
+			adaptiveSize.record(100, 8192, false);
+
+		assertEquals(4096, adaptiveSize.getSize());
+
+		for (int i = 0; i < 50; i++)
+			adaptiveSize.record(100, adaptiveSize.getSize(), false);
+
+		assertEquals(1024, adaptiveSize.getSize());
+	}
+
+	@Test
+	public void testSteadyReadsKeepSize () {
+		for (int i = 0; i < 50; i++)
+			adaptiveSize.record(5000, 8192, false);
+
+		assertEquals(8192, adaptiveSize.getSize());
+	}
+}
@@ -0,0 +1,169 @@
+package tp.pdc.proxy.bytes;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BufferPoolTest {
+
+	private BufferPool pool;
+
+	@Before
+	public void setUp () throws Exception {
+		pool = new BufferPool(512, 4096, 2048, 2, true);
+	}
+
+	@Test
+	public void testSizeClasses () {
+		assertEquals(512, pool.acquire(1).capacity());
+		assertEquals(512, pool.acquire(512).capacity());
+		assertEquals(1024, pool.acquire(513).capacity());
+		assertEquals(4096, pool.acquire(3000).capacity());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testExceedsBiggestSizeClass () {
+		pool.acquire(4097);
+	}
+
+	@Test
+	public void testDirectAndCleared () {
+		ByteBuffer buffer = pool.acquire(512);
+		buffer.put((byte) 'a').flip();
+		pool.release(buffer);
+
+		ByteBuffer reused = pool.acquire(512);
+		assertSame(buffer, reused);
+		assertTrue(reused.isDirect());
+		assertEquals(0, reused.position());
+		assertEquals(512, reused.limit());
+	}
+
+	@Test
+	public void testSlabIsSliced () {
+		ByteBuffer first = pool.acquire(512);
+		ByteBuffer second = pool.acquire(512);
+		ByteBuffer third = pool.acquire(512);
+		ByteBuffer fourth = pool.acquire(512);
+
+		assertEquals(1, pool.allocatedSlabs(512));
+
+		pool.acquire(512);
+		assertEquals(2, pool.allocatedSlabs(512));
+
+		first.put(0, (byte) 1);
+		assertEquals(0, second.get(0));
+		assertEquals(0, third.get(0));
+		assertEquals(0, fourth.get(0));
+	}
+
+	@Test
+	public void testBuffersAreNotShared () {
+		List<ByteBuffer> buffers = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++)
+			buffers.add(pool.acquire(1024));
+
+		for (int i = 0; i < buffers.size(); i++)
+			for (int j = i + 1; j < buffers.size(); j++)
+				assertNotSame(buffers.get(i), buffers.get(j));
+	}
+
+	@Test
+	public void testSharedBetweenThreads () throws InterruptedException {
+		List<ByteBuffer> released = new ArrayList<>();
+
+		for (int i = 0; i < 8; i++)
+			released.add(pool.acquire(2048));
+
+		for (ByteBuffer buffer : released)
+			pool.release(buffer);
+
+		AtomicReference<ByteBuffer> acquired = new AtomicReference<>();
+		Thread thread = new Thread(() -> acquired.set(pool.acquire(2048)));
+		thread.start();
+		thread.join();
+
+		assertTrue(released.contains(acquired.get()));
+		assertEquals(8, pool.allocatedSlabs(2048));
+	}
+
+	@Test
+	public void testLiveBuffersBySize () {
+		ByteBuffer small = pool.acquire(512);
+		pool.acquire(512);
+		pool.acquire(4096);
+
+		Map<Integer, Long> liveBuffers = pool.liveBuffersBySize();
+		assertEquals(2, liveBuffers.size());
+		assertEquals(Long.valueOf(2), liveBuffers.get(512));
+		assertEquals(Long.valueOf(1), liveBuffers.get(4096));
+
+		pool.release(small);
+		assertEquals(Long.valueOf(1), pool.liveBuffersBySize().get(512));
+	}
+
+	@Test
+	public void testLeakDetection () {
+		ByteBuffer first = pool.acquire(512);
+		ByteBuffer second = pool.acquire(1024);
+		assertEquals(2, pool.outstandingBuffers());
+
+		pool.release(first);
+		assertEquals(1, pool.outstandingBuffers());
+		assertEquals(1, pool.reportLeaks());
+
+		pool.release(second);
+		assertEquals(0, pool.outstandingBuffers());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDoubleRelease () {
+		ByteBuffer buffer = pool.acquire(512);
+		pool.release(buffer);
+		pool.release(buffer);
+	}
+
+	@Test
+	public void testDoubleReleaseWithoutLeakDetection () {
+		BufferPool untracked = new BufferPool(512, 4096, 2048, 2, false);
+		ByteBuffer buffer = untracked.acquire(512);
+		untracked.release(buffer);
+
+		try {
+			untracked.release(buffer);
+			fail("Buffer released twice");
+		} catch (IllegalStateException e) {
+			// not pooled again
+		}
+
+		assertNotSame(untracked.acquire(512), untracked.acquire(512));
+		assertEquals(2, untracked.outstandingBuffers());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testForeignRelease () {
+		pool.release(ByteBuffer.allocateDirect(512));
+	}
+
+	@Test
+	public void testForeignBuffersIgnoredWithoutLeakDetection () {
+		BufferPool untracked = new BufferPool(512, 4096, 2048, 2, false);
+		untracked.release(ByteBuffer.allocate(512));
+		untracked.release(ByteBuffer.allocateDirect(8192));
+
+		assertEquals(0, untracked.outstandingBuffers());
+		assertEquals(512, untracked.acquire(512).capacity());
+	}
+}
@@ -8,6 +8,7 @@ import java.net.InetSocketAddress;
 import java.nio.charset.Charset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class HostParserTest {
 
@@ -27,6 +28,7 @@ public class HostParserTest {
 
 		assertEquals("www.example.com", address.getHostName());
 		assertEquals(80, address.getPort());
+		assertTrue(address.isUnresolved());
 	}
 
 	@Test
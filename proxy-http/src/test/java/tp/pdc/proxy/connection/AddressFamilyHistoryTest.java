@@ -0,0 +1,69 @@
+package tp.pdc.proxy.connection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AddressFamilyHistoryTest {
+
+	private static final InetSocketAddress IPV4_FIRST = new InetSocketAddress("127.0.0.1", 80);
+	private static final InetSocketAddress IPV4_SECOND = new InetSocketAddress("127.0.0.2", 80);
+	private static final InetSocketAddress IPV6_FIRST = new InetSocketAddress("::1", 80);
+	private static final InetSocketAddress IPV6_SECOND = new InetSocketAddress("::2", 80);
+
+	private AddressFamilyHistory history;
+
+	@Before
+	public void setUp () throws Exception {
+		history = new AddressFamilyHistory(60000);
+	}
+
+	@Test
+	public void testFamiliesAlternate () {
+		List<InetSocketAddress> ordered = history.order(Arrays.asList(IPV4_FIRST, IPV4_SECOND, IPV6_FIRST, IPV6_SECOND));
+
+		assertEquals(Arrays.asList(IPV4_FIRST, IPV6_FIRST, IPV4_SECOND, IPV6_SECOND), ordered);
+	}
+
+	@Test
+	public void testFailingFamilyTriedLast () {
+		history.recordFailure(IPV6_FIRST.getAddress());
+
+		List<InetSocketAddress> ordered = history.order(Arrays.asList(IPV6_FIRST, IPV6_SECOND, IPV4_FIRST));
+
+		assertTrue(history.isFailing(IPV6_SECOND.getAddress()));
+		assertFalse(history.isFailing(IPV4_FIRST.getAddress()));
+		assertEquals(Arrays.asList(IPV4_FIRST, IPV6_FIRST, IPV6_SECOND), ordered);
+	}
+
+	@Test
+	public void testBothFamiliesFailingKeepOrder () {
+		history.recordFailure(IPV6_FIRST.getAddress());
+		history.recordFailure(IPV4_FIRST.getAddress());
+
+		assertEquals(Arrays.asList(IPV6_FIRST, IPV4_FIRST), history.order(Arrays.asList(IPV6_FIRST, IPV4_FIRST)));
+	}
+
+	@Test
+	public void testSuccessClearsFailure () {
+		history.recordFailure(IPV4_FIRST.getAddress());
+		history.recordSuccess(IPV4_SECOND.getAddress());
+
+		assertFalse(history.isFailing(IPV4_FIRST.getAddress()));
+	}
+
+	@Test
+	public void testFailureExpires () {
+		history = new AddressFamilyHistory(0);
+		history.recordFailure(IPV4_FIRST.getAddress());
+
+		assertFalse(history.isFailing(IPV4_FIRST.getAddress()));
+	}
+}
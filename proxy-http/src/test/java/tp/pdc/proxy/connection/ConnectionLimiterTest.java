@@ -0,0 +1,78 @@
+package tp.pdc.proxy.connection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionLimiterTest {
+
+	private static final SocketAddress FIRST = InetSocketAddress.createUnresolved("first", 80);
+	private static final SocketAddress SECOND = InetSocketAddress.createUnresolved("second", 80);
+
+	private ConnectionLimiter<String> limiter;
+
+	@Before
+	public void setUp () throws Exception {
+		limiter = new ConnectionLimiter<>(2, 2);
+	}
+
+	@Test
+	public void testCapPerAddress () {
+		limiter.acquire(FIRST);
+		assertFalse(limiter.isFull(FIRST));
+
+		limiter.acquire(FIRST);
+		assertTrue(limiter.isFull(FIRST));
+		assertFalse(limiter.isFull(SECOND));
+
+		limiter.release(FIRST);
+		assertFalse(limiter.isFull(FIRST));
+		assertEquals(1, limiter.active(FIRST));
+	}
+
+	@Test
+	public void testUnlimited () {
+		limiter = new ConnectionLimiter<>(0, 2);
+
+		for (int i = 0; i < 100; i++)
+			limiter.acquire(FIRST);
+
+		assertFalse(limiter.isFull(FIRST));
+	}
+
+	@Test
+	public void testQueueInArrivalOrder () {
+		assertTrue(limiter.enqueue(FIRST, "first"));
+		assertTrue(limiter.enqueue(FIRST, "second"));
+		assertFalse(limiter.enqueue(FIRST, "third"));
+		assertTrue(limiter.enqueue(SECOND, "other"));
+
+		assertEquals("first", limiter.poll(FIRST));
+		assertEquals("second", limiter.poll(FIRST));
+		assertNull(limiter.poll(FIRST));
+		assertEquals(1, limiter.queued(SECOND));
+	}
+
+	@Test
+	public void testRemoveWaiter () {
+		limiter.enqueue(FIRST, "first");
+		limiter.enqueue(FIRST, "second");
+
+		assertTrue(limiter.remove(FIRST, "first"));
+		assertFalse(limiter.remove(FIRST, "first"));
+		assertEquals("second", limiter.poll(FIRST));
+		assertEquals(0, limiter.queued(FIRST));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReleaseWithoutAcquire () {
+		limiter.release(FIRST);
+	}
+}
@@ -0,0 +1,90 @@
+package tp.pdc.proxy.connection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.connection.ConnectionPool.PooledConnection;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionPoolTest {
+
+	private static final SocketAddress FIRST = InetSocketAddress.createUnresolved("first", 80);
+	private static final SocketAddress SECOND = InetSocketAddress.createUnresolved("second", 80);
+	private static final SocketAddress THIRD = InetSocketAddress.createUnresolved("third", 80);
+
+	private ConnectionPool pool;
+
+	@Before
+	public void setUp () throws Exception {
+		pool = new ConnectionPool(3, 2);
+	}
+
+	@Test
+	public void testPollMostRecentFirst () {
+		PooledConnection older = new PooledConnection(null, FIRST);
+		PooledConnection newer = new PooledConnection(null, FIRST);
+
+		assertNull(pool.add(older));
+		assertNull(pool.add(newer));
+
+		assertSame(newer, pool.poll(FIRST));
+		assertSame(older, pool.poll(FIRST));
+		assertNull(pool.poll(FIRST));
+		assertEquals(0, pool.size());
+	}
+
+	@Test
+	public void testAddressCap () {
+		PooledConnection oldest = new PooledConnection(null, FIRST);
+		pool.add(oldest);
+		pool.add(new PooledConnection(null, FIRST));
+
+		assertSame(oldest, pool.add(new PooledConnection(null, FIRST)));
+		assertFalse(oldest.isPooled());
+		assertEquals(2, pool.size(FIRST));
+	}
+
+	@Test
+	public void testGlobalLeastRecentlyReturnedEvicted () {
+		PooledConnection oldest = new PooledConnection(null, FIRST);
+		pool.add(oldest);
+		pool.add(new PooledConnection(null, SECOND));
+		pool.add(new PooledConnection(null, FIRST));
+
+		assertSame(oldest, pool.add(new PooledConnection(null, THIRD)));
+		assertEquals(3, pool.size());
+		assertEquals(1, pool.size(FIRST));
+		assertEquals(1, pool.size(THIRD));
+	}
+
+	@Test
+	public void testEvictionEmptiesAddress () {
+		pool = new ConnectionPool(1, 1);
+		PooledConnection first = new PooledConnection(null, FIRST);
+		PooledConnection second = new PooledConnection(null, FIRST);
+
+		pool.add(first);
+		assertSame(first, pool.add(second));
+		assertSame(second, pool.poll(FIRST));
+	}
+
+	@Test
+	public void testRemove () {
+		PooledConnection connection = new PooledConnection(null, FIRST);
+		pool.add(connection);
+		pool.add(new PooledConnection(null, SECOND));
+
+		assertTrue(pool.remove(connection));
+		assertFalse(pool.remove(connection));
+		assertEquals(0, pool.size(FIRST));
+		assertEquals(1, pool.size());
+	}
+}
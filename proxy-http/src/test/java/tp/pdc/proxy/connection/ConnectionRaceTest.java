@@ -0,0 +1,198 @@
+package tp.pdc.proxy.connection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import tp.pdc.proxy.handler.interfaces.ConnectHandler;
+import tp.pdc.proxy.loop.Loopback;
+import tp.pdc.proxy.time.HashedWheelTimer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Races connections to loopback listeners. A listener whose accept queue is full drops SYNs, as an
+ * unreachable address would.
+ */
+public class ConnectionRaceTest {
+
+	private static final long ATTEMPT_DELAY = 50;
+	private static final long RACE_TIMEOUT = 5000;
+
+	@Rule
+	public final Loopback loopback = new Loopback((int) RACE_TIMEOUT);
+
+	private Selector selector;
+	private HashedWheelTimer timer;
+	private AddressFamilyHistory history;
+	private RecordingListener listener;
+
+	@Before
+	public void setUp () throws Exception {
+		selector = Selector.open();
+		timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 64);
+		history = new AddressFamilyHistory(60000);
+		listener = new RecordingListener();
+	}
+
+	@After
+	public void tearDown () throws Exception {
+		for (SelectionKey key : selector.keys())
+			key.channel().close();
+
+		selector.close();
+	}
+
+	@Test
+	public void testSingleAddress () throws IOException {
+		InetSocketAddress listening = listening("127.0.0.1");
+
+		race(Collections.singletonList(listening), ATTEMPT_DELAY);
+
+		assertEquals(listening, listener.address);
+		assertNull(listener.cause);
+	}
+
+	@Test
+	public void testDroppingAddressSkippedAfterDelay () throws IOException {
+		InetSocketAddress dropping = dropping("127.0.0.1");
+		InetSocketAddress listening = listening("127.0.0.1");
+
+		long start = System.nanoTime();
+		race(Arrays.asList(dropping, listening), ATTEMPT_DELAY);
+
+		assertEquals(listening, listener.address);
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= ATTEMPT_DELAY);
+		assertOnlyWinnerOpen();
+	}
+
+	@Test
+	public void testRefusedAddressSkippedRightAway () throws IOException {
+		InetSocketAddress refused = refused("127.0.0.1");
+		InetSocketAddress listening = listening("127.0.0.1");
+
+		race(Arrays.asList(refused, listening), TimeUnit.SECONDS.toMillis(60));
+
+		assertEquals(listening, listener.address);
+	}
+
+	@Test
+	public void testAllAddressesFail () throws IOException {
+		InetSocketAddress refused = refused("127.0.0.1");
+
+		race(Arrays.asList(refused, refused("127.0.0.1")), ATTEMPT_DELAY);
+
+		assertNull(listener.key);
+		assertNotNull(listener.cause);
+		assertTrue(history.isFailing(refused.getAddress()));
+	}
+
+	@Test
+	public void testCancelClosesAttempts () throws IOException {
+		InetSocketAddress dropping = dropping("127.0.0.1");
+		ConnectionRace race = new ConnectionRace(Collections.singletonList(dropping), selector, timer, ATTEMPT_DELAY,
+			history, listener);
+
+		assertFalse(race.start());
+		race.cancel();
+
+		assertTrue(race.isFinished());
+		assertTrue(history.isFailing(dropping.getAddress()));
+		for (SelectionKey key : selector.keys())
+			assertFalse(key.isValid());
+	}
+
+	@Test
+	public void testFailingFamilyRemembered () throws IOException {
+		InetSocketAddress dropping = dropping("127.0.0.1");
+		InetSocketAddress listening = listening("::1");
+
+		race(Arrays.asList(dropping, listening), ATTEMPT_DELAY);
+
+		assertEquals(listening, listener.address);
+		assertTrue(history.isFailing(dropping.getAddress()));
+		assertFalse(history.isFailing(listening.getAddress()));
+		assertEquals(listening, history.order(Arrays.asList(dropping, listening)).get(0));
+	}
+
+	/**
+	 * Runs a race until it finishes, dispatching connectable keys and timeouts as an event loop would
+	 */
+	private void race (List<InetSocketAddress> addresses, long attemptDelay) throws IOException {
+		ConnectionRace race = new ConnectionRace(addresses, selector, timer, attemptDelay, history, listener);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RACE_TIMEOUT);
+
+		race.start();
+
+		while (!race.isFinished() && System.nanoTime() < deadline) {
+			selector.select(10);
+
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+
+				if (key.isValid() && key.isConnectable())
+					((ConnectHandler) key.attachment()).handleConnect(key);
+			}
+
+			timer.expireTimeouts();
+		}
+
+		assertTrue("Race didn't finish", race.isFinished());
+	}
+
+	private void assertOnlyWinnerOpen () {
+		for (SelectionKey key : selector.keys())
+			assertEquals(key == listener.key, key.isValid());
+	}
+
+	private InetSocketAddress listening (String host) throws IOException {
+		return (InetSocketAddress) loopback.listening(host, 0).getLocalSocketAddress();
+	}
+
+	private InetSocketAddress refused (String host) throws IOException {
+		try (ServerSocketChannel server = ServerSocketChannel.open()) {
+			server.bind(new InetSocketAddress(host, 0));
+			return (InetSocketAddress) server.getLocalAddress();
+		}
+	}
+
+	private InetSocketAddress dropping (String host) throws IOException {
+		return (InetSocketAddress) loopback.dropping(host).getLocalSocketAddress();
+	}
+
+	private static class RecordingListener implements ConnectionRace.Listener {
+		private SelectionKey key;
+		private InetSocketAddress address;
+		private IOException cause;
+
+		@Override
+		public void connected (SelectionKey key, InetSocketAddress address) {
+			this.key = key;
+			this.address = address;
+		}
+
+		@Override
+		public void failed (IOException cause) {
+			this.cause = cause;
+		}
+	}
+}
@@ -0,0 +1,194 @@
+package tp.pdc.proxy.connection;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.loop.Loopback;
+import tp.pdc.proxy.metric.ServerMetricImpl;
+import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.time.TimeoutType;
+import tp.pdc.proxy.time.Timeouts;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Warms connections to loopback listeners from an {@link EventLoop}. Listeners refuse or drop connections
+ * to make warming fail.
+ */
+public class ConnectionWarmerTest {
+
+	private static final ProxyProperties PROPERTIES = ProxyProperties.getInstance();
+	private static final int MIN_IDLE = PROPERTIES.getWarmMinIdle();
+	private static final int INTERVAL = PROPERTIES.getWarmInterval();
+	private static final long TIMEOUT = 5000;
+	private static final long TICK = 10;
+	private static final long CONNECT_TIMEOUT = 1000;
+
+	@Rule
+	public final Loopback loopback = new Loopback((int) TIMEOUT);
+
+	private EventLoop eventLoop;
+
+	@Before
+	public void setUp () throws IOException {
+		Assume.assumeTrue("Warming disabled", MIN_IDLE >= 2 && INTERVAL > 0);
+
+		eventLoop = loopback.startEventLoop(TICK,
+			new Timeouts().set(TimeoutType.UPSTREAM_CONNECT, CONNECT_TIMEOUT, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testRefillsUpToMinIdleOnePerInterval () throws Exception {
+		Acceptor acceptor = new Acceptor(loopback.listening("127.0.0.1", 0));
+		InetSocketAddress address = acceptor.address();
+
+		warm(eventLoop.getConnectionManager(), address);
+
+		loopback.awaitTrue(() -> acceptor.accepted() == MIN_IDLE, (MIN_IDLE + 1) * INTERVAL + TIMEOUT);
+		Thread.sleep(3 * INTERVAL);
+
+		assertEquals(MIN_IDLE, acceptor.accepted());
+		assertEquals(MIN_IDLE, idleConnections(address));
+
+		for (int i = 1; i < MIN_IDLE; i++) {
+			long gap = TimeUnit.NANOSECONDS.toMillis(acceptor.times.get(i) - acceptor.times.get(i - 1));
+			assertTrue("Connections " + gap + " ms apart", gap >= INTERVAL / 2);
+		}
+	}
+
+	@Test
+	public void testPublishedIdleFollowsPool () throws Exception {
+		Acceptor acceptor = new Acceptor(loopback.listening("127.0.0.1", 0));
+		InetSocketAddress address = acceptor.address();
+		String destination = destination(address);
+
+		warm(eventLoop.getConnectionManager(), address);
+
+		loopback.awaitTrue(() -> warmConnections(destination) == MIN_IDLE, (MIN_IDLE + 2) * INTERVAL + TIMEOUT);
+
+		acceptor.sockets.get(0).close();
+		loopback.awaitTrue(() -> acceptor.accepted() == MIN_IDLE + 1, TIMEOUT);
+		loopback.awaitTrue(() -> warmConnections(destination) == MIN_IDLE, TIMEOUT);
+		Thread.sleep(2 * INTERVAL);
+
+		assertEquals(MIN_IDLE, warmConnections(destination));
+		assertEquals(MIN_IDLE, idleConnections(address));
+	}
+
+	@Test
+	public void testRefusedConnectionsTriedAgain () throws Exception {
+		int port;
+
+		try (ServerSocket reserved = loopback.listening("127.0.0.1", 0)) {
+			port = reserved.getLocalPort();
+		}
+
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+		warm(eventLoop.getConnectionManager(), address);
+
+		// Enough refills fail for leaked connecting counts to stop warming
+		Thread.sleep((MIN_IDLE + 2) * INTERVAL);
+		Acceptor acceptor = new Acceptor(loopback.listening("127.0.0.1", port));
+
+		loopback.awaitTrue(() -> acceptor.accepted() == MIN_IDLE, (MIN_IDLE + 1) * INTERVAL + TIMEOUT);
+	}
+
+	@Test
+	public void testTimedOutConnectionsTriedAgain () throws Exception {
+		ServerSocket dropping = loopback.dropping("127.0.0.1");
+		InetSocketAddress address = (InetSocketAddress) dropping.getLocalSocketAddress();
+		warm(eventLoop.getConnectionManager(), address);
+
+		// Every attempt made before accepting times out, enough for leaked connecting counts to stop warming
+		Thread.sleep(CONNECT_TIMEOUT + (MIN_IDLE + 2) * INTERVAL);
+		new Acceptor(dropping);
+
+		loopback.awaitTrue(() -> idleConnections(address) == MIN_IDLE,
+			CONNECT_TIMEOUT + (MIN_IDLE + 1) * INTERVAL + TIMEOUT);
+	}
+
+	@Test
+	public void testWarmingStopsAtConnectionCap () throws Exception {
+		Acceptor acceptor = new Acceptor(loopback.listening("127.0.0.1", 0));
+
+		warm(new ConnectionManager(eventLoop.getTimer(), eventLoop.getTimeouts(), 1), acceptor.address());
+
+		loopback.awaitTrue(() -> acceptor.accepted() == 1, 2 * INTERVAL + TIMEOUT);
+		Thread.sleep((MIN_IDLE + 2) * INTERVAL);
+
+		assertEquals(1, acceptor.accepted());
+	}
+
+	/**
+	 * Starts warming connections to an address on the event loop
+	 */
+	private void warm (ConnectionManager connectionManager, InetSocketAddress address) {
+		ConnectionWarmer warmer = new ConnectionWarmer(connectionManager, eventLoop.getDnsCache(),
+			eventLoop.getTimer(), eventLoop.getTimeouts(), Collections.singletonList(destination(address)));
+
+		loopback.onLoop(eventLoop, warmer::start);
+	}
+
+	private int idleConnections (InetSocketAddress address) {
+		return loopback.onLoop(eventLoop, () -> eventLoop.getConnectionManager().idleConnections(address));
+	}
+
+	private String destination (InetSocketAddress address) {
+		return "127.0.0.1:" + address.getPort();
+	}
+
+	private long warmConnections (String destination) {
+		return ServerMetricImpl.getInstance().getWarmConnections().getOrDefault(destination, 0L);
+	}
+
+	/**
+	 * Accepts connections on a background thread, keeping them open and recording when they arrived
+	 */
+	private class Acceptor implements Runnable {
+		private final ServerSocket server;
+		private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+		private final List<Long> times = new CopyOnWriteArrayList<>();
+
+		private Acceptor (ServerSocket server) {
+			this.server = server;
+
+			Thread thread = new Thread(this);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		@Override
+		public void run () {
+			try {
+				while (true) {
+					Socket socket = loopback.add(server.accept());
+					times.add(System.nanoTime());
+					sockets.add(socket);
+				}
+			} catch (IOException e) {
+				// listener closed
+			}
+		}
+
+		private int accepted () {
+			return sockets.size();
+		}
+
+		private InetSocketAddress address () {
+			return (InetSocketAddress) server.getLocalSocketAddress();
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package tp.pdc.proxy.handler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.connection.ConnectionManager;
+import tp.pdc.proxy.connection.IdleConnectionHandler;
+import tp.pdc.proxy.header.Method;
+import tp.pdc.proxy.time.HashedWheelTimer;
+import tp.pdc.proxy.time.Timeouts;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A client whose server connection was pooled, or handed to another client, must leave it open when it
+ * fails. Connections are loopback sockets registered on a selector, as an event loop would.
+ */
+public class HttpClientProxyHandlerTest {
+
+	private Selector selector;
+	private ServerSocketChannel listener;
+	private ConnectionManager connectionManager;
+	private List<AutoCloseable> resources;
+
+	@Before
+	public void setUp () throws IOException {
+		selector = Selector.open();
+		listener = ServerSocketChannel.open();
+		listener.bind(new InetSocketAddress("127.0.0.1", 0));
+		connectionManager = new ConnectionManager(new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 64), new Timeouts());
+		resources = new ArrayList<>();
+	}
+
+	@After
+	public void tearDown () throws Exception {
+		for (SelectionKey key : selector.keys())
+			key.channel().close();
+
+		selector.close();
+		listener.close();
+
+		for (AutoCloseable resource : resources)
+			resource.close();
+	}
+
+	@Test
+	public void testPooledServerUnlinkedFromClient () throws IOException {
+		Socket client = new Socket();
+		SelectionKey clientKey = accept(client);
+		HttpClientProxyHandler clientHandler = attachClient(clientKey);
+		SelectionKey serverKey = link(clientHandler, clientKey);
+
+		clientHandler.signalResponseProcessed(false);
+		connectionManager.storeConnection(serverKey);
+
+		assertNull(clientHandler.getConnectedPeerKey());
+		assertTrue(serverKey.attachment() instanceof IdleConnectionHandler);
+
+		reset(client, clientKey);
+		clientHandler.handleRead(clientKey);
+
+		assertFalse(clientKey.channel().isOpen());
+		assertTrue(serverKey.channel().isOpen());
+	}
+
+	@Test
+	public void testClientFailureLeavesPooledServerOpen () throws IOException {
+		Socket client = new Socket();
+		SelectionKey clientKey = accept(client);
+		HttpClientProxyHandler clientHandler = attachClient(clientKey);
+		SelectionKey serverKey = accept(new Socket());
+
+		connectionManager.storeWarmConnection(serverKey, null);
+		clientHandler.setConnectedPeerKey(serverKey);
+
+		reset(client, clientKey);
+		clientHandler.processWrite(ByteBuffer.wrap(new byte[] {'a'}), clientKey);
+
+		assertTrue(serverKey.attachment() instanceof IdleConnectionHandler);
+		assertTrue(serverKey.channel().isOpen());
+	}
+
+	@Test
+	public void testClientFailureLeavesOtherClientsServerOpen () throws IOException {
+		Socket client = new Socket();
+		SelectionKey clientKey = accept(client);
+		HttpClientProxyHandler clientHandler = attachClient(clientKey);
+		SelectionKey otherClientKey = accept(new Socket());
+		SelectionKey serverKey = link(attachClient(otherClientKey), otherClientKey);
+
+		clientHandler.setConnectedPeerKey(serverKey);
+
+		reset(client, clientKey);
+		clientHandler.processWrite(ByteBuffer.wrap(new byte[] {'a'}), clientKey);
+
+		assertTrue(serverKey.channel().isOpen());
+	}
+
+	@Test
+	public void testClientFailureClosesOwnServer () throws IOException {
+		Socket client = new Socket();
+		SelectionKey clientKey = accept(client);
+		HttpClientProxyHandler clientHandler = attachClient(clientKey);
+		SelectionKey serverKey = link(clientHandler, clientKey);
+
+		reset(client, clientKey);
+		clientHandler.processWrite(ByteBuffer.wrap(new byte[] {'a'}), clientKey);
+
+		assertFalse(serverKey.channel().isOpen());
+	}
+
+	/**
+	 * Connects a socket to the listener and registers the accepted end
+	 * @return accepted end's key
+     */
+	private SelectionKey accept (Socket socket) throws IOException {
+		resources.add(socket);
+		socket.connect(listener.getLocalAddress());
+
+		SocketChannel channel = listener.accept();
+		channel.configureBlocking(false);
+		return channel.register(selector, SelectionKey.OP_READ);
+	}
+
+	/**
+	 * Resets a client's connection and waits until the proxy's end sees it
+     */
+	private void reset (Socket client, SelectionKey clientKey) throws IOException {
+		client.setSoLinger(true, 0);
+		client.close();
+
+		while (!selector.selectedKeys().contains(clientKey))
+			selector.select(10);
+
+		selector.selectedKeys().clear();
+	}
+
+	private HttpClientProxyHandler attachClient (SelectionKey clientKey) {
+		HttpClientProxyHandler clientHandler = new HttpClientProxyHandler(EnumSet.allOf(Method.class));
+		clientHandler.acquireBuffers();
+		clientKey.attach(clientHandler);
+		return clientHandler;
+	}
+
+	/**
+	 * Links a client to a new server connection, as a connected request does
+	 * @return server's key
+     */
+	private SelectionKey link (HttpClientProxyHandler clientHandler, SelectionKey clientKey) throws IOException {
+		SelectionKey serverKey = accept(new Socket());
+		HttpServerProxyHandler serverHandler = new HttpServerProxyHandler(clientHandler.getProcessedBuffer(),
+			clientHandler.getWriteBuffer(), Method.GET);
+
+		serverHandler.setConnectedPeerKey(clientKey);
+		serverKey.attach(serverHandler);
+		clientHandler.setConnectedPeerKey(serverKey);
+		return serverKey;
+	}
+}
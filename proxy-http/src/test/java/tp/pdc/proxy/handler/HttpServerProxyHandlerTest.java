@@ -0,0 +1,231 @@
+package tp.pdc.proxy.handler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import tp.pdc.proxy.bytes.ByteBufferFactory;
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.loop.Loopback;
+import tp.pdc.proxy.metric.ServerMetricImpl;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static tp.pdc.proxy.loop.Loopback.bytes;
+import static tp.pdc.proxy.loop.Loopback.readUntil;
+import static tp.pdc.proxy.loop.Loopback.readUntilClosed;
+
+/**
+ * Sends requests on a pooled connection to a loopback origin which fails it, and checks which requests are
+ * sent again on a new connection. The handlers run on an {@link EventLoop}.
+ */
+public class HttpServerProxyHandlerTest {
+
+	private static final int TIMEOUT = 2000;
+	private static final int NO_CONNECTION_WAIT = 300;
+	private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok";
+
+	@Rule
+	public final Loopback loopback = new Loopback(TIMEOUT);
+
+	private EventLoop eventLoop;
+	private ServerSocket origin;
+	private InetSocketAddress originAddress;
+
+	@Before
+	public void setUp () throws IOException {
+		eventLoop = loopback.startEventLoop();
+		origin = loopback.listening("127.0.0.1", 0);
+		origin.setSoTimeout(TIMEOUT);
+		originAddress = (InetSocketAddress) origin.getLocalSocketAddress();
+	}
+
+	@Test
+	public void testRetriedOnServerEOFBeforeResponse () throws Exception {
+		byte[] request = request("GET", "");
+		Socket pooled = pool();
+		Socket client = loopback.connectClient(eventLoop);
+		long retries = retries();
+
+		client.getOutputStream().write(request);
+		String forwarded = readForwarded(pooled, 0);
+		pooled.close();
+
+		assertAnswered(client, origin.accept(), forwarded);
+		assertEquals(retries + 1, retries());
+	}
+
+	@Test
+	public void testRetriedOnWriteFailureAfterPartialSend () throws Exception {
+		byte[] head = request("PUT", "Content-Length: 10\r\n");
+		byte[] request = concat(head, bytes("1234567890"));
+		Socket pooled = pool();
+		Socket client = loopback.connectClient(eventLoop);
+		long retries = retries();
+
+		client.getOutputStream().write(Arrays.copyOf(request, head.length + 5));
+		String forwarded = readForwarded(pooled, 5);
+		reset(pooled);
+
+		client.getOutputStream().write(Arrays.copyOfRange(request, head.length + 5, request.length));
+
+		assertAnswered(client, origin.accept(), forwarded + "67890");
+		assertEquals(retries + 1, retries());
+	}
+
+	@Test
+	public void testRequestLongerThanBufferNotRetried () throws Exception {
+		int length = 3 * ByteBufferFactory.getInstance().getProxyBufferSize();
+		byte[] head = request("PUT", "Content-Length: " + length + "\r\n");
+		byte[] request = concat(head, new byte[length]);
+		Socket pooled = pool();
+		Socket client = loopback.connectClient(eventLoop);
+		long retries = retries();
+
+		Thread writer = new Thread(() -> {
+			try {
+				client.getOutputStream().write(request);
+			} catch (IOException e) {
+				// the read below fails
+			}
+		});
+		writer.start();
+
+		readForwarded(pooled, length);
+		writer.join(TIMEOUT);
+		pooled.close();
+
+		assertClosedUnanswered(client);
+		assertNoConnection();
+		assertEquals(retries, retries());
+	}
+
+	@Test
+	public void testNotRetriedOnceResponseRead () throws Exception {
+		byte[] request = request("GET", "");
+		Socket pooled = pool();
+		Socket client = loopback.connectClient(eventLoop);
+		long retries = retries();
+
+		client.getOutputStream().write(request);
+		readForwarded(pooled, 0);
+		pooled.getOutputStream().write(bytes("HTTP/1.1 200 OK\r\n"));
+		pooled.close();
+
+		readUntilClosed(client);
+		assertNoConnection();
+		assertEquals(retries, retries());
+	}
+
+	@Test
+	public void testNonIdempotentNotRetried () throws Exception {
+		byte[] request = concat(request("POST", "Content-Length: 2\r\n"), bytes("ab"));
+		Socket pooled = pool();
+		Socket client = loopback.connectClient(eventLoop);
+		long retries = retries();
+
+		client.getOutputStream().write(request);
+		readForwarded(pooled, 2);
+		pooled.close();
+
+		assertClosedUnanswered(client);
+		assertNoConnection();
+		assertEquals(retries, retries());
+	}
+
+	private byte[] request (String method, String headers) {
+		return bytes(method + " / HTTP/1.1\r\nHost: 127.0.0.1:" + originAddress.getPort() + "\r\n" + headers + "\r\n");
+	}
+
+	/**
+	 * Opens a connection to the origin and stores it in the event loop's pool, as a warm connection
+	 * @return origin's end
+     */
+	private Socket pool () throws Exception {
+		SocketChannel channel = SocketChannel.open(originAddress);
+		Socket accepted = loopback.accept(origin);
+
+		channel.configureBlocking(false);
+		loopback.onLoop(eventLoop, () -> {
+			try {
+				SelectionKey key = channel.register(eventLoop.getSelector(), 0);
+				eventLoop.getConnectionManager().storeWarmConnection(key, originAddress);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		return accepted;
+	}
+
+	/**
+	 * Checks the request is sent again as it was forwarded the first time, and its response reaches the client
+	 * @param forwarded request as the pooled connection should have got it
+     */
+	private void assertAnswered (Socket client, Socket retried, String forwarded) throws IOException {
+		loopback.add(retried);
+		retried.setSoTimeout(TIMEOUT);
+
+		assertEquals(forwarded, new String(readFully(retried, forwarded.length()), StandardCharsets.US_ASCII));
+		retried.getOutputStream().write(bytes(RESPONSE));
+
+		String response = readUntil(client, "ok");
+		assertTrue(response, response.startsWith("HTTP/1.1 200 OK\r\n"));
+	}
+
+	private void assertClosedUnanswered (Socket client) throws IOException {
+		assertEquals("", readUntilClosed(client));
+	}
+
+	private void assertNoConnection () throws IOException {
+		origin.setSoTimeout(NO_CONNECTION_WAIT);
+
+		try {
+			loopback.add(origin.accept());
+			fail("Request was sent again");
+		} catch (SocketTimeoutException e) {
+			// not retried
+		}
+	}
+
+	private void reset (Socket socket) throws IOException {
+		socket.setSoLinger(true, 0);
+		socket.close();
+	}
+
+	private long retries () {
+		return ServerMetricImpl.getInstance().getRequestRetries();
+	}
+
+	private byte[] readFully (Socket socket, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		new DataInputStream(socket.getInputStream()).readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads a forwarded request's head, which the proxy rewrites, and the first bytes of its body
+	 * @return bytes read
+     */
+	private String readForwarded (Socket socket, int bodyBytes) throws IOException {
+		return readUntil(socket, "\r\n\r\n") + new String(readFully(socket, bodyBytes), StandardCharsets.US_ASCII);
+	}
+
+	private byte[] concat (byte[] first, byte[] second) {
+		byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, bytes, first.length, second.length);
+		return bytes;
+	}
+}
@@ -0,0 +1,156 @@
+package tp.pdc.proxy.handler;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import tp.pdc.proxy.header.HttpErrorCode;
+import tp.pdc.proxy.loop.EventLoop;
+import tp.pdc.proxy.loop.Loopback;
+import tp.pdc.proxy.metric.ClientMetricImpl;
+import tp.pdc.proxy.metric.ServerMetricImpl;
+import tp.pdc.proxy.metric.interfaces.HostMetric;
+import tp.pdc.proxy.properties.ProxyProperties;
+import tp.pdc.proxy.time.TimeoutType;
+import tp.pdc.proxy.time.Timeouts;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static tp.pdc.proxy.loop.Loopback.bytes;
+import static tp.pdc.proxy.loop.Loopback.readUntil;
+import static tp.pdc.proxy.loop.Loopback.readUntilClosed;
+
+/**
+ * Lets each phase of an exchange through an {@link EventLoop} stall until its timeout expires, and checks what
+ * the client gets and which connections are closed. The loop runs with one second timeouts and a short timer tick.
+ */
+public class PhaseTimeoutTest {
+
+	private static final int TIMEOUT = 5000;
+	private static final long TICK = 10;
+	private static final long PHASE_TIMEOUT = 1000;
+	private static final String RESPONSE = "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok";
+
+	@Rule
+	public final Loopback loopback = new Loopback(TIMEOUT);
+
+	private EventLoop eventLoop;
+	private ServerSocket origin;
+
+	@Before
+	public void setUp () throws IOException {
+		Timeouts timeouts = new Timeouts();
+
+		for (TimeoutType type : TimeoutType.values())
+			timeouts.set(type, PHASE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+		eventLoop = loopback.startEventLoop(TICK, timeouts);
+		origin = loopback.listening("127.0.0.1", 0);
+		origin.setSoTimeout(TIMEOUT);
+	}
+
+	@Test
+	public void testHeaderReadTimeout () throws IOException {
+		long timeouts = timeouts(ClientMetricImpl.getInstance(), TimeoutType.HEADER_READ);
+		long start = System.nanoTime();
+		Socket client = loopback.connectClient(eventLoop);
+
+		client.getOutputStream().write(bytes("GET / HTTP/1.1\r\n"));
+
+		assertEquals(errorResponse(HttpErrorCode.REQUEST_TIMEOUT_408), readUntilClosed(client));
+		assertExpiredAfter(start, TimeoutType.HEADER_READ);
+		assertEquals(timeouts + 1, timeouts(ClientMetricImpl.getInstance(), TimeoutType.HEADER_READ));
+	}
+
+	@Test
+	public void testBodyReadTimeout () throws IOException {
+		long timeouts = timeouts(ClientMetricImpl.getInstance(), TimeoutType.BODY_READ);
+		Socket client = loopback.connectClient(eventLoop);
+
+		client.getOutputStream().write(request("PUT", origin, "Content-Length: 10\r\n"));
+		Socket server = loopback.accept(origin);
+
+		long start = System.nanoTime();
+		client.getOutputStream().write(bytes("12345"));
+		readUntil(server, "\r\n\r\n12345");
+
+		assertEquals(errorResponse(HttpErrorCode.REQUEST_TIMEOUT_408), readUntilClosed(client));
+		assertExpiredAfter(start, TimeoutType.BODY_READ);
+		assertClosed(server);
+		assertEquals(timeouts + 1, timeouts(ClientMetricImpl.getInstance(), TimeoutType.BODY_READ));
+	}
+
+	@Test
+	public void testUpstreamConnectTimeout () throws IOException {
+		long timeouts = timeouts(ServerMetricImpl.getInstance(), TimeoutType.UPSTREAM_CONNECT);
+		ServerSocket dropping = loopback.dropping("127.0.0.1");
+		Socket client = loopback.connectClient(eventLoop);
+		long start = System.nanoTime();
+
+		client.getOutputStream().write(request("GET", dropping, ""));
+
+		assertEquals(errorResponse(HttpErrorCode.GATEWAY_TIMEOUT_504), readUntilClosed(client));
+		assertExpiredAfter(start, TimeoutType.UPSTREAM_CONNECT);
+		assertEquals(timeouts + 1, timeouts(ServerMetricImpl.getInstance(), TimeoutType.UPSTREAM_CONNECT));
+	}
+
+	@Test
+	public void testFirstByteTimeout () throws IOException {
+		long timeouts = timeouts(ServerMetricImpl.getInstance(), TimeoutType.FIRST_BYTE);
+		Socket client = loopback.connectClient(eventLoop);
+		long start = System.nanoTime();
+
+		client.getOutputStream().write(request("GET", origin, ""));
+		Socket server = loopback.accept(origin);
+		readUntil(server, "\r\n\r\n");
+
+		assertEquals(errorResponse(HttpErrorCode.GATEWAY_TIMEOUT_504), readUntilClosed(client));
+		assertExpiredAfter(start, TimeoutType.FIRST_BYTE);
+		assertClosed(server);
+		assertEquals(timeouts + 1, timeouts(ServerMetricImpl.getInstance(), TimeoutType.FIRST_BYTE));
+	}
+
+	@Test
+	public void testIdleKeepAliveTimeout () throws IOException {
+		long timeouts = timeouts(ClientMetricImpl.getInstance(), TimeoutType.IDLE_KEEPALIVE);
+		Socket client = loopback.connectClient(eventLoop);
+
+		client.getOutputStream().write(request("GET", origin, ""));
+		Socket server = loopback.accept(origin);
+		readUntil(server, "\r\n\r\n");
+
+		long start = System.nanoTime();
+		server.getOutputStream().write(bytes(RESPONSE));
+		readUntil(client, "ok");
+
+		assertEquals("", readUntilClosed(client));
+		assertExpiredAfter(start, TimeoutType.IDLE_KEEPALIVE);
+		assertEquals(timeouts + 1, timeouts(ClientMetricImpl.getInstance(), TimeoutType.IDLE_KEEPALIVE));
+	}
+
+	private byte[] request (String method, ServerSocket server, String headers) {
+		return bytes(method + " / HTTP/1.1\r\nHost: 127.0.0.1:" + server.getLocalPort() + "\r\n" + headers + "\r\n");
+	}
+
+	private void assertExpiredAfter (long start, TimeoutType type) {
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue(type + " expired after " + elapsed + " ms", elapsed >= PHASE_TIMEOUT - TICK);
+	}
+
+	private void assertClosed (Socket socket) throws IOException {
+		assertEquals(-1, socket.getInputStream().read());
+	}
+
+	private long timeouts (HostMetric metric, TimeoutType type) {
+		return metric.getTimeouts(type);
+	}
+
+	private String errorResponse (HttpErrorCode errorCode) {
+		return new String(errorCode.getBytes(), ProxyProperties.getInstance().getCharset());
+	}
+}
@@ -29,6 +29,23 @@ public class BytesUtilsTest {
 				ProxyProperties.getInstance().getCharset()));
 	}
 
+	@Test
+	public void lengthPutDirect () {
+		ByteBuffer outputBuffer = ByteBuffer.allocateDirect(50);
+		ByteBuffer inputBuffer = ByteBuffer.allocateDirect(50);
+		inputBuffer.put("hola como estas hoy?".getBytes(ProxyProperties.getInstance().getCharset()));
+		inputBuffer.flip();
+
+		BytesUtils.lengthPut(inputBuffer, outputBuffer, 4);
+		assertEquals(4, inputBuffer.position());
+		assertEquals(20, inputBuffer.limit());
+
+		byte[] output = new byte[4];
+		outputBuffer.flip();
+		outputBuffer.get(output);
+		assertEquals("hola", new String(output, ProxyProperties.getInstance().getCharset()));
+	}
+
 	@Test
 	public void testEqualsBytesArraysNoLength () {
 		byte arr1[] = new byte[] {'h', 'o', 'l', 'a'};
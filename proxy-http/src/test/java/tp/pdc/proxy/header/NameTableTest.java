@@ -0,0 +1,98 @@
+package tp.pdc.proxy.header;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.header.protocol.PopisHeader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NameTableTest {
+
+	private NameTable ignoringCase;
+	private NameTable matchingCase;
+
+	@Before
+	public void setUp () throws Exception {
+		ignoringCase = new NameTable(true);
+		matchingCase = new NameTable(false);
+
+		for (String name : Arrays.asList("connection", "content-type", "content-length", "cookie"))
+			ignoringCase.register(name);
+
+		for (String name : Arrays.asList("GET", "PUT", "POST"))
+			matchingCase.register(name);
+	}
+
+	@Test
+	public void testIdsInRegistrationOrder () {
+		assertEquals(0, indexOf(ignoringCase, "connection"));
+		assertEquals(1, indexOf(ignoringCase, "content-type"));
+		assertEquals(3, indexOf(ignoringCase, "cookie"));
+		assertEquals(2, ignoringCase.register("Content-Length"));
+		assertEquals(4, ignoringCase.size());
+	}
+
+	@Test
+	public void testIgnoreCase () {
+		assertEquals(2, indexOf(ignoringCase, "CONTENT-length"));
+		assertEquals(-1, indexOf(matchingCase, "get"));
+		assertEquals(0, indexOf(matchingCase, "GET"));
+	}
+
+	@Test
+	public void testUnknownNames () {
+		assertEquals(-1, indexOf(ignoringCase, "content-typ"));
+		assertEquals(-1, indexOf(ignoringCase, "content-typo"));
+		assertEquals(-1, indexOf(ignoringCase, "a-much-longer-name-than-any"));
+		assertEquals(-1, indexOf(ignoringCase, ""));
+		assertEquals(-1, indexOf(ignoringCase, "éonnection"));
+	}
+
+	@Test
+	public void testDirectBufferAtOffset () {
+		byte[] bytes = "xxCookie: 1".getBytes(StandardCharsets.ISO_8859_1);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+
+		assertEquals(3, ignoringCase.indexOf(buffer, 2, 6));
+	}
+
+	@Test
+	public void testEnumLookups () {
+		assertEquals(Header.TRANSFER_ENCODING, Header.getHeaderByBytes(wrap("Transfer-Encoding"), 17));
+		assertNull(Header.getHeaderByBytes(wrap("Transfer-Encodin"), 16));
+		assertEquals(Method.OPTIONS, Method.getByBytes(wrap("OPTIONS"), 7));
+		assertNull(Method.getByBytes(wrap("options"), 7));
+		assertEquals(PopisHeader.POOL_HITS, PopisHeader.getHeaderByBytes(wrap("pool_hits"), 9));
+		assertNull(PopisHeader.getHeaderByBytes(wrap("pool_hit"), 8));
+	}
+
+	@Test
+	public void testCustomHeaders () {
+		HeaderRegistry registry = new HeaderRegistry(Arrays.asList("x-forwarded-for", "host", "X-Request-Id"));
+		int forwardedFor = registry.getId(wrap("X-Forwarded-For"), 0, 15);
+		int requestId = registry.getId(wrap("x-request-id"), 0, 12);
+
+		assertEquals(Header.values().length, forwardedFor);
+		assertEquals(Header.values().length + 1, requestId);
+		assertEquals(Header.values().length + 2, registry.size());
+		assertNull(registry.getHeader(forwardedFor));
+		assertEquals("x-request-id", registry.getName(requestId));
+		assertEquals(Header.HOST, registry.getHeader(registry.getId(wrap("HOST"), 0, 4)));
+	}
+
+	private static int indexOf (NameTable table, String name) {
+		byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+		return table.indexOf(ByteBuffer.wrap(bytes), 0, bytes.length);
+	}
+
+	private static ByteBuffer wrap (String name) {
+		return ByteBuffer.wrap(name.getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
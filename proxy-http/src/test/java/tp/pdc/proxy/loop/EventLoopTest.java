@@ -0,0 +1,140 @@
+package tp.pdc.proxy.loop;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.handler.interfaces.Handler;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventLoopTest {
+
+	private EventLoop eventLoop;
+
+	@Before
+	public void setUp () throws Exception {
+		eventLoop = new EventLoop(0);
+		eventLoop.start();
+	}
+
+	@After
+	public void tearDown () throws Exception {
+		eventLoop.shutdown();
+		assertTrue(eventLoop.awaitTermination(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testTaskRunsOnLoopThread () throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<EventLoop> current = new AtomicReference<>();
+		AtomicReference<Boolean> inEventLoop = new AtomicReference<>();
+
+		eventLoop.execute(() -> {
+			current.set(EventLoop.current());
+			inEventLoop.set(eventLoop.inEventLoop());
+			latch.countDown();
+		});
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertSame(eventLoop, current.get());
+		assertTrue(inEventLoop.get());
+	}
+
+	@Test
+	public void testCallerIsNotLoop () {
+		assertNull(EventLoop.current());
+		assertFalse(eventLoop.inEventLoop());
+	}
+
+	@Test
+	public void testFailedTaskDoesNotStopLoop () throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+
+		eventLoop.execute(() -> {
+			throw new IllegalStateException("task failed");
+		});
+		eventLoop.execute(latch::countDown);
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFailedTimeoutDoesNotStopLoop () throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+
+		eventLoop.execute(() -> {
+			eventLoop.getTimer().schedule(() -> {
+				throw new IllegalStateException("timeout failed");
+			}, 0, TimeUnit.MILLISECONDS);
+			eventLoop.getTimer().schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+		});
+
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testFailedKeyClosedAndLoopKeepsRunning () throws Exception {
+		try (ServerSocketChannel listener = ServerSocketChannel.open(); Socket client = new Socket()) {
+			listener.bind(new InetSocketAddress("127.0.0.1", 0));
+			client.connect(listener.getLocalAddress());
+
+			SocketChannel channel = listener.accept();
+			channel.configureBlocking(false);
+			eventLoop.register(channel, SelectionKey.OP_READ, new FailingHandler());
+
+			client.getOutputStream().write('a');
+			client.setSoTimeout(1000);
+
+			assertEquals(-1, client.getInputStream().read());
+			assertFalse(channel.isOpen());
+			testFailedTaskDoesNotStopLoop();
+		}
+	}
+
+	@Test
+	public void testShutdownClosesChannelsAndSelector () throws Exception {
+		try (ServerSocketChannel listener = ServerSocketChannel.open(); Socket client = new Socket()) {
+			listener.bind(new InetSocketAddress("127.0.0.1", 0));
+			client.connect(listener.getLocalAddress());
+
+			SocketChannel channel = listener.accept();
+			channel.configureBlocking(false);
+			CountDownLatch registered = new CountDownLatch(1);
+			eventLoop.register(channel, SelectionKey.OP_READ, null);
+			eventLoop.execute(registered::countDown);
+			assertTrue(registered.await(1, TimeUnit.SECONDS));
+
+			eventLoop.shutdown();
+
+			assertTrue(eventLoop.awaitTermination(1, TimeUnit.SECONDS));
+			assertFalse(eventLoop.getSelector().isOpen());
+			assertFalse(channel.isOpen());
+		}
+	}
+
+	private static class FailingHandler implements Handler {
+
+		@Override
+		public void handleRead (SelectionKey key) {
+			throw new IllegalStateException("read failed");
+		}
+
+		@Override
+		public void handleWrite (SelectionKey key) {
+		}
+	}
+}
@@ -0,0 +1,230 @@
+package tp.pdc.proxy.loop;
+
+import org.junit.Assume;
+import org.junit.rules.ExternalResource;
+
+import tp.pdc.proxy.handler.HttpClientProxyHandler;
+import tp.pdc.proxy.header.Method;
+import tp.pdc.proxy.time.Timeouts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rule for tests talking to event loops over loopback sockets. Event loops it starts are shut down, and
+ * sockets it opens are closed, after each test. Blocking reads give up after the rule's timeout.
+ */
+public class Loopback extends ExternalResource {
+
+	private final int timeout;
+	private final List<EventLoop> eventLoops = new CopyOnWriteArrayList<>();
+	private final List<AutoCloseable> resources = new CopyOnWriteArrayList<>();
+	private ServerSocketChannel front;
+
+	/**
+	 * @param timeout milliseconds blocking operations wait before failing the test
+     */
+	public Loopback (int timeout) {
+		this.timeout = timeout;
+	}
+
+	@Override
+	protected void after () {
+		for (EventLoop eventLoop : eventLoops)
+			eventLoop.shutdown();
+
+		try {
+			for (EventLoop eventLoop : eventLoops)
+				eventLoop.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+
+			for (AutoCloseable resource : resources)
+				resource.close();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Starts an event loop with the configured timeouts
+	 * @return the running loop
+     */
+	public EventLoop startEventLoop () throws IOException {
+		return startEventLoop(new EventLoop(0));
+	}
+
+	/**
+	 * Starts an event loop with its own timer tick and timeouts
+	 * @param tickDuration milliseconds of a tick of the loop's timer
+	 * @param timeouts loop's timeouts
+	 * @return the running loop
+     */
+	public EventLoop startEventLoop (long tickDuration, Timeouts timeouts) throws IOException {
+		return startEventLoop(new EventLoop(0, tickDuration, timeouts));
+	}
+
+	private EventLoop startEventLoop (EventLoop eventLoop) {
+		eventLoops.add(eventLoop);
+		eventLoop.start();
+		return eventLoop;
+	}
+
+	/**
+	 * Closes a resource after the test
+	 * @return the resource
+     */
+	public <T extends AutoCloseable> T add (T resource) {
+		resources.add(resource);
+		return resource;
+	}
+
+	/**
+	 * Binds a listener on a loopback address, skipping the test if the address isn't available
+	 * @param host loopback address
+	 * @param port port, any free one if 0
+	 * @return bound listener
+     */
+	public ServerSocket listening (String host, int port) throws IOException {
+		ServerSocket server = add(new ServerSocket());
+		server.setReuseAddress(true);
+
+		try {
+			server.bind(new InetSocketAddress(host, port));
+		} catch (IOException e) {
+			Assume.assumeNoException("Can't listen on " + host + ":" + port, e);
+		}
+
+		return server;
+	}
+
+	/**
+	 * Binds a listener which doesn't accept yet and fills its accept queue, so further SYNs are dropped
+	 * @param host loopback address
+	 * @return bound listener
+     */
+	public ServerSocket dropping (String host) throws IOException {
+		ServerSocket server = add(new ServerSocket());
+		server.bind(new InetSocketAddress(host, 0), 1);
+
+		for (int i = 0; i < 16; i++) {
+			Socket socket = add(new Socket());
+
+			try {
+				socket.connect(server.getLocalSocketAddress(), 200);
+			} catch (SocketTimeoutException e) {
+				return server;
+			}
+		}
+
+		Assume.assumeTrue("Listener doesn't drop SYNs once its accept queue is full", false);
+		return server;
+	}
+
+	/**
+	 * Connects a client whose proxy end is handled on an event loop
+	 * @return client's end
+     */
+	public Socket connectClient (EventLoop eventLoop) throws IOException {
+		if (front == null) {
+			front = add(ServerSocketChannel.open());
+			front.bind(new InetSocketAddress("127.0.0.1", 0));
+		}
+
+		Socket client = add(new Socket());
+		client.setSoTimeout(timeout);
+		client.connect(front.getLocalAddress());
+
+		SocketChannel channel = front.accept();
+		channel.configureBlocking(false);
+		eventLoop.register(channel, SelectionKey.OP_READ, new HttpClientProxyHandler(EnumSet.allOf(Method.class)));
+		return client;
+	}
+
+	public Socket accept (ServerSocket server) throws IOException {
+		Socket socket = add(server.accept());
+		socket.setSoTimeout(timeout);
+		return socket;
+	}
+
+	/**
+	 * Runs a task on an event loop and waits for it
+	 * @return task's result
+     */
+	public <T> T onLoop (EventLoop eventLoop, Supplier<T> task) {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<T> result = new AtomicReference<>();
+
+		eventLoop.execute(() -> {
+			result.set(task.get());
+			latch.countDown();
+		});
+
+		try {
+			assertTrue("Event loop didn't run the task", latch.await(timeout, TimeUnit.MILLISECONDS));
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return result.get();
+	}
+
+	public void onLoop (EventLoop eventLoop, Runnable task) {
+		onLoop(eventLoop, () -> {
+			task.run();
+			return null;
+		});
+	}
+
+	public void awaitTrue (BooleanSupplier condition, long millis) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+		while (!condition.getAsBoolean()) {
+			assertTrue("Timed out waiting", System.nanoTime() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	public static String readUntil (Socket socket, String suffix) throws IOException {
+		InputStream in = socket.getInputStream();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int b;
+
+		while (!out.toString("US-ASCII").endsWith(suffix) && (b = in.read()) != -1)
+			out.write(b);
+
+		return out.toString("US-ASCII");
+	}
+
+	public static String readUntilClosed (Socket socket) throws IOException {
+		InputStream in = socket.getInputStream();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int b;
+
+		while ((b = in.read()) != -1)
+			out.write(b);
+
+		return out.toString("US-ASCII");
+	}
+
+	public static byte[] bytes (String string) {
+		return string.getBytes(StandardCharsets.US_ASCII);
+	}
+}
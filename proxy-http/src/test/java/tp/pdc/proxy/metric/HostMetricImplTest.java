@@ -3,6 +3,7 @@ package tp.pdc.proxy.metric;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Map;
 import java.util.Random;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -43,6 +44,24 @@ public class HostMetricImplTest {
 		testByteAddition(metrics::getBytesWritten, metrics::addBytesWritten);
 	}
 
+	@Test
+	public void testReadsPerWakeup () {
+		metrics.addReadsPerWakeup(1);
+		metrics.addReadsPerWakeup(2);
+		metrics.addReadsPerWakeup(3);
+		metrics.addReadsPerWakeup(4);
+		metrics.addReadsPerWakeup(16);
+		metrics.addReadsPerWakeup(17);
+
+		Map<Integer, Long> distribution = metrics.getReadsPerWakeup();
+		assertEquals(5, distribution.size());
+		assertEquals(Long.valueOf(1), distribution.get(1));
+		assertEquals(Long.valueOf(1), distribution.get(2));
+		assertEquals(Long.valueOf(2), distribution.get(4));
+		assertEquals(Long.valueOf(1), distribution.get(16));
+		assertEquals(Long.valueOf(1), distribution.get(32));
+	}
+
 	private void testByteAddition (Supplier<Long> getter, Consumer<Integer> adder) {
 		assertEquals(0, getter.get().intValue());
 		int bytesAdded = addRandomBytes(adder);
@@ -1,18 +1,32 @@
 package tp.pdc.proxy.metric.stub;
 
+import tp.pdc.proxy.connection.PoolEvent;
 import tp.pdc.proxy.metric.HostMetricImpl;
 import tp.pdc.proxy.metric.interfaces.ServerMetric;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 public class ServerMetricStub extends HostMetricImpl implements ServerMetric {
 
+	private long dnsCacheHits;
+	private long dnsCacheMisses;
+	private long requestRetries;
+	private long queueDepth;
+	private long queueWaits;
+	private long queueWaitMillis;
+	private long queueRejections;
 	private final Map<Integer, Integer> responseCodeCount;
+	private final Map<PoolEvent, Long> poolEvents;
+	private final Map<String, Long> warmConnections;
 
 	public ServerMetricStub () {
 		responseCodeCount = new HashMap<>();
+		poolEvents = new EnumMap<>(PoolEvent.class);
+		warmConnections = new TreeMap<>();
 	}
 
 	@Override
@@ -30,4 +44,85 @@ public class ServerMetricStub extends HostMetricImpl implements ServerMetric {
 	public Set<Integer> getStatusCodes () {
 		return responseCodeCount.keySet();
 	}
+
+	@Override
+	public void addDnsCacheHit () {
+		dnsCacheHits++;
+	}
+
+	@Override
+	public void addDnsCacheMiss () {
+		dnsCacheMisses++;
+	}
+
+	@Override
+	public long getDnsCacheHits () {
+		return dnsCacheHits;
+	}
+
+	@Override
+	public long getDnsCacheMisses () {
+		return dnsCacheMisses;
+	}
+
+	@Override
+	public void addPoolEvent (PoolEvent event) {
+		poolEvents.put(event, getPoolEvents(event) + 1);
+	}
+
+	@Override
+	public long getPoolEvents (PoolEvent event) {
+		return poolEvents.getOrDefault(event, 0L);
+	}
+
+	@Override
+	public void addRequestRetry () {
+		requestRetries++;
+	}
+
+	@Override
+	public long getRequestRetries () {
+		return requestRetries;
+	}
+
+	@Override
+	public void addQueueDepth (long delta) {
+		queueDepth += delta;
+	}
+
+	@Override
+	public void addQueueWait (long millis) {
+		queueWaits++;
+		queueWaitMillis += millis;
+	}
+
+	@Override
+	public void addQueueRejection () {
+		queueRejections++;
+	}
+
+	@Override
+	public long getQueueDepth () {
+		return queueDepth;
+	}
+
+	@Override
+	public long getQueueWaitAverage () {
+		return queueWaits == 0 ? 0 : queueWaitMillis / queueWaits;
+	}
+
+	@Override
+	public long getQueueRejections () {
+		return queueRejections;
+	}
+
+	@Override
+	public void addWarmConnections (String destination, long delta) {
+		warmConnections.put(destination, warmConnections.getOrDefault(destination, 0L) + delta);
+	}
+
+	@Override
+	public Map<String, Long> getWarmConnections () {
+		return warmConnections;
+	}
 }
@@ -42,4 +42,25 @@ public class HttpChunkedLeetParserTest {
 		assertTrue(parser.hasFinished());
 	}
 
+	@Test
+	public void testLeetSplitOutput () throws ParserFormatException {
+		String chunked = "10\r\n" + "holi como te va?\r\n" + "0\r\n" + "\r\n";
+		String expectedOutput = "10\r\n" + "h0l1 <0m0 t3 v4?\r\n" + "0\r\n" + "\r\n";
+		StringBuilder actual = new StringBuilder();
+
+		inputBuffer = ByteBuffer.wrap(chunked.getBytes(PROPERTIES.getCharset()));
+		outputBuffer = ByteBuffer.allocateDirect(5);
+
+		while (inputBuffer.hasRemaining()) {
+			parser.parse(inputBuffer, outputBuffer);
+			outputBuffer.flip();
+			byte[] written = new byte[outputBuffer.remaining()];
+			outputBuffer.get(written);
+			actual.append(new String(written, PROPERTIES.getCharset()));
+			outputBuffer.clear();
+		}
+
+		assertEquals(expectedOutput, actual.toString());
+		assertTrue(parser.hasFinished());
+	}
 }
@@ -92,4 +92,47 @@ public class HttpChunkedParserTest {
 		assertEquals(chunked, new String(outputBuffer.array(), 0, outputBuffer.position(), PROPERTIES.getCharset()));
 		assertTrue(parser.hasFinished());
 	}
+
+	@Test
+	public void testLargeChunkSplitAcrossBuffers () throws ParserFormatException {
+		StringBuilder data = new StringBuilder();
+		for (int i = 0; i < 5000; i++)
+			data.append((char) ('a' + i % 26));
+
+		String chunked = Integer.toHexString(data.length()) + "\r\n" + data + "\r\n" + "3\r\n" + "end\r\n" + "0\r\n" + "\r\n";
+		byte[] bytes = chunked.getBytes(PROPERTIES.getCharset());
+		ByteBuffer input = ByteBuffer.allocateDirect(997);
+		ByteBuffer output = ByteBuffer.allocateDirect(331);
+		StringBuilder actual = new StringBuilder();
+		boolean finished = false;
+
+		for (int offset = 0; offset < bytes.length; offset += input.capacity()) {
+			input.clear();
+			input.put(bytes, offset, Math.min(input.capacity(), bytes.length - offset));
+			input.flip();
+
+			while (input.hasRemaining()) {
+				finished = parser.parse(input, output);
+				output.flip();
+				byte[] written = new byte[output.remaining()];
+				output.get(written);
+				actual.append(new String(written, PROPERTIES.getCharset()));
+				output.clear();
+			}
+		}
+
+		assertTrue(finished);
+		assertEquals(chunked, actual.toString());
+	}
+
+	@Test
+	public void testNoPassThrough () {
+		assertEquals(0, parser.getPassThroughBytes());
+		parser.passThrough(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPassThroughOverLimit () {
+		parser.passThrough(1);
+	}
 }
@@ -0,0 +1,81 @@
+package tp.pdc.proxy.parser.body;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.exceptions.ParserFormatException;
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpConnectionCloseChunkedParserTest {
+
+	private static final Charset charset = ProxyProperties.getInstance().getCharset();
+
+	private ByteBuffer outputBuffer;
+
+	@Before
+	public void setUp () throws Exception {
+		outputBuffer = ByteBuffer.allocate(64);
+	}
+
+	@Test
+	public void testChunkPerParse () throws ParserFormatException {
+		HttpConnectionCloseChunkedParser parser = new HttpConnectionCloseChunkedParser(false);
+
+		assertFalse(parser.parse(wrap("hello world"), outputBuffer));
+		assertFalse(parser.parse(wrap("!"), outputBuffer));
+		assertTrue(parser.signalEndOfInput());
+		assertTrue(parser.parse(wrap(""), outputBuffer));
+		assertTrue(parser.hasFinished());
+
+		assertEquals("b\r\nhello world\r\n1\r\n!\r\n0\r\n\r\n", output());
+	}
+
+	@Test
+	public void testLeet () throws ParserFormatException {
+		HttpConnectionCloseChunkedParser parser = new HttpConnectionCloseChunkedParser(true);
+
+		parser.parse(wrap("hola como te va"), outputBuffer);
+		assertEquals("f\r\nh0l4 <0m0 t3 v4\r\n", output());
+	}
+
+	@Test
+	public void testChunkFitsOutput () throws ParserFormatException {
+		HttpConnectionCloseChunkedParser parser = new HttpConnectionCloseChunkedParser(false);
+		ByteBuffer input = wrap("0123456789");
+		outputBuffer = ByteBuffer.allocate(10);
+
+		parser.parse(input, outputBuffer);
+
+		assertEquals("5\r\n01234\r\n", output());
+		assertEquals(5, input.remaining());
+	}
+
+	@Test
+	public void testLastChunkWaitsForRoom () throws ParserFormatException {
+		HttpConnectionCloseChunkedParser parser = new HttpConnectionCloseChunkedParser(false);
+		outputBuffer = ByteBuffer.allocate(4);
+		parser.signalEndOfInput();
+
+		assertFalse(parser.parse(wrap(""), outputBuffer));
+		assertFalse(outputBuffer.hasRemaining());
+
+		outputBuffer = ByteBuffer.allocate(5);
+		assertTrue(parser.parse(wrap(""), outputBuffer));
+		assertEquals("0\r\n\r\n", output());
+	}
+
+	private ByteBuffer wrap (String s) {
+		return ByteBuffer.wrap(s.getBytes(charset));
+	}
+
+	private String output () {
+		return new String(outputBuffer.array(), 0, outputBuffer.position(), charset);
+	}
+}
@@ -125,6 +125,23 @@ public class HttpContentLengthParserTest {
 		assertTrue(parser.hasFinished());
 	}
 
+	@Test
+	public void testPassThrough () throws ParserFormatException {
+		parser = new HttpContentLengthParser(body.length());
+		outputBuffer = ByteBuffer.allocate(5);
+
+		parser.parse(inputBuffer, outputBuffer);
+		assertEquals(body.length() - 5, parser.getPassThroughBytes());
+
+		parser.passThrough(body.length() - 6);
+		assertEquals(1, parser.getPassThroughBytes());
+		assertFalse(parser.hasFinished());
+
+		parser.passThrough(1);
+		assertEquals(0, parser.getPassThroughBytes());
+		assertTrue(parser.hasFinished());
+	}
+
 	private String byteBufferToString (ByteBuffer buffer) {
 		return new String(buffer.array(),  0, buffer.position(),
 			PROPERTIES.getCharset());
@@ -0,0 +1,125 @@
+package tp.pdc.proxy.parser.component;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.exceptions.ParserFormatException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HeaderIndexTest {
+
+	private static final int BUDGET = 64;
+	private static final int RECORD_BYTES = 12;
+
+	private HeaderIndex index;
+
+	@Before
+	public void setUp () throws Exception {
+		index = new HeaderIndex(4, BUDGET);
+	}
+
+	@Test
+	public void testValuesGrowArena () throws ParserFormatException {
+		index = new HeaderIndex(4, 128);
+
+		save(0, "google.com");
+		save(3, "");
+		save(20, "a custom header value");
+
+		assertArrayEquals(bytes("google.com"), index.getValue(0));
+		assertArrayEquals(bytes(""), index.getValue(3));
+		assertArrayEquals(bytes("a custom header value"), index.getValue(20));
+		assertNull(index.getValue(1));
+		assertFalse(index.contains(1));
+	}
+
+	@Test
+	public void testLastRepeatedValueFound () throws ParserFormatException {
+		save(1, "close");
+		save(1, "keep-alive");
+
+		assertArrayEquals(bytes("keep-alive"), index.getValue(1));
+	}
+
+	@Test
+	public void testManyRecords () throws ParserFormatException {
+		index = new HeaderIndex(4, 1024);
+
+		for (int id = 0; id < 30; id++)
+			save(id, String.valueOf(id));
+
+		for (int id = 0; id < 30; id++)
+			assertArrayEquals(bytes(String.valueOf(id)), index.getValue(id));
+	}
+
+	@Test
+	public void testBudgetShared () throws ParserFormatException {
+		int valueLength = BUDGET / 2 - RECORD_BYTES;
+		save(0, new String(new char[valueLength]).replace('\0', 'a'));
+		save(1, new String(new char[valueLength]).replace('\0', 'b'));
+		index.clear();
+		save(0, new String(new char[valueLength + 1]).replace('\0', 'a'));
+		save(1, new String(new char[valueLength - 1]).replace('\0', 'b'));
+
+		try {
+			index.append((byte) 'b');
+		} catch (ParserFormatException e) {
+			assertEquals(valueLength - 1, index.lastLength());
+			return;
+		}
+
+		throw new AssertionError("Budget exceeded");
+	}
+
+	@Test(expected = ParserFormatException.class)
+	public void testEmptyRecordsCharged () throws ParserFormatException {
+		for (int i = 0; i <= BUDGET / RECORD_BYTES; i++)
+			index.start(0);
+	}
+
+	@Test
+	public void testOpenValueNotFound () throws ParserFormatException {
+		save(0, "google.com");
+		index.start(0);
+		index.append((byte) 'e');
+
+		assertArrayEquals(bytes("google.com"), index.getValue(0));
+		assertFalse(index.contains(1));
+
+		index.end();
+		assertArrayEquals(bytes("e"), index.getValue(0));
+	}
+
+	@Test
+	public void testClear () throws ParserFormatException {
+		save(0, "google.com");
+		index.clear();
+
+		assertFalse(index.contains(0));
+
+		save(0, "example.com");
+		assertTrue(index.contains(0));
+		assertArrayEquals(bytes("example.com"), index.getValue(0));
+	}
+
+	private void save (int id, String value) throws ParserFormatException {
+		index.start(id);
+
+		for (byte b : bytes(value))
+			index.append(b);
+
+		assertEquals(value.length(), index.lastLength());
+		index.end();
+	}
+
+	private static byte[] bytes (String value) {
+		return value.getBytes(StandardCharsets.US_ASCII);
+	}
+}
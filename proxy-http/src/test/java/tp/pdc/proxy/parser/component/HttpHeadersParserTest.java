@@ -6,6 +6,7 @@ import org.junit.Test;
 import tp.pdc.proxy.bytes.BytesUtils;
 import tp.pdc.proxy.exceptions.ParserFormatException;
 import tp.pdc.proxy.header.Header;
+import tp.pdc.proxy.header.HttpErrorCode;
 import tp.pdc.proxy.parser.component.HttpHeaderParserImpl;
 import tp.pdc.proxy.parser.interfaces.HttpHeaderParser;
 import tp.pdc.proxy.properties.ProxyProperties;
@@ -155,16 +156,109 @@ public class HttpHeadersParserTest {
 		parser.parse(longInput, outputBuffer);
 	}
 
-	// TODO: puede que el buffer sea muy chico, ver cual es un tamaño apropiado
-	@Test(expected = ParserFormatException.class)
-	public void RelevantHeaderContentTooLongTest () throws ParserFormatException {
-		String header = "Host: http://www.google.com.www.google.com.www.google.com.www.google.com."
+	@Test
+	public void RelevantHeaderContentLongerThanBufferTest () throws ParserFormatException {
+		String host = "www.google.com.www.google.com.www.google.com.www.google.com.www.google.com."
 			+ "www.google.com.www.google.com.www.google.com.www.google.com.www.google.com."
 			+ "www.google.com.www.google.com.www.google.com.www.google.com.www.google.com";
+		String headers = "Host: " + host + "\r\n" + "Connection: close\r\n\r\n";
 
-		ByteBuffer longInput = ByteBuffer.wrap(header.getBytes(charset));
-		parser.parse(longInput, outputBuffer);
+		ByteBuffer longInput = ByteBuffer.wrap(headers.getBytes(charset));
+		ByteBuffer smallOutput = ByteBuffer.allocate(16);
+		StringBuilder output = new StringBuilder();
+
+		while (!parser.parse(longInput, smallOutput)) {
+			output.append(new String(smallOutput.array(), 0, smallOutput.position(), charset));
+			smallOutput.clear();
+		}
+		output.append(new String(smallOutput.array(), 0, smallOutput.position(), charset));
+
+		assertEquals(headers, output.toString());
+		assertArrayEquals(host.getBytes(charset), parser.getHeaderValue(Header.HOST));
+		assertArrayEquals("close".getBytes(charset), parser.getHeaderValue(Header.CONNECTION));
 	}
 
+	@Test(expected = ParserFormatException.class)
+	public void RelevantHeaderContentOverBudgetTest () throws ParserFormatException {
+		StringBuilder header = new StringBuilder("Host: ");
+		for (int i = 0; i <= ProxyProperties.getInstance().getHeaderBudget(); i++)
+			header.append('a');
+
+		ByteBuffer longInput = ByteBuffer.wrap(header.toString().getBytes(charset));
+		parser.parse(longInput, ByteBuffer.allocate(2 * header.length()));
+	}
 
+	@Test
+	public void RepeatedEmptyRelevantHeadersOverBudgetTest () throws ParserFormatException {
+		StringBuilder headers = new StringBuilder();
+		for (int i = 0; i <= ProxyProperties.getInstance().getHeaderBudget() / 12; i++)
+			headers.append("Host: \t\r\n");
+
+		ByteBuffer input = ByteBuffer.wrap(headers.toString().getBytes(charset));
+
+		try {
+			while (input.hasRemaining()) {
+				parser.parse(input, outputBuffer);
+				outputBuffer.clear();
+			}
+		} catch (ParserFormatException e) {
+			assertEquals(HttpErrorCode.HEADER_FIELD_TOO_LARGE_431, e.getResponseErrorCode());
+			return;
+		}
+
+		fail("Header budget not enforced");
+	}
+
+	@Test
+	public void WordScanMatchesByteWiseTest () throws ParserFormatException {
+		String headers = "Host: google.com\r\n" + "User-Agent: Mozilla/5.0 (X11; Linux x86_64)\tGecko\r\n"
+			+ "Accept: */*\r\n" + "connection: close\r\n" + "Cookie: a=1; b=2; c=3; d=4; e=5\r\n"
+			+ "Proxy-Connection: keep-alive\r\n" + "X-A: b\r\n" + "content-length: 5\r\n\r\n";
+		byte[] bytes = headers.getBytes(charset);
+
+		Map<Header, byte[]> toAdd = new HashMap<>();
+		toAdd.put(Header.CONNECTION, "keep-alive".getBytes(charset));
+
+		for (int split = 0; split <= bytes.length; split++) {
+			HttpHeaderParserImpl byteWise = new HttpHeaderParserImpl(toAdd, EnumSet.of(Header.PROXY_CONNECTION),
+				EnumSet.of(Header.CONTENT_LENGTH));
+			HttpHeaderParserImpl wordScan = new HttpHeaderParserImpl(toAdd, EnumSet.of(Header.PROXY_CONNECTION),
+				EnumSet.of(Header.CONTENT_LENGTH));
+
+			byteWise.setWordScan(false);
+			wordScan.setWordScan(true);
+
+			assertArrayEquals(parseInTwo(byteWise, bytes, split), parseInTwo(wordScan, bytes, split));
+			assertArrayEquals(byteWise.getHeaderValue(Header.HOST), wordScan.getHeaderValue(Header.HOST));
+			assertArrayEquals("5".getBytes(charset), wordScan.getHeaderValue(Header.CONTENT_LENGTH));
+		}
+	}
+
+	@Test(expected = ParserFormatException.class)
+	public void WordScanInvalidContentTest () throws ParserFormatException {
+		HttpHeaderParserImpl wordScan = new HttpHeaderParserImpl(Collections.emptyMap(), Collections.emptySet(),
+			Collections.emptySet());
+		byte[] bytes = "User-Agent: Mozilla/5.0 (X11; Linux\u0001x86_64)\r\n\r\n".getBytes(charset);
+
+		wordScan.setWordScan(true);
+		parseInTwo(wordScan, bytes, bytes.length);
+	}
+
+	/**
+	 * Parses from direct buffers, as the proxy does, the input arriving in two reads
+	 */
+	private byte[] parseInTwo (HttpHeaderParser parser, byte[] bytes, int split) throws ParserFormatException {
+		ByteBuffer input = ByteBuffer.allocateDirect(bytes.length);
+		ByteBuffer output = ByteBuffer.allocateDirect(2000);
+
+		input.put(bytes, 0, split).flip();
+		boolean finished = parser.parse(input, output);
+		input.compact().put(bytes, split, bytes.length - split).flip();
+		assertTrue(finished || parser.parse(input, output));
+
+		output.flip();
+		byte[] parsed = new byte[output.remaining()];
+		output.get(parsed);
+		return parsed;
+	}
 }
@@ -12,6 +12,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static tp.pdc.proxy.parser.utils.AsciiConstants.CR;
 
@@ -131,6 +132,24 @@ public class HttpVersionParserTest {
 		output.clear();
 	}
 
+	@Test
+	public void zeroVersionTest () throws ParserFormatException {
+		parser.parse(ByteBuffer.wrap("HTTP/1.0\r".getBytes(charset)), output);
+
+		assertTrue(parser.readMinorVersion());
+		assertEquals(1, parser.getMajorHttpVersion());
+		assertEquals(0, parser.getMinorHttpVersion());
+	}
+
+	@Test
+	public void resetClearsVersionTest () throws ParserFormatException {
+		parser.parse(ByteBuffer.wrap("HTTP/1.1\r".getBytes(charset)), output);
+		parser.reset();
+
+		assertFalse(parser.readMajorVersion());
+		assertFalse(parser.readMinorVersion());
+	}
+
 	@Test
 	public void leaveUnreadDataTest () throws ParserFormatException {
 		String version = "HTTP/1.2\r";
@@ -0,0 +1,89 @@
+package tp.pdc.proxy.parser.encoders;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class StaticL33tEncoderTest {
+
+	private byte[] bytes;
+	private byte[] expected;
+
+	@Before
+	public void setUp () throws Exception {
+		bytes = new byte[256 + 13];
+		expected = new byte[bytes.length];
+
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) i;
+			expected[i] = StaticL33tEncoder.encodeByte(bytes[i]);
+		}
+	}
+
+	@Test
+	public void testEncodeHeap () {
+		assertEncodesCopying(ByteBuffer.allocate(bytes.length), ByteBuffer.allocate(bytes.length));
+	}
+
+	@Test
+	public void testEncodeDirect () {
+		assertEncodesCopying(ByteBuffer.allocateDirect(bytes.length), ByteBuffer.allocateDirect(bytes.length));
+	}
+
+	@Test
+	public void testEncodeHeapToDirect () {
+		assertEncodesCopying(ByteBuffer.allocate(bytes.length), ByteBuffer.allocateDirect(bytes.length));
+	}
+
+	@Test
+	public void testEncodeInPlaceEveryAlignment () {
+		for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+			for (int from = 0; from < Long.BYTES; from++) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).order(order);
+				buffer.put(bytes);
+
+				StaticL33tEncoder.encode(buffer, from, bytes.length - 1);
+
+				for (int i = 0; i < bytes.length; i++)
+					assertEquals(i >= from && i < bytes.length - 1 ? expected[i] : bytes[i], buffer.get(i));
+				assertEquals(bytes.length, buffer.position());
+			}
+		}
+	}
+
+	@Test
+	public void testEncodeInPlaceSlice () {
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 3);
+		buffer.position(3);
+		buffer = buffer.slice();
+		buffer.put(bytes);
+
+		StaticL33tEncoder.encode(buffer, 0, bytes.length);
+
+		byte[] actual = new byte[bytes.length];
+		buffer.flip();
+		buffer.get(actual);
+		assertArrayEquals(expected, actual);
+	}
+
+	private void assertEncodesCopying (ByteBuffer input, ByteBuffer output) {
+		input.put(bytes).flip();
+		input.get();
+		output.put((byte) 'x');
+
+		StaticL33tEncoder.encode(input, output, bytes.length - 1);
+
+		assertEquals(bytes.length, input.position());
+		assertEquals(bytes.length, output.position());
+
+		output.flip();
+		assertEquals('x', output.get());
+		for (int i = 1; i < bytes.length; i++)
+			assertEquals(expected[i], output.get());
+	}
+}
@@ -12,6 +12,8 @@ import tp.pdc.proxy.header.Header;
 import tp.pdc.proxy.header.HeaderValue;
 import tp.pdc.proxy.header.Method;
 import tp.pdc.proxy.parser.body.HttpChunkedParser;
+import tp.pdc.proxy.parser.body.HttpConnectionCloseChunkedParser;
+import tp.pdc.proxy.parser.body.HttpConnectionCloseParser;
 import tp.pdc.proxy.parser.body.HttpContentLengthLeetParser;
 import tp.pdc.proxy.parser.body.HttpContentLengthParser;
 import tp.pdc.proxy.parser.body.HttpNoBodyParser;
@@ -22,7 +24,9 @@ import tp.pdc.proxy.parser.interfaces.HttpResponseParser;
 import java.nio.charset.Charset;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -65,7 +69,7 @@ public class HttpBodyParserFactoryTest {
 		when(responseParserMock.getStatusCode()).thenReturn(200);
 
 		HttpBodyParser parser =
-			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.POST);
+			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.POST, false);
 
 		assertNotNull(parser);
 		assertEquals(HttpContentLengthParser.class, parser.getClass());
@@ -93,7 +97,7 @@ public class HttpBodyParserFactoryTest {
 		when(responseParserMock.getStatusCode()).thenReturn(200);
 
 		HttpBodyParser parser =
-			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.POST);
+			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.POST, false);
 
 		assertNotNull(parser);
 		assertEquals(HttpChunkedParser.class, parser.getClass());
@@ -112,11 +116,24 @@ public class HttpBodyParserFactoryTest {
 	@Test
 	public void testServerMethodNullParser () throws ParserFormatException {
 		HttpBodyParser parser =
-			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.HEAD);
+			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.HEAD, false);
 		assertNotNull(parser);
 		assertEquals(HttpNoBodyParser.getInstance(), parser);
 	}
 
+	@Test
+	public void testServerConnectionCloseReframed () throws ParserFormatException {
+		when(responseParserMock.getStatusCode()).thenReturn(200);
+
+		assertTrue(bodyParserFactory.isReframedAsChunked(responseParserMock, Method.GET, true));
+		assertFalse(bodyParserFactory.isReframedAsChunked(responseParserMock, Method.GET, false));
+		assertFalse(bodyParserFactory.isReframedAsChunked(responseParserMock, Method.HEAD, true));
+		assertEquals(HttpConnectionCloseChunkedParser.class,
+			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.GET, true).getClass());
+		assertEquals(HttpConnectionCloseParser.getInstance(),
+			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.GET, false));
+	}
+
 	@Test
 	public void testServerStatusCodeNullParser () throws ParserFormatException {
 		assertStatusCodeNoBodyParser(100);
@@ -204,7 +221,7 @@ public class HttpBodyParserFactoryTest {
 	private void assertStatusCodeNoBodyParser (int statusCode) throws ParserFormatException {
 		when(responseParserMock.getStatusCode()).thenReturn(statusCode);
 		HttpBodyParser parser =
-			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.GET);
+			bodyParserFactory.getServerHttpBodyParser(responseParserMock, Method.GET, false);
 		assertNotNull(parser);
 		assertEquals(HttpNoBodyParser.getInstance(), parser);
 	}
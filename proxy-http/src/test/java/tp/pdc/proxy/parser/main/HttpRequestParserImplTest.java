@@ -112,6 +112,39 @@ public class HttpRequestParserImplTest {
 		assertArrayEquals(host.getBytes(charset), parser.getHostValue());
 	}
 
+	@Test
+	public void hostRangeInHeaderTest () throws UnsupportedEncodingException, ParserFormatException {
+		String host = "localhost:8080";
+		String request = "GET / HTTP/1.1\r\n" + "X-Header: Custom\r\n" + "Host: " + host + "\r\n" + "\r\n";
+
+		parser.parse(ByteBuffer.wrap(request.getBytes(charset)), outputBuffer);
+
+		assertEquals(host, hostRange(parser));
+	}
+
+	@Test
+	public void hostRangeInURITest () throws UnsupportedEncodingException, ParserFormatException {
+		String host = "localhost:8080";
+		String request = "GET http://" + host + "/ HTTP/1.1\r\n" + "Host: other.com\r\n" + "\r\n";
+
+		parser.parse(ByteBuffer.wrap(request.getBytes(charset)), outputBuffer);
+
+		assertEquals(host, hostRange(parser));
+	}
+
+	@Test
+	public void hostSplitAcrossBuffersTest () throws UnsupportedEncodingException, ParserFormatException {
+		String first = "GET / HTTP/1.1\r\n" + "Host: exam";
+		String second = "ple.com\r\n" + "\r\n";
+
+		assertFalse(parser.parse(ByteBuffer.wrap(first.getBytes(charset)), outputBuffer));
+		assertFalse(parser.hasHost());
+
+		assertTrue(parser.parse(ByteBuffer.wrap(second.getBytes(charset)), outputBuffer));
+		assertTrue(parser.hasHost());
+		assertArrayEquals("example.com".getBytes(charset), parser.getHostValue());
+	}
+
 	@Test
 	public void getHostInURITest () throws UnsupportedEncodingException, ParserFormatException {
 		String scheme = "http://";
@@ -261,4 +294,7 @@ public class HttpRequestParserImplTest {
 		}
 	}
 
+	private String hostRange (HttpRequestParser parser) {
+		return new String(parser.getHostArray(), parser.getHostOffset(), parser.getHostLength(), charset);
+	}
 }
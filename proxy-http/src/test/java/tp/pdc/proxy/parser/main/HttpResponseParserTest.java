@@ -14,6 +14,7 @@ import java.nio.charset.Charset;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class HttpResponseParserTest {
@@ -63,6 +64,89 @@ public class HttpResponseParserTest {
 				inputWithRemaining.remaining(), charset));
 	}
 
+	@Test
+	public void passThroughContentLengthTest () throws ParserFormatException {
+		parser = HttpResponseParserFactory.getInstance().getResponseParser(Method.GET);
+		ByteBuffer input = ByteBuffer.wrap((responseLine.replace(statusCode + " ", "200 ")
+			+ "content-length: 10\r\n\r\n0123").getBytes(charset));
+
+		assertEquals(0, parser.getPassThroughBytes());
+		parser.parse(input, output);
+		assertEquals(6, parser.getPassThroughBytes());
+
+		parser.passThrough(6);
+		assertTrue(parser.hasFinished());
+		assertEquals(0, parser.getPassThroughBytes());
+	}
+
+	@Test
+	public void noPassThroughChunkedTest () throws ParserFormatException {
+		parser = HttpResponseParserFactory.getInstance().getResponseParser(Method.GET);
+		ByteBuffer input = ByteBuffer.wrap((responseLine.replace(statusCode + " ", "200 ")
+			+ "transfer-encoding: chunked\r\n\r\n").getBytes(charset));
+
+		parser.parse(input, output);
+		assertTrue(parser.hasHeadersFinished());
+		assertEquals(0, parser.getPassThroughBytes());
+	}
+
+	@Test
+	public void reframeConnectionCloseTest () throws ParserFormatException {
+		parser = HttpResponseParserFactory.getInstance().getResponseParser(Method.GET);
+		parser.setClientAcceptsChunked(true);
+		ByteBuffer input = ByteBuffer.wrap(("HTTP/1.0 200 OK\r\n" + "content-type: text/html\r\n\r\nhello")
+			.getBytes(charset));
+
+		parser.parse(input, output);
+		assertTrue(parser.signalEndOfInput());
+		assertTrue(parser.parse(ByteBuffer.allocate(0), output));
+		assertTrue(parser.hasFinished());
+
+		String response = new String(output.array(), 0, output.position(), charset);
+		assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"));
+		assertTrue(response.contains("transfer-encoding: chunked\r\n\r\n5\r\nhello\r\n0\r\n\r\n"));
+		assertEquals(0, parser.getMinorHttpVersion());
+	}
+
+	@Test
+	public void http11StatusLineForChunkedClientsTest () throws ParserFormatException {
+		parser = HttpResponseParserFactory.getInstance().getResponseParser(Method.GET);
+		parser.setClientAcceptsChunked(true);
+		ByteBuffer input = ByteBuffer.wrap(("HTTP/1.0 200 OK\r\n" + "content-length: 5\r\n\r\nhello")
+			.getBytes(charset));
+
+		assertTrue(parser.parse(input, output));
+
+		String response = new String(output.array(), 0, output.position(), charset);
+		assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"));
+		assertFalse(response.contains("transfer-encoding"));
+	}
+
+	@Test
+	public void noReframeForOldClientsTest () throws ParserFormatException {
+		parser = HttpResponseParserFactory.getInstance().getResponseParser(Method.GET);
+		ByteBuffer input = ByteBuffer.wrap(("HTTP/1.0 200 OK\r\n\r\nhello").getBytes(charset));
+
+		parser.parse(input, output);
+		assertFalse(parser.signalEndOfInput());
+
+		String response = new String(output.array(), 0, output.position(), charset);
+		assertTrue(response.startsWith("HTTP/1.0 200 OK\r\n"));
+		assertFalse(response.contains("transfer-encoding"));
+		assertTrue(response.endsWith("\r\n\r\nhello"));
+	}
+
+	@Test
+	public void keepAliveParametersTest () throws ParserFormatException {
+		assertEquals(-1, parser.getKeepAliveTimeout());
+
+		ByteBuffer input = ByteBuffer.wrap((responseLine + "Keep-Alive: timeout=5, max=99\r\n\r\n").getBytes(charset));
+		parser.parse(input, output);
+
+		assertEquals(5, parser.getKeepAliveTimeout());
+		assertEquals(99, parser.getKeepAliveMax());
+	}
+
 	//TODO: hacer mas. Falta probar mandar sin headers, y mandar cosas en pedazos.
 
 }
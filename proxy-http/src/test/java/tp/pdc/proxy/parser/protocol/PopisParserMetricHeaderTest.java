@@ -57,6 +57,11 @@ public class PopisParserMetricHeaderTest {
 		clientMetric.addMethodCount(Method.GET);
 		clientMetric.addMethodCount(Method.POST);
 
+		serverMetric.addReadsPerWakeup(1);
+		serverMetric.addReadsPerWakeup(3);
+		serverMetric.addReadsPerWakeup(1);
+		serverMetric.addWarmConnections("localhost:8080", 3);
+		serverMetric.addWarmConnections("localhost:8080", -1);
 
 		String protocolInput = "server_bytes_read\r\n" + "METricS\r\n" + "EnD\r\n";
 
@@ -64,10 +69,20 @@ public class PopisParserMetricHeaderTest {
 			+ PROTOCOL_PARSER_BUFFER_SIZE + "\r\n" + "+is_l33t_enabled: NO\r\n"
 			+ "+client_bytes_read: 4\r\n" + "+client_bytes_written: 5\r\n"
 			+ "+client_connections: 1\r\n" + "+server_bytes_read: 2\r\n"
-			+ "+server_bytes_written: 3\r\n" + "+server_connections: 1\r\n" + "+method_count\r\n"
+			+ "+server_bytes_written: 3\r\n" + "+server_connections: 1\r\n"
+			+ "+dns_cache_hits: 0\r\n" + "+dns_cache_misses: 0\r\n"
+			+ "+pool_hits: 0\r\n" + "+pool_misses: 0\r\n"
+			+ "+pool_evictions: 0\r\n" + "+pool_stale_discards: 0\r\n" + "+request_retries: 0\r\n"
+			+ "+queue_depth: 0\r\n" + "+queue_wait_avg_ms: 0\r\n" + "+queue_rejections: 0\r\n"
+			+ "+header_read_timeouts: 0\r\n" + "+body_read_timeouts: 0\r\n"
+			+ "+connect_timeouts: 0\r\n" + "+first_byte_timeouts: 0\r\n"
+			+ "+keepalive_timeouts: 0\r\n" + "+method_count\r\n"
 			+ "+*8\r\n" + "+GET: 2\r\n" + "+POST: 1\r\n" + "+HEAD: 0\r\n" + "+OPTIONS: 0\r\n"
 			+ "+PUT: 0\r\n" + "+DELETE: 0\r\n" + "+TRACE: 0\r\n" + "+CONNECT: 0\r\n"
-			+ "+status_code_count\r\n" + "+*2\r\n" + "+404: 3\r\n" + "+302: 1\r\n" + "+end\r\n";
+			+ "+status_code_count\r\n" + "+*2\r\n" + "+404: 3\r\n" + "+302: 1\r\n"
+			+ "+buffer_sizes\r\n" + "+*0\r\n" + "+client_reads_wakeup\r\n" + "+*0\r\n"
+			+ "+server_reads_wakeup\r\n" + "+*2\r\n" + "+1: 2\r\n" + "+4: 1\r\n"
+			+ "+warm_pool\r\n" + "+*1\r\n" + "+localhost:8080: 2\r\n" + "+end\r\n";
 
 		inputBuffer = ByteBuffer.wrap(protocolInput.getBytes("ASCII"));
 
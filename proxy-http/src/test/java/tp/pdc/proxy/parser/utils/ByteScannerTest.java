@@ -0,0 +1,91 @@
+package tp.pdc.proxy.parser.utils;
+
+import org.junit.Test;
+
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ByteScannerTest {
+
+	private static final Charset charset = ProxyProperties.getInstance().getCharset();
+
+	@Test
+	public void indexOfEveryPositionTest () {
+		for (ByteBuffer buffer : buffers(20)) {
+			for (int position = 0; position < 20; position++) {
+				fill(buffer, (byte) 'a');
+				buffer.put(position, (byte) ':');
+
+				assertEquals(position, ByteScanner.indexOf(buffer, 0, 20, (byte) ':'));
+				assertEquals(-1, ByteScanner.indexOf(buffer, position + 1, 20, (byte) ':'));
+				assertEquals(-1, ByteScanner.indexOf(buffer, 0, position, (byte) ':'));
+			}
+		}
+	}
+
+	@Test
+	public void indexOfFirstMatchTest () {
+		ByteBuffer buffer = ByteBuffer.wrap("a\r\rb\r\n\r\r\r\r\r".getBytes(charset));
+
+		assertEquals(1, ByteScanner.indexOf(buffer, 0, buffer.limit(), (byte) '\r'));
+		assertEquals(-1, ByteScanner.indexOf(buffer, 0, buffer.limit(), (byte) 0));
+
+		buffer = ByteBuffer.wrap(new byte[] {1, 0, 0, 1, 0, 1, 1, 1, 0});
+		assertEquals(1, ByteScanner.indexOf(buffer, 0, buffer.limit(), (byte) 0));
+		assertEquals(0, ByteScanner.indexOf(buffer, 0, buffer.limit(), (byte) 1));
+	}
+
+	@Test
+	public void byteMaskTest () {
+		for (int value = 0; value < 256; value++) {
+			for (int position = 0; position < 8; position++) {
+				long word = (0x7F80FF0001FE7E41L & ~(0xFFL << (position * 8))) | ((long) value << (position * 8));
+				long expected = 0;
+
+				for (int i = 0; i < 8; i++)
+					if ((word >>> (i * 8) & 0xFF) == value)
+						expected |= 0xFFL << (i * 8);
+
+				assertEquals(expected, ByteScanner.byteMask(word, (byte) value));
+			}
+		}
+	}
+
+	@Test
+	public void isHeaderContentTest () {
+		for (ByteBuffer buffer : buffers(20)) {
+			fill(buffer, (byte) ' ');
+			assertTrue(ByteScanner.isHeaderContent(buffer, 0, 20));
+
+			buffer.put(3, (byte) '\t').put(11, (byte) '~');
+			assertTrue(ByteScanner.isHeaderContent(buffer, 0, 20));
+
+			for (byte invalid : new byte[] {0, 1, 31, 127, (byte) 128, (byte) 255}) {
+				for (int position = 0; position < 20; position++) {
+					fill(buffer, (byte) 'a');
+					buffer.put(position, invalid);
+
+					assertFalse(ByteScanner.isHeaderContent(buffer, 0, 20));
+					assertTrue(ByteScanner.isHeaderContent(buffer, position + 1, 20));
+				}
+			}
+		}
+	}
+
+	private ByteBuffer[] buffers (int capacity) {
+		return new ByteBuffer[] {ByteBuffer.allocate(capacity), ByteBuffer.allocateDirect(capacity),
+			ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN)};
+	}
+
+	private void fill (ByteBuffer buffer, byte value) {
+		for (int i = 0; i < buffer.capacity(); i++)
+			buffer.put(i, value);
+	}
+}
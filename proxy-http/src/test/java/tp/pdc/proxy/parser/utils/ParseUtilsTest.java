@@ -0,0 +1,62 @@
+package tp.pdc.proxy.parser.utils;
+
+import org.junit.Test;
+
+import tp.pdc.proxy.exceptions.ParserFormatException;
+import tp.pdc.proxy.parser.component.HttpVersionParserImpl;
+import tp.pdc.proxy.parser.interfaces.HttpVersionParser;
+import tp.pdc.proxy.properties.ProxyProperties;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static tp.pdc.proxy.parser.utils.AsciiConstants.CR;
+
+public class ParseUtilsTest {
+
+	private static final Charset charset = ProxyProperties.getInstance().getCharset();
+
+	@Test
+	public void containsTokenTest () {
+		byte[] close = "close".getBytes(charset);
+
+		assertTrue(ParseUtils.containsToken("close".getBytes(charset), close));
+		assertTrue(ParseUtils.containsToken("Keep-Alive, CLOSE".getBytes(charset), close));
+		assertTrue(ParseUtils.containsToken(" close ,upgrade".getBytes(charset), close));
+		assertFalse(ParseUtils.containsToken("closed".getBytes(charset), close));
+		assertFalse(ParseUtils.containsToken("keep-alive".getBytes(charset), close));
+		assertFalse(ParseUtils.containsToken(new byte[0], close));
+	}
+
+	@Test
+	public void parseParameterTest () {
+		byte[] keepAlive = "timeout=5, MAX=100".getBytes(charset);
+
+		assertEquals(5, ParseUtils.parseParameter(keepAlive, "timeout".getBytes(charset)));
+		assertEquals(100, ParseUtils.parseParameter(keepAlive, "max".getBytes(charset)));
+		assertEquals(-1, ParseUtils.parseParameter(keepAlive, "time".getBytes(charset)));
+		assertEquals(-1, ParseUtils.parseParameter("timeout=".getBytes(charset), "timeout".getBytes(charset)));
+		assertEquals(-1, ParseUtils.parseParameter("timeout=a".getBytes(charset), "timeout".getBytes(charset)));
+	}
+
+	@Test
+	public void persistentConnectionTest () throws ParserFormatException {
+		HttpVersionParser http11 = version("HTTP/1.1\r");
+		HttpVersionParser http10 = version("HTTP/1.0\r");
+
+		assertTrue(ParseUtils.isPersistentConnection(http11, null));
+		assertFalse(ParseUtils.isPersistentConnection(http11, "close".getBytes(charset)));
+		assertFalse(ParseUtils.isPersistentConnection(http10, null));
+		assertTrue(ParseUtils.isPersistentConnection(http10, "Keep-Alive".getBytes(charset)));
+		assertFalse(ParseUtils.isPersistentConnection(http10, "keep-alive, close".getBytes(charset)));
+	}
+
+	private HttpVersionParser version (String version) throws ParserFormatException {
+		HttpVersionParser parser = new HttpVersionParserImpl(CR.getValue());
+		parser.parse(ByteBuffer.wrap(version.getBytes(charset)), ByteBuffer.allocate(16));
+		return parser;
+	}
+}
@@ -0,0 +1,75 @@
+package tp.pdc.proxy.resolver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.loop.EventLoop;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncResolverTest {
+
+	private AsyncResolver resolver;
+	private EventLoop eventLoop;
+
+	@Before
+	public void setUp () throws Exception {
+		resolver = AsyncResolver.getInstance();
+		eventLoop = new EventLoop(0);
+		eventLoop.start();
+	}
+
+	@Test
+	public void testCallbackRunsOnEventLoop () throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<List<InetSocketAddress>> result = new AtomicReference<>();
+		AtomicReference<EventLoop> callbackLoop = new AtomicReference<>();
+
+		resolver.resolve(InetSocketAddress.createUnresolved("127.0.0.1", 8080), eventLoop, addresses -> {
+			result.set(addresses);
+			callbackLoop.set(EventLoop.current());
+			latch.countDown();
+		});
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertSame(eventLoop, callbackLoop.get());
+		assertEquals(1, result.get().size());
+		assertFalse(result.get().get(0).isUnresolved());
+		assertEquals(8080, result.get().get(0).getPort());
+	}
+
+	@Test
+	public void testResolvedAddressSkipsPool () {
+		InetSocketAddress address = new InetSocketAddress("127.0.0.1", 80);
+		AtomicReference<List<InetSocketAddress>> result = new AtomicReference<>();
+
+		resolver.resolve(address, eventLoop, result::set);
+
+		assertEquals(1, result.get().size());
+		assertSame(address, result.get().get(0));
+	}
+
+	@Test
+	public void testFailedLookupGivesUnresolvedAddress () throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<List<InetSocketAddress>> result = new AtomicReference<>();
+
+		resolver.resolve(InetSocketAddress.createUnresolved("nonexistent.invalid", 80), eventLoop, addresses -> {
+			result.set(addresses);
+			latch.countDown();
+		});
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(1, result.get().size());
+		assertTrue(result.get().get(0).isUnresolved());
+	}
+}
@@ -0,0 +1,91 @@
+package tp.pdc.proxy.resolver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class DnsCacheTest {
+
+	private final static Charset CHARSET = Charset.forName("ASCII");
+	private DnsCache cache;
+
+	@Before
+	public void setUp () throws Exception {
+		cache = new DnsCache(2, 60, 0, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testHitOnEqualBytes () {
+		List<InetSocketAddress> addresses = Arrays.asList(new InetSocketAddress("127.0.0.1", 8080),
+			new InetSocketAddress("::1", 8080));
+
+		cache.put(stringToAscii("localhost:8080"), addresses);
+
+		assertSame(addresses, cache.get(stringToAscii("localhost:8080")));
+		assertNull(cache.get(stringToAscii("localhost:8081")));
+	}
+
+	@Test
+	public void testHitOnEqualRange () {
+		List<InetSocketAddress> addresses = Collections.singletonList(new InetSocketAddress("127.0.0.1", 8080));
+		byte[] request = stringToAscii("Host: localhost:8080\r\n");
+
+		cache.put(stringToAscii("localhost:8080"), addresses);
+
+		assertSame(addresses, cache.get(request, 6, 14));
+		assertNull(cache.get(request, 6, 13));
+		assertNull(cache.get(request, 5, 14));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted () {
+		List<InetSocketAddress> address = Collections.singletonList(new InetSocketAddress("127.0.0.1", 80));
+
+		cache.put(stringToAscii("a"), address);
+		cache.put(stringToAscii("b"), address);
+		cache.get(stringToAscii("a"));
+		cache.put(stringToAscii("c"), address);
+
+		assertEquals(2, cache.size());
+		assertNull(cache.get(stringToAscii("b")));
+		assertSame(address, cache.get(stringToAscii("a")));
+		assertSame(address, cache.get(stringToAscii("c")));
+	}
+
+	@Test
+	public void testNegativeEntries () {
+		List<InetSocketAddress> unresolved =
+			Collections.singletonList(InetSocketAddress.createUnresolved("nonexistent.invalid", 80));
+
+		cache.put(stringToAscii("nonexistent.invalid"), unresolved);
+		assertNull(cache.get(stringToAscii("nonexistent.invalid")));
+
+		cache = new DnsCache(2, 60, 60, TimeUnit.SECONDS);
+		cache.put(stringToAscii("nonexistent.invalid"), unresolved);
+		assertSame(unresolved, cache.get(stringToAscii("nonexistent.invalid")));
+	}
+
+	@Test
+	public void testExpiredEntry () {
+		cache = new DnsCache(2, 0, 0, TimeUnit.SECONDS);
+
+		cache.put(stringToAscii("localhost"), Collections.singletonList(new InetSocketAddress("127.0.0.1", 80)));
+
+		assertNull(cache.get(stringToAscii("localhost")));
+		assertEquals(0, cache.size());
+	}
+
+	private byte[] stringToAscii (String str) {
+		return str.getBytes(CHARSET);
+	}
+}
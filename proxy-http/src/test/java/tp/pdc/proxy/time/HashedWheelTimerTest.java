@@ -0,0 +1,97 @@
+package tp.pdc.proxy.time;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import tp.pdc.proxy.time.HashedWheelTimer.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HashedWheelTimerTest {
+
+	private HashedWheelTimer timer;
+	private List<Integer> fired;
+
+	@Before
+	public void setUp () throws Exception {
+		timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 4);
+		fired = new ArrayList<>();
+	}
+
+	@Test
+	public void testNoPendingTimeouts () {
+		assertEquals(-1, timer.millisToNextTick());
+	}
+
+	@Test
+	public void testNextTickWithinOneTick () {
+		timer.schedule(() -> fired.add(1), 1, TimeUnit.SECONDS);
+		timer.expireTimeouts();
+
+		long millis = timer.millisToNextTick();
+		assertTrue(millis + " ms to next tick", millis >= 0 && millis <= 11);
+	}
+
+	@Test
+	public void testExpiresAfterDeadline () throws InterruptedException {
+		timer.schedule(() -> fired.add(1), 30, TimeUnit.MILLISECONDS);
+
+		timer.expireTimeouts();
+		assertTrue(fired.isEmpty());
+		assertTrue(timer.millisToNextTick() > 0);
+
+		Thread.sleep(50);
+		timer.expireTimeouts();
+
+		assertEquals(1, fired.size());
+		assertEquals(0, timer.pendingTimeouts());
+	}
+
+	@Test
+	public void testDeadlineBeyondOneRound () throws InterruptedException {
+		// 4 buckets of 10ms: 100ms needs more than two full rounds
+		timer.schedule(() -> fired.add(1), 100, TimeUnit.MILLISECONDS);
+
+		Thread.sleep(60);
+		timer.expireTimeouts();
+		assertTrue(fired.isEmpty());
+
+		Thread.sleep(60);
+		timer.expireTimeouts();
+		assertEquals(1, fired.size());
+	}
+
+	@Test
+	public void testCancel () throws InterruptedException {
+		Timeout timeout = timer.schedule(() -> fired.add(1), 10, TimeUnit.MILLISECONDS);
+		timer.schedule(() -> fired.add(2), 10, TimeUnit.MILLISECONDS);
+
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+
+		Thread.sleep(30);
+		timer.expireTimeouts();
+
+		assertEquals(1, fired.size());
+		assertEquals(2, (int) fired.get(0));
+	}
+
+	@Test
+	public void testTaskCancelsSiblingTimeout () throws InterruptedException {
+		Timeout[] sibling = new Timeout[1];
+		timer.schedule(() -> fired.add(sibling[0].cancel() ? 1 : -1), 10, TimeUnit.MILLISECONDS);
+		sibling[0] = timer.schedule(() -> fired.add(2), 10, TimeUnit.MILLISECONDS);
+
+		Thread.sleep(30);
+		timer.expireTimeouts();
+
+		assertEquals(2, fired.size());
+		assertEquals(0, timer.pendingTimeouts());
+	}
+}